@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { busAPI } from '../services/api';
+import { tripAPI } from '../services/api';
 import { useAuth } from '../context/AuthContext';
 
 const BusSearch = () => {
@@ -65,14 +65,15 @@ const BusSearch = () => {
 
     try {
       // Make actual API call
-      const response = await busAPI.search({
+      const response = await tripAPI.search({
         origin: searchParams.origin,
         destination: searchParams.destination,
-        date: searchParams.travelDate
+        date: `${searchParams.travelDate}T00:00:00`
       });
       
-      setBuses(response.data);
-      setAllBuses(response.data); // Store all buses for filtering
+      const results = response.data.map(toBusCard);
+      setBuses(results);
+      setAllBuses(results); // Store all buses for filtering
     } catch (err) {
       console.error('Search error:', err);
       setError(err.response?.data?.error || 'Failed to search buses. Please try again.');
@@ -86,6 +87,34 @@ const BusSearch = () => {
     }
   };
 
+  // Search results are flat: one row per trip with its bus and route fields
+  const toBusCard = (result) => {
+    const departure = new Date(result.departureTime);
+    const arrival = new Date(result.arrivalTime);
+    const minutes = Math.max(0, Math.round((arrival - departure) / 60000));
+    return {
+      id: result.tripId,
+      busNumber: result.busNumber,
+      busType: result.busType,
+      operatorName: result.operatorName || '',
+      origin: result.source,
+      destination: result.destination,
+      departureTime: formatTime(departure),
+      arrivalTime: formatTime(arrival),
+      duration: `${Math.floor(minutes / 60)}h ${minutes % 60}m`,
+      price: result.fare,
+      availableSeats: result.availableSeats,
+      amenities: []
+    };
+  };
+
+  const formatTime = (date) => {
+    const hours = date.getHours();
+    const modifier = hours >= 12 ? 'PM' : 'AM';
+    const displayHours = String(hours % 12 || 12).padStart(2, '0');
+    return `${displayHours}:${date.getMinutes().toString().padStart(2, '0')} ${modifier}`;
+  };
+
   // Sample data generator for fallback
   const getSampleBuses = (origin, destination) => {
     const busTypes = ['AC', 'Non-AC', 'AC Sleeper'];
@@ -40,6 +40,21 @@ api.interceptors.response.use(
     return Promise.reject(error);
   }
 );
+
+// List endpoints return one page at a time ({ items, nextCursor, size }).
+// Follow nextCursor to the last page and hand back every item as one array.
+const getAllPages = async (url, params = {}) => {
+  const items = [];
+  let cursor;
+  let response;
+  do {
+    response = await api.get(url, { params: { ...params, size: 100, cursor } });
+    items.push(...response.data.items);
+    cursor = response.data.nextCursor;
+  } while (cursor);
+  return { ...response, data: items };
+};
+
 export const authAPI = {
   login: (credentials) => api.post('/auth/login', credentials),
   register: (userData) => api.post('/auth/register', userData),
@@ -49,13 +64,13 @@ export const authAPI = {
 };
 
 export const busAPI = {
-  getAll: () => api.get('/buses'),
+  getAll: () => getAllPages('/buses'),
   create: (busData) => api.post('/buses', busData),
 };
 
 export const bookingAPI = {
   create: (bookingData) => api.post('/bookings', bookingData),
-  getMyBookings: () => api.get('/bookings/me'),
+  getMyBookings: () => getAllPages('/bookings/me'),
   getBooking: (id) => api.get(`/bookings/${id}`),
   cancelBooking: (id) => api.delete(`/bookings/${id}`), 
   getUserBookings: (userId) => api.get(`/bookings/user/${userId}`),
@@ -73,7 +88,7 @@ search: (params) => api.get('/trips/search', {
   getById: (id) => api.get(`/trips/${id}`),
   getSeats: (tripId) => api.get(`/trips/${tripId}/seats`),
   create: (tripData) => api.post('/trips', tripData),
-  getAll: () => api.get('/trips'),
+  getAll: () => getAllPages('/trips'),
   update: (id, tripData) => api.put(`/trips/${id}`, tripData),
   delete: (id) => api.delete(`/trips/${id}`),
 
@@ -88,11 +103,11 @@ export const paymentAPI = {
   create: (paymentData) => api.post('/payments', paymentData),
   
   // Get all payments (admin)
-  getAll: () => api.get('/payments/all'),
+  getAll: () => getAllPages('/payments/all'),
 };
 
 export const routeAPI = {
-  getAll: () => api.get('/routes'),
+  getAll: () => getAllPages('/routes'),
   create: (routeData) => api.post('/routes', routeData),
   update: (id, routeData) => api.put(`/routes/${id}`, routeData),
   delete: (id) => api.delete(`/routes/${id}`),
@@ -1,11 +1,19 @@
 package com.bus.reservation.controller;
 
+import com.bus.reservation.dto.AdmissionTicket;
+import com.bus.reservation.dto.AutoHoldResult;
+import com.bus.reservation.dto.CursorPage;
+import com.bus.reservation.exception.BookingConflictException;
 import com.bus.reservation.model.Booking;
 import com.bus.reservation.model.User;
 import com.bus.reservation.repository.UserRepository;
 import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.admission.AdmissionService;
+import com.bus.reservation.service.booking.BookingExecutor;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +29,23 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final UserRepository userRepository;
+    private final BookingExecutor bookingExecutor;
+    private final AdmissionService admissionService;
+
+    // Allocation is in memory, so losing a race and allocating again is cheap
+    private static final int AUTO_HOLD_ATTEMPTS = 3;
+
+    // Cheap to poll: answered from memory, no database access. Only reports a
+    // ticket; joining the queue is done by /hold and /auto-hold.
+    @GetMapping("/queue/{tripId}")
+    public ResponseEntity<?> getQueueStatus(
+            @PathVariable Long tripId,
+            Authentication authentication) {
+        return admissionService.status(tripId, authentication.getName())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Not queued for this trip")));
+    }
 
     @PostMapping("/hold")
     public ResponseEntity<?> holdSeats(
@@ -32,17 +57,66 @@ public class BookingController {
         List<Long> seatIds = seatIdsRaw.stream().map(Long::valueOf).toList();
 
         String email = authentication.getName();
+        AdmissionTicket ticket = admissionService.enter(tripId, email);
+        if (!ticket.isAdmitted()) {
+            return waitInQueue(ticket);
+        }
+
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         try {
-            String sessionId = bookingService.holdSeats(tripId, seatIds, user.getId());
+            String sessionId = bookingService.holdSeats(tripId, seatIds,
+                    stop(request, "from"), stop(request, "to"), user.getId());
+            admissionService.leave(tripId, email);
             return ResponseEntity.ok(Map.of("sessionId", sessionId, "message", "Seats held successfully"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    // Let the server pick the seats: {"tripId", "partySize", "preferences": ["window", "together"], "from", "to"}
+    @PostMapping("/auto-hold")
+    public ResponseEntity<?> autoHoldSeats(
+            Authentication authentication,
+            @RequestBody Map<String, Object> request) {
+
+        Long tripId = Long.valueOf(request.get("tripId").toString());
+        int partySize = Integer.parseInt(request.get("partySize").toString());
+        List<String> preferences = request.get("preferences") instanceof List<?> list
+                ? list.stream().map(Object::toString).map(String::toLowerCase).toList()
+                : List.of();
+
+        String email = authentication.getName();
+        AdmissionTicket ticket = admissionService.enter(tripId, email);
+        if (!ticket.isAdmitted()) {
+            return waitInQueue(ticket);
+        }
+
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    AutoHoldResult result = bookingService.autoHoldSeats(tripId, partySize,
+                            preferences.contains("together"), preferences.contains("window"),
+                            stop(request, "from"), stop(request, "to"), user.getId());
+                    admissionService.leave(tripId, email);
+                    return ResponseEntity.ok(result);
+                } catch (BookingConflictException e) {
+                    if (attempt >= AUTO_HOLD_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/confirm")
     public ResponseEntity<?> confirmBooking(
             Authentication authentication,
@@ -56,8 +130,11 @@ public class BookingController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         try {
-            Booking booking = bookingService.confirmBooking(sessionId, user.getId(), paymentMethod);
+            Booking booking = bookingExecutor.execute(
+                    () -> bookingService.confirmBooking(sessionId, user.getId(), paymentMethod));
             return ResponseEntity.ok(booking);
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -74,25 +151,40 @@ public class BookingController {
         String paymentMethod = request.get("paymentMethod").toString();
 
         String email = authentication.getName();
+        AdmissionTicket ticket = admissionService.enter(tripId, email);
+        if (!ticket.isAdmitted()) {
+            return waitInQueue(ticket);
+        }
+
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         try {
-            String sessionId = bookingService.holdSeats(tripId, seatIds, user.getId());
-            Booking booking = bookingService.confirmBooking(sessionId, user.getId(), paymentMethod);
+            String sessionId = bookingService.holdSeats(tripId, seatIds,
+                    stop(request, "from"), stop(request, "to"), user.getId());
+            admissionService.leave(tripId, email);
+            Booking booking = bookingExecutor.execute(
+                    () -> bookingService.confirmBooking(sessionId, user.getId(), paymentMethod));
             return ResponseEntity.ok(booking);
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    // Newest first, a page at a time; pass the returned nextCursor back as cursor
     @GetMapping("/me")
-    public ResponseEntity<List<Booking>> getMyBookings(Authentication authentication) {
+    public ResponseEntity<CursorPage<Booking>> getMyBookings(
+            Authentication authentication,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         String email = authentication.getName();
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return ResponseEntity.ok(bookingService.getUserBookings(user.getId()));
+        return ResponseEntity.ok(bookingService.getUserBookings(user.getId(), status, cursor, size));
     }
     
     @DeleteMapping("/{bookingId}")
@@ -105,8 +197,10 @@ public class BookingController {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            bookingService.cancelBooking(bookingId, user.getId());
+            bookingExecutor.execute(() -> bookingService.cancelBooking(bookingId, user.getId()));
             return ResponseEntity.ok(Map.of("message", "Booking cancelled successfully"));
+        } catch (BookingConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -129,4 +223,16 @@ public class BookingController {
             return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<AdmissionTicket> waitInQueue(AdmissionTicket ticket) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ticket.getEstimatedWaitSeconds())))
+                .body(ticket);
+    }
+
+    // Optional boarding/alighting stop for multi-stop routes; absent means the route's end
+    private static String stop(Map<String, Object> request, String key) {
+        Object stop = request.get(key);
+        return stop != null ? stop.toString() : null;
+    }
+}
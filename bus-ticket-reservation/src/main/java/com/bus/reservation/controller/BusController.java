@@ -1,7 +1,8 @@
 package com.bus.reservation.controller;
 
+import com.bus.reservation.dto.CursorPage;
+import com.bus.reservation.dto.TripSearchResult;
 import com.bus.reservation.model.Bus;
-import com.bus.reservation.model.Trip;
 import com.bus.reservation.service.BusService;
 
 
@@ -10,7 +11,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collections;
 import java.util.List;
 
 @RestController
@@ -27,21 +27,21 @@ public class BusController {
         return ResponseEntity.ok(busService.addBus(bus));
     }
 
-    // All authenticated users
+    // All authenticated users; a page at a time, pass the returned nextCursor back as cursor
     @GetMapping
-    public ResponseEntity<List<Bus>> getAllBuses() {
-        List<Bus> buses = busService.getAllBuses();
-        if (buses.isEmpty()) {
-            return ResponseEntity.ok(Collections.emptyList()); // Return empty array instead of error
-        }
-        return ResponseEntity.ok(buses);
+    public ResponseEntity<CursorPage<Bus>> getAllBuses(
+            @RequestParam(required = false) String busType,
+            @RequestParam(required = false) String operatorName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(busService.listBuses(busType, operatorName, cursor, size));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Trip>> searchBuses(
+    public ResponseEntity<List<TripSearchResult>> searchBuses(
             @RequestParam String source,
             @RequestParam String destination) {
-        List<Trip> buses = busService.searchBuses(source, destination);
+        List<TripSearchResult> buses = busService.searchBuses(source, destination);
         return ResponseEntity.ok(buses);
     }
 }
@@ -0,0 +1,41 @@
+package com.bus.reservation.controller;
+
+import com.bus.reservation.dto.HoldExpiryStats;
+import com.bus.reservation.dto.SeatInventoryReport;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/inventory")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+public class InventoryController {
+
+    private final SeatInventoryService seatInventoryService;
+
+    @GetMapping("/hold-expiry")
+    public ResponseEntity<HoldExpiryStats> getHoldExpiryStats() {
+        return ResponseEntity.ok(seatInventoryService.getExpiryStats());
+    }
+
+    @GetMapping("/trips/{tripId}")
+    public ResponseEntity<SeatInventoryReport> getInventory(@PathVariable Long tripId) {
+        return ResponseEntity.ok(seatInventoryService.getReport(tripId));
+    }
+
+    // Admin: reload the trip's seat bitmap from the database
+    @PostMapping("/trips/{tripId}/rebuild")
+    public ResponseEntity<SeatInventoryReport> rebuildInventory(@PathVariable Long tripId) {
+        return ResponseEntity.ok(seatInventoryService.rebuild(tripId));
+    }
+
+    // Admin: reconcile the trip's seat bitmap against the database
+    @GetMapping("/trips/{tripId}/verify")
+    public ResponseEntity<SeatInventoryReport> verifyInventory(@PathVariable Long tripId) {
+        return ResponseEntity.ok(seatInventoryService.verify(tripId));
+    }
+}
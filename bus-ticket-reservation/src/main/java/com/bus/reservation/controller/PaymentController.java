@@ -1,11 +1,13 @@
 package com.bus.reservation.controller;
 
+import com.bus.reservation.dto.CursorPage;
 import com.bus.reservation.dto.PaymentRequest;
 import com.bus.reservation.model.Payment;
 import com.bus.reservation.model.User;
 import com.bus.reservation.repository.PaymentRepository;
 import com.bus.reservation.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +15,7 @@ import com.bus.reservation.service.PaymentService;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -36,9 +39,16 @@ public class PaymentController {
         return ResponseEntity.ok(payments);
     }
 
+    // Admin: newest first, a page at a time; pass the returned nextCursor back as cursor
     @GetMapping("/all")
-    public ResponseEntity<List<Payment>> getAllPayments() {
-        return ResponseEntity.ok(paymentRepository.findAll());
+    public ResponseEntity<CursorPage<Payment>> getAllPayments(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(paymentService.listPayments(status, paymentMethod, from, to, cursor, size));
     }
     
     @PostMapping
@@ -1,5 +1,7 @@
 package com.bus.reservation.controller;
 
+import com.bus.reservation.dto.CityEntry;
+import com.bus.reservation.dto.CursorPage;
 import com.bus.reservation.model.Route;
 import com.bus.reservation.service.RouteService;
 
@@ -24,9 +26,45 @@ public class RouteController {
         return ResponseEntity.ok(routeService.addRoute(route));
     }
 
-    // All authenticated users
+    // All authenticated users; a page at a time, pass the returned nextCursor back as cursor
     @GetMapping
-    public ResponseEntity<List<Route>> getAllRoutes() {
-        return ResponseEntity.ok(routeService.getAllRoutes());
+    public ResponseEntity<CursorPage<Route>> getAllRoutes(
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(routeService.listRoutes(source, destination, cursor, size));
+    }
+
+    // City names for the search boxes, e.g. ?q=coim
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestCities(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(routeService.suggestCities(q, limit));
+    }
+
+    // Every city routes are found by, with its aliases
+    @GetMapping("/cities")
+    public ResponseEntity<List<CityEntry>> getCities() {
+        return ResponseEntity.ok(routeService.getCities());
+    }
+
+    // Admin only: let a city be searched by another name, e.g. ?alias=Madras
+    @PostMapping("/cities/{id}/aliases")
+    public ResponseEntity<CityEntry> addCityAlias(@PathVariable Long id, @RequestParam String alias) {
+        return ResponseEntity.ok(routeService.addCityAlias(id, alias));
+    }
+
+    // All stops in travel order, source and destination included
+    @GetMapping("/{id}/stops")
+    public ResponseEntity<List<String>> getStops(@PathVariable Long id) {
+        return ResponseEntity.ok(routeService.getStops(id));
+    }
+
+    // Admin only: replace the intermediate stops, e.g. ["Trichy", "Salem"]
+    @PutMapping("/{id}/stops")
+    public ResponseEntity<List<String>> setStops(@PathVariable Long id, @RequestBody List<String> stops) {
+        return ResponseEntity.ok(routeService.setStops(id, stops));
     }
 }
@@ -1,17 +1,44 @@
 package com.bus.reservation.controller;
 
+import com.bus.reservation.dto.BulkScheduleStatus;
+import com.bus.reservation.dto.CursorPage;
+import com.bus.reservation.dto.FareCalendar;
+import com.bus.reservation.dto.JourneyPlan;
+import com.bus.reservation.dto.SearchCacheStats;
+import com.bus.reservation.dto.SearchIndexReport;
+import com.bus.reservation.dto.SeatMap;
+import com.bus.reservation.dto.TripAvailability;
+import com.bus.reservation.dto.TripFacets;
+import com.bus.reservation.dto.TripFilter;
+import com.bus.reservation.dto.TripScheduleRule;
+import com.bus.reservation.dto.TripSearchResult;
 import com.bus.reservation.model.Seat;
 import com.bus.reservation.model.Trip;
-import com.bus.reservation.repository.TripRepository; // ADD THIS IMPORT
 import com.bus.reservation.service.TripService;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatMapEncoding;
+import com.bus.reservation.service.schedule.TripScheduleService;
+import com.bus.reservation.service.search.ConnectionPlanner;
+import com.bus.reservation.service.search.FareCalendarIndex;
+import com.bus.reservation.service.search.SearchResultCache;
+import com.bus.reservation.service.search.TripFacetSearch;
+import com.bus.reservation.service.search.TripSearchIndex;
+import com.bus.reservation.service.stream.SeatStreamService;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -21,7 +48,14 @@ import java.util.List;
 public class TripController {
 
     private final TripService tripService;
-    private final TripRepository tripRepository; // ADD THIS FIELD
+    private final SeatInventoryService seatInventoryService;
+    private final SeatStreamService seatStreamService;
+    private final TripScheduleService tripScheduleService;
+    private final TripSearchIndex tripSearchIndex;
+    private final ConnectionPlanner connectionPlanner;
+    private final SearchResultCache searchResultCache;
+    private final FareCalendarIndex fareCalendarIndex;
+    private final TripFacetSearch tripFacetSearch;
     
     @GetMapping("/{id}")
     public ResponseEntity<Trip> getTripById(@PathVariable Long id) {
@@ -42,50 +76,169 @@ public class TripController {
         );
     }
 
-    // Search trips by source, destination, date
+    // Admin: schedule recurring departures in the background; poll the returned job for progress
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkScheduleStatus> scheduleTrips(@RequestBody List<TripScheduleRule> rules) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tripScheduleService.start(rules));
+    }
+
+    // Admin: progress of a bulk schedule job
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<BulkScheduleStatus> getScheduleStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(tripScheduleService.getStatus(jobId));
+    }
+
+    // Search trips by source, destination, date; each trip comes with its free seats
     @GetMapping("/search")
-    public ResponseEntity<List<Trip>> searchTrips(
+    public ResponseEntity<List<TripSearchResult>> searchTrips(
             @RequestParam String source,
             @RequestParam String destination,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
         return ResponseEntity.ok(tripService.searchTrips(source, destination, date));
     }
 
-    // Get seat availability for trip
+    // The same search filtered and sorted, with counts per bus type and operator; list params may repeat
+    @GetMapping("/search/faceted")
+    public ResponseEntity<TripFacets> searchTripsFaceted(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @RequestParam(required = false) List<String> busType,
+            @RequestParam(required = false) List<String> operator,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime departAfter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime departBefore,
+            @RequestParam(required = false) Double minFare,
+            @RequestParam(required = false) Double maxFare,
+            @RequestParam(required = false) Integer minSeats,
+            @RequestParam(defaultValue = "departure") String sort) {
+        TripFilter filter = TripFilter.builder()
+                .source(source)
+                .destination(destination)
+                .date(date.toLocalDate())
+                .busTypes(busType)
+                .operators(operator)
+                .departAfter(departAfter)
+                .departBefore(departBefore)
+                .minFare(minFare)
+                .maxFare(maxFare)
+                .minSeats(minSeats)
+                .sort(sort)
+                .build();
+        return ResponseEntity.ok(tripFacetSearch.search(filter));
+    }
+
+    // Journeys with up to a few changes of bus, leaving at or after the given time
+    @GetMapping("/connections")
+    public ResponseEntity<JourneyPlan> searchConnections(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
+        return ResponseEntity.ok(connectionPlanner.plan(source, destination, date));
+    }
+
+    // Cheapest bookable fare per day for the next days (30 by default, up to 90), from today unless given
+    @GetMapping("/fare-calendar")
+    public ResponseEntity<FareCalendar> getFareCalendar(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "" + FareCalendarIndex.DEFAULT_DAYS) int days) {
+        LocalDate first = from != null ? from : LocalDate.now();
+        return ResponseEntity.ok(fareCalendarIndex.calendar(source, destination, first, days));
+    }
+
+    // Admin: size of the in-memory search index
+    @GetMapping("/search/index")
+    public ResponseEntity<SearchIndexReport> getSearchIndex() {
+        return ResponseEntity.ok(tripSearchIndex.getReport());
+    }
+
+    // Admin: reconcile the search index against the database
+    @GetMapping("/search/index/verify")
+    public ResponseEntity<SearchIndexReport> verifySearchIndex() {
+        return ResponseEntity.ok(tripSearchIndex.verify());
+    }
+
+    // Admin: reload the search index from the database, dropping cached results and fares built on it
+    @PostMapping("/search/index/rebuild")
+    public ResponseEntity<SearchIndexReport> rebuildSearchIndex() {
+        SearchIndexReport report = tripSearchIndex.rebuild();
+        searchResultCache.clear();
+        fareCalendarIndex.clear();
+        return ResponseEntity.ok(report);
+    }
+
+    // Admin: hit, miss and eviction counts of the search result cache
+    @GetMapping("/search/cache")
+    public ResponseEntity<SearchCacheStats> getSearchCacheStats() {
+        return ResponseEntity.ok(searchResultCache.getStats());
+    }
+
+    // Seat counts for a page of trips in one call, up to 500 trip ids; unknown ids are left out
+    @PostMapping("/availability")
+    public ResponseEntity<List<TripAvailability>> getAvailability(@RequestBody List<Long> tripIds) {
+        return ResponseEntity.ok(tripService.getAvailability(tripIds));
+    }
+
+    // Get seat availability for trip, optionally for the journey between two of its stops
     @GetMapping("/{tripId}/seats")
-    public ResponseEntity<List<Seat>> getTripSeats(@PathVariable Long tripId) {
-        return ResponseEntity.ok(tripService.getTripSeats(tripId));
+    public ResponseEntity<List<Seat>> getTripSeats(
+            @PathVariable Long tripId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return ResponseEntity.ok(tripService.getTripSeats(tripId, from, to));
     }
     
-    // Get all trips
+    // Compact seat map: layout once, availability as bits. Send If-None-Match to get 304 when unchanged
+    @GetMapping("/{tripId}/seat-map")
+    public ResponseEntity<SeatMap> getSeatMap(
+            @PathVariable Long tripId,
+            @RequestParam(defaultValue = "bitset") String encoding,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            WebRequest request) {
+        SeatMapEncoding seatMapEncoding = SeatMapEncoding.fromName(encoding);
+        long legMask = seatInventoryService.legMask(tripId, from, to);
+        String etag = seatInventoryService.getSeatMapTag(tripId, legMask, seatMapEncoding);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+
+        SeatMap seatMap = seatInventoryService.getSeatMap(tripId, legMask, seatMapEncoding);
+        return ResponseEntity.ok().eTag(seatMap.getEtag()).cacheControl(CacheControl.noCache()).body(seatMap);
+    }
+
+    // Live seat changes: a "seat-map" event first, then "seats" deltas on top of it
+    @GetMapping(value = "/{tripId}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(@PathVariable Long tripId) {
+        return seatStreamService.subscribe(tripId, () -> seatInventoryService.getSeatMap(tripId,
+                seatInventoryService.getInventory(tripId).getAllLegs(), SeatMapEncoding.BITSET));
+    }
+
+    // Trips in departure order, a page at a time: pass the returned nextCursor back as cursor
     @GetMapping
-    public ResponseEntity<List<Trip>> getAllTrips() {
-        return ResponseEntity.ok(tripRepository.findAll());
+    public ResponseEntity<CursorPage<Trip>> getAllTrips(
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) Long busId,
+            @RequestParam(required = false) Long routeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(tripService.listTrips(source, destination, busId, routeId, from, to, cursor, size));
     }
 
     // Update trip
     @PutMapping("/{id}")
     public ResponseEntity<Trip> updateTrip(@PathVariable Long id, @RequestBody Trip tripDetails) {
-        Trip trip = tripRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
-        
-        // Update trip details
-        trip.setBus(tripDetails.getBus());
-        trip.setRoute(tripDetails.getRoute());
-        trip.setDepartureTime(tripDetails.getDepartureTime());
-        trip.setArrivalTime(tripDetails.getArrivalTime());
-        trip.setFare(tripDetails.getFare());
-        
-        return ResponseEntity.ok(tripRepository.save(trip));
+        return ResponseEntity.ok(tripService.updateTrip(id, tripDetails));
     }
 
     // Delete trip
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteTrip(@PathVariable Long id) {
-        if (!tripRepository.existsById(id)) {
-            throw new RuntimeException("Trip not found with id: " + id);
-        }
-        tripRepository.deleteById(id);
+        tripService.deleteTrip(id);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.bus.reservation.controller;
+
+import com.bus.reservation.model.User;
+import com.bus.reservation.model.WaitlistEntry;
+import com.bus.reservation.repository.UserRepository;
+import com.bus.reservation.service.waitlist.WaitlistService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/waitlist")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+    private final UserRepository userRepository;
+
+    // Join a sold-out trip's waitlist: {"tripId", "partySize"}. Offers arrive as a seat hold
+    // (sessionId, offeredUntil) to confirm through /api/v1/bookings/confirm
+    @PostMapping
+    public ResponseEntity<?> join(
+            Authentication authentication,
+            @RequestBody Map<String, Object> request) {
+
+        Long tripId = Long.valueOf(request.get("tripId").toString());
+        int partySize = Integer.parseInt(request.get("partySize").toString());
+        User user = currentUser(authentication);
+
+        try {
+            WaitlistEntry entry = waitlistService.join(tripId, partySize, user.getId());
+            return ResponseEntity.ok(Map.of("entry", entry, "position", waitlistService.getPosition(entry)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<List<WaitlistEntry>> getMyEntries(Authentication authentication) {
+        return ResponseEntity.ok(waitlistService.getUserEntries(currentUser(authentication).getId()));
+    }
+
+    @DeleteMapping("/{entryId}")
+    public ResponseEntity<?> leave(Authentication authentication, @PathVariable Long entryId) {
+        try {
+            waitlistService.leave(entryId, currentUser(authentication).getId());
+            return ResponseEntity.ok(Map.of("message", "Left the waitlist"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private User currentUser(Authentication authentication) {
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
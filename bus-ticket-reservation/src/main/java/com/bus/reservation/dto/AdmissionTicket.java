@@ -0,0 +1,19 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionTicket {
+    private Long tripId;
+    private long ticket;                 // Place in the trip's queue, first come first served
+    private boolean admitted;            // May call /bookings/hold now
+    private long position;               // Tickets ahead of this one, 0 once admitted
+    private long estimatedWaitSeconds;
+    private long admittedUntil;          // Epoch millis the admission lapses, 0 while waiting
+}
@@ -0,0 +1,20 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoHoldResult {
+    private String sessionId;
+    private List<Long> seatIds;
+    private List<String> seatNumbers;
+    private LocalDateTime holdUntil;
+}
@@ -0,0 +1,24 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkScheduleStatus {
+    private String jobId;
+    private String state;                // RUNNING, COMPLETED or FAILED
+    private int totalTrips;              // Departures the rules expand to
+    private int createdTrips;
+    private int skippedTrips;            // Already scheduled, e.g. by an earlier run over the same range
+    private long createdSeats;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
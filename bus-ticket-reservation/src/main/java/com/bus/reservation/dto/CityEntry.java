@@ -0,0 +1,18 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityEntry {
+    private Long id;
+    private String name;
+    private List<String> aliases;    // Other names the city is found by
+}
@@ -0,0 +1,18 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;       // Pass back as ?cursor= for the next page; null on the last page
+    private int size;                // Page size the items were fetched with
+}
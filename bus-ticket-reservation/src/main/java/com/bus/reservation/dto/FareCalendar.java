@@ -0,0 +1,21 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareCalendar {
+    private String source;
+    private String destination;
+    private List<FareCalendarDay> days;  // One per day from the requested date, empty days included
+    private LocalDate cheapestDay;       // Null when no day has a free seat
+    private long searchMicros;
+}
@@ -0,0 +1,19 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareCalendarDay {
+    private LocalDate date;
+    private Double minFare;          // Cheapest trip with a free seat; null when none
+    private int trips;
+    private int availableSeats;      // Free seats across all the day's trips
+}
@@ -0,0 +1,21 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldExpiryStats {
+    private int pendingHolds;        // Sessions waiting on the expiry wheel
+    private long expiredHolds;       // Sessions released since startup
+    private long expiredSeats;       // Seats released since startup
+    private int lastSweepSize;       // Seats released by the most recent sweep
+    private int maxSweepSize;
+    private long lastLagMillis;      // How long after holdUntil the last hold was released
+    private long maxLagMillis;
+    private double averageLagMillis;
+}
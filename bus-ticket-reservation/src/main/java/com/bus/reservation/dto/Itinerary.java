@@ -0,0 +1,23 @@
+package com.bus.reservation.dto;
+
+import com.bus.reservation.model.Trip;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Itinerary {
+    private List<Trip> legs;             // Trips to take, in travel order
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private long durationMinutes;
+    private double totalFare;
+    private int transfers;               // Changes of bus, legs - 1
+}
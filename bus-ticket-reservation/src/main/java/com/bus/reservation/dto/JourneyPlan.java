@@ -0,0 +1,21 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JourneyPlan {
+    private String source;
+    private String destination;
+    private Itinerary earliestArrival;   // Null when no journey was found
+    private Itinerary cheapest;
+    private List<Itinerary> options;     // Every journey not beaten on arrival, fare and transfers, by arrival
+    private long searchMicros;
+}
@@ -0,0 +1,21 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchCacheStats {
+    private int entries;             // Cached (source, destination, day) searches
+    private long weight;             // Trips held across all entries
+    private long maxWeight;
+    private long hits;
+    private long misses;
+    private long evictions;          // Dropped to stay under maxWeight
+    private long invalidations;      // Dropped because a trip or seat in them changed
+    private double hitRate;
+}
@@ -0,0 +1,25 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchIndexReport {
+    private LocalDateTime indexedFrom;   // Departures before this are searched in the database
+    private int buckets;                 // (source, destination, day) buckets
+    private int indexedTrips;
+
+    // Only filled in by a verify run
+    private Boolean consistent;
+    private int databaseTrips;
+    private List<Long> missingTrips;     // In the database, not in the index
+    private List<Long> staleTrips;       // In the index, gone or different in the database
+}
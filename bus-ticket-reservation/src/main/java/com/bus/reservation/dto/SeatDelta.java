@@ -0,0 +1,31 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seats of one trip that changed since the previous delta. A seat appears in
+ * one list only, the one for its latest change.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatDelta {
+    private Long tripId;
+    private long version;                // Inventory version after these changes
+
+    @Builder.Default
+    private List<Long> held = new ArrayList<>();
+    @Builder.Default
+    private List<Long> released = new ArrayList<>();
+    @Builder.Default
+    private List<Long> booked = new ArrayList<>();
+    @Builder.Default
+    private List<Long> cancelled = new ArrayList<>();
+}
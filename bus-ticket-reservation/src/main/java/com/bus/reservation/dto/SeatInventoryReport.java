@@ -0,0 +1,26 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatInventoryReport {
+    private Long tripId;
+    private int totalSeats;
+    private int bookedSeats;
+    private int heldSeats;
+    private int availableSeats;
+    private long version;
+
+    // Only filled in by a verify run
+    private Boolean consistent;
+    private List<Long> bookedMismatches;
+    private List<Long> heldMismatches;
+}
@@ -0,0 +1,34 @@
+package com.bus.reservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Seat layout of a trip with its availability packed one bit per seat.
+ * Position i of every list and bit i of both encodings describe the same seat.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatMap {
+    private Long tripId;
+    private long version;                // Inventory version the availability was read at
+    private int seatCount;
+    private List<Long> seatIds;          // Ascending
+    private List<String> seatNumbers;
+    private List<String> seatTypes;
+    private List<String> stops;          // Source to destination; leg i runs from stop i to stop i + 1
+    private long legMask;                // Legs the availability was computed for
+    private String encoding;             // "bitset" (base64, little-endian) or "rle" (run lengths, free first)
+    private String booked;
+    private String held;
+
+    @JsonIgnore
+    private String etag;                 // Sent as the ETag header instead
+}
@@ -0,0 +1,18 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripAvailability {
+    private Long tripId;
+    private int availableSeats;      // Free for the whole route
+    private int heldSeats;           // Held for a checkout, not sold
+    private int bookedSeats;         // Sold on at least one leg
+    private int totalSeats;
+}
@@ -0,0 +1,23 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripFacets {
+    private List<TripSearchResult> results;  // Trips passing every filter, in the requested order
+    private int totalTrips;                  // Trips on the day before filtering
+    private Map<String, Integer> busTypes;   // Per bus type, trips passing every other filter
+    private Map<String, Integer> operators;  // Per operator, trips passing every other filter
+    private Double minFare;                  // Fare range of the trips passing every other filter
+    private Double maxFare;
+    private long searchMicros;
+}
@@ -0,0 +1,28 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripFilter {
+    private String source;
+    private String destination;
+    private LocalDate date;
+    private List<String> busTypes;   // Any of these, case-insensitive; null or empty for all
+    private List<String> operators;
+    private LocalTime departAfter;   // Inclusive
+    private LocalTime departBefore;  // Inclusive
+    private Double minFare;
+    private Double maxFare;
+    private Integer minSeats;        // Free seats needed; null for sold-out trips too
+    private String sort;             // departure (default), fare or duration
+}
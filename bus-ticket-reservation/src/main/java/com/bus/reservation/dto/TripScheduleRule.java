@@ -0,0 +1,31 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recurring departures of one bus on one route: every listed time on every
+ * listed weekday from startDate to endDate, both inclusive.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripScheduleRule {
+    private Long busId;
+    private Long routeId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Set<DayOfWeek> daysOfWeek;   // Empty or missing means every day
+    private List<LocalTime> departureTimes;
+    private long durationMinutes;
+    private Double fare;
+}
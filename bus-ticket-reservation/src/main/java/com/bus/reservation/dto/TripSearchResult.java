@@ -0,0 +1,31 @@
+package com.bus.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchResult {
+    private Long tripId;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Double fare;
+
+    private Long busId;
+    private String busNumber;
+    private String busType;
+    private String operatorName;
+
+    private Long routeId;
+    private String source;
+    private String destination;
+
+    private int availableSeats;      // Free for the whole route, neither booked nor held
+    private int totalSeats;
+}
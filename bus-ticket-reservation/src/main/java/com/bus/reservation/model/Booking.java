@@ -9,7 +9,10 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_status_date", columnList = "status, booking_date"),
+        @Index(name = "idx_bookings_user_status", columnList = "user_id, status")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -42,6 +45,10 @@ public class Booking {
 
     @Column(nullable = false)
     private String status; 
+
+    // Legs of the route this booking covers, as in Seat.bookedLegs; 0 means the whole route
+    @Builder.Default
+    private long legMask = 0;
     
     @Builder.Default
     private LocalDateTime bookingDate = LocalDateTime.now();
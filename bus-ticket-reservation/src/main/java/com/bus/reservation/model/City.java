@@ -0,0 +1,29 @@
+package com.bus.reservation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entry of the city dictionary. Routes refer to cities by id; nameKey is the
+ * folded name (see CityDictionary.key) that keeps "Chennai" and "chennai "
+ * one city.
+ */
+@Entity
+@Table(name = "cities")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class City {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, unique = true)
+    private String nameKey;
+}
@@ -0,0 +1,33 @@
+package com.bus.reservation.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Another name a city is searched by, e.g. Madras for Chennai.
+ */
+@Entity
+@Table(name = "city_aliases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CityAlias {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "city_id", nullable = false)
+    @JsonIgnore
+    private City city;
+
+    @Column(nullable = false)
+    private String alias;
+
+    @Column(nullable = false, unique = true)
+    private String aliasKey;
+}
@@ -7,7 +7,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_status_date", columnList = "status, payment_date"),
+        @Index(name = "idx_payments_method", columnList = "payment_method")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -1,10 +1,12 @@
 package com.bus.reservation.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "routes")
+@Table(name = "routes", indexes =
+        @Index(name = "idx_routes_cities", columnList = "source_city_id, destination_city_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,6 +24,18 @@ public class Route {
     @Column(nullable = false)
     private String destination;
 
+    // Dictionary entries for source and destination, which queries filter on;
+    // set by CityDictionary when the route is saved or first scheduled
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "source_city_id")
+    @JsonIgnore
+    private City sourceCity;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "destination_city_id")
+    @JsonIgnore
+    private City destinationCity;
+
     private Double distance;  
     private String duration;  
 }
@@ -0,0 +1,36 @@
+package com.bus.reservation.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Intermediate stop of a route. The route's source is stop 0, its stops
+ * follow in stopOrder (1, 2, ...) and its destination is the last stop;
+ * leg i runs from stop i to stop i + 1.
+ */
+@Entity
+@Table(name = "route_stops", uniqueConstraints =
+        @UniqueConstraint(name = "uk_route_stops_order", columnNames = {"route_id", "stop_order"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RouteStop {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "route_id", nullable = false)
+    @JsonIgnore
+    private Route route;
+
+    @Column(name = "stop_order", nullable = false)
+    private int stopOrder;
+
+    @Column(nullable = false)
+    private String city;
+}
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "seats")
+@Table(name = "seats", indexes =
+        @Index(name = "idx_seats_trip_booked", columnList = "trip_id, is_booked"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,5 +27,12 @@ public class Seat {
     private String seatType; 
     
     @Builder.Default
-    private boolean isBooked = false;
+    private boolean isBooked = false;   // Sold on at least one leg
+
+    // Bit i set: sold for leg i of the route (stop i to stop i + 1)
+    @Builder.Default
+    private long bookedLegs = 0;
+
+    @Version
+    private long version;
 }
@@ -6,7 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "seat_holds")
+@Table(name = "seat_holds", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_seat_holds_seat", columnNames = "seat_id")
+}, indexes = {
+        @Index(name = "idx_seat_holds_session", columnList = "session_id"),
+        @Index(name = "idx_seat_holds_hold_until", columnList = "hold_until")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,6 +23,7 @@ public class SeatHold {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // One hold row per seat: the database rejects a second holder
     @ManyToOne
     @JoinColumn(name = "seat_id", nullable = false)
     private Seat seat;
@@ -25,9 +31,16 @@ public class SeatHold {
     @Column(nullable = false)
     private String sessionId;
 
+    // Who the seats are held for; only they can confirm the hold
+    private Long userId;
+
     @Column(nullable = false)
     private LocalDateTime holdUntil;
 
+    // Legs being bought, as in Seat.bookedLegs; 0 means the whole route
+    @Builder.Default
+    private long legMask = 0;
+
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.bus.reservation.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,7 +8,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "trips")
+@Table(name = "trips", uniqueConstraints =
+        @UniqueConstraint(name = "uk_trips_bus_route_departure", columnNames = {"bus_id", "route_id", "departure_time"}),
+        indexes = {
+                @Index(name = "idx_trips_route_departure", columnList = "route_id, departure_time"),
+                @Index(name = "idx_trips_departure", columnList = "departure_time")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,6 +42,11 @@ public class Trip {
     @Column(nullable = false)
     private Double fare;
 
+    // Not serialised: each seat points back to its trip. Seats are read from /trips/{id}/seats
+    @JsonIgnore
     @OneToMany(mappedBy = "trip", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Seat> seats;
+
+    @Version
+    private long version;
 }
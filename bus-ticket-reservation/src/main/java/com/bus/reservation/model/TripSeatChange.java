@@ -0,0 +1,31 @@
+package com.bus.reservation.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One seat change committed on a trip, written when holds are shared between
+ * nodes. Nodes count the records written by the others to tell when their
+ * cached seat map of the trip is out of date.
+ */
+@Entity
+@Table(name = "trip_seat_changes", indexes =
+        @Index(name = "idx_trip_seat_changes_trip_node", columnList = "trip_id, node_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TripSeatChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long tripId;
+
+    // The node that made the change
+    @Column(nullable = false)
+    private String nodeId;
+}
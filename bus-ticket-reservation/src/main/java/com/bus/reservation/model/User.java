@@ -30,8 +30,9 @@ public class User {
     @Column(nullable = false,  length = 255)
     private String password;
 
+    // Spelled out so the schema check accepts the MySQL enum column on every database
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
+    @Column(nullable = false, columnDefinition = "enum ('ADMIN','CUSTOMER')")
     private Role role;
     
     @Builder.Default
@@ -0,0 +1,49 @@
+package com.bus.reservation.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user waiting for seats on a sold-out trip. Entries are served in id
+ * order; when seats free up the head entry is given a seat hold (OFFERED)
+ * that it confirms like any other hold.
+ */
+@Entity
+@Table(name = "waitlist_entries", indexes =
+        @Index(name = "idx_waitlist_trip_status", columnList = "trip_id, status"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "trip_id", nullable = false)
+    private Trip trip;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    @Column(nullable = false)
+    private int partySize;
+
+    @Column(nullable = false)
+    private String status; // WAITING, OFFERED, CANCELLED, EXPIRED
+
+    private String sessionId;       // Seat hold given with the offer
+
+    private LocalDateTime offeredUntil;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
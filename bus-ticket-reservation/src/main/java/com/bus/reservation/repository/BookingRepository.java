@@ -1,15 +1,19 @@
 package com.bus.reservation.repository;
 
 import com.bus.reservation.model.Booking;
-import com.bus.reservation.model.SeatHold;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByUserId(Long userId);
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
+    // On user_id itself; the derived query joins users first and scans bookings
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId")
+    List<Booking> findByUserId(@Param("userId") Long userId);
     
 List<Booking> findByStatusAndBookingDateBefore(String status, LocalDateTime date);
     
@@ -17,6 +21,10 @@ List<Booking> findByStatusAndBookingDateBefore(String status, LocalDateTime date
     
     List<Booking> findByStatus(String status);
     
-    // Seat hold method
-    List<SeatHold> findByHoldUntilBefore(LocalDateTime date);
+    // Bookings per dictionary city, as [cityId, count] rows, counting both ends of the route
+    @Query("SELECT r.sourceCity.id, COUNT(b) FROM Booking b JOIN b.trip t JOIN t.route r WHERE b.status IN :statuses GROUP BY r.sourceCity.id")
+    List<Object[]> countBySourceCity(@Param("statuses") List<String> statuses);
+
+    @Query("SELECT r.destinationCity.id, COUNT(b) FROM Booking b JOIN b.trip t JOIN t.route r WHERE b.status IN :statuses GROUP BY r.destinationCity.id")
+    List<Object[]> countByDestinationCity(@Param("statuses") List<String> statuses);
 }
@@ -2,7 +2,8 @@ package com.bus.reservation.repository;
 
 import com.bus.reservation.model.Bus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface BusRepository extends JpaRepository<Bus, Long> {
+public interface BusRepository extends JpaRepository<Bus, Long>, JpaSpecificationExecutor<Bus> {
     
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.bus.reservation.repository;
+
+import com.bus.reservation.model.CityAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface CityAliasRepository extends JpaRepository<CityAlias, Long> {
+
+    // Every alias with its city, for the in-memory dictionary
+    @Query("SELECT a FROM CityAlias a JOIN FETCH a.city")
+    List<CityAlias> findAllWithCity();
+}
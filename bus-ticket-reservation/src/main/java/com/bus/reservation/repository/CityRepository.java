@@ -0,0 +1,11 @@
+package com.bus.reservation.repository;
+
+import com.bus.reservation.model.City;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CityRepository extends JpaRepository<City, Long> {
+
+    Optional<City> findByNameKey(String nameKey);
+}
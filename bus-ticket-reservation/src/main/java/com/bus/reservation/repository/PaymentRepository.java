@@ -2,15 +2,18 @@ package com.bus.reservation.repository;
 
 import com.bus.reservation.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpecificationExecutor<Payment> {
     
-    Optional<Payment> findByBookingId(Long bookingId);
+    // Matches booking_id directly rather than joining bookings
+    @Query("SELECT p FROM Payment p WHERE p.booking.id = :bookingId")
+    Optional<Payment> findByBookingId(@Param("bookingId") Long bookingId);
     
     @Query("SELECT p FROM Payment p WHERE p.booking.user.id = :userId")
     List<Payment> findByBookingUserId(@Param("userId") Long userId);
@@ -2,6 +2,18 @@ package com.bus.reservation.repository;
 
 import com.bus.reservation.model.Route;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface RouteRepository extends JpaRepository<Route, Long> {
+import java.util.List;
+
+public interface RouteRepository extends JpaRepository<Route, Long>, JpaSpecificationExecutor<Route> {
+
+    // Every city a route starts or ends in, for city suggestions
+    @Query("SELECT r.source FROM Route r UNION SELECT r.destination FROM Route r")
+    List<String> findAllCities();
+
+    // Routes saved without their dictionary cities, to be linked
+    @Query("SELECT r FROM Route r WHERE r.sourceCity IS NULL OR r.destinationCity IS NULL")
+    List<Route> findUnlinked();
 }
@@ -0,0 +1,23 @@
+package com.bus.reservation.repository;
+
+import com.bus.reservation.model.RouteStop;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface RouteStopRepository extends JpaRepository<RouteStop, Long> {
+
+    // Reads the (route_id, stop_order) key directly; the derived form joins routes
+    @Query("SELECT rs FROM RouteStop rs WHERE rs.route.id = :routeId ORDER BY rs.stopOrder")
+    List<RouteStop> findByRouteIdOrderByStopOrder(@Param("routeId") Long routeId);
+
+    @Query("SELECT DISTINCT rs.city FROM RouteStop rs")
+    List<String> findAllCities();
+
+    @Modifying
+    @Query("DELETE FROM RouteStop rs WHERE rs.route.id = :routeId")
+    void deleteByRouteId(@Param("routeId") Long routeId);
+}
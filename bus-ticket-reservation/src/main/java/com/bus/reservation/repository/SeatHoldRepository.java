@@ -11,23 +11,42 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface SeatHoldRepository extends JpaRepository<SeatHold, Long> {
+public interface SeatHoldRepository extends JpaRepository<SeatHold, Long>, SeatHoldRepositoryCustom {
     
     List<SeatHold> findBySessionId(String sessionId);
     
-    Optional<SeatHold> findBySeatIdAndSessionId(Long seatId, String sessionId);
+    // Loads the holds of a session together with their seats and trip in one query
+    @Query("SELECT sh FROM SeatHold sh JOIN FETCH sh.seat s JOIN FETCH s.trip t JOIN FETCH t.bus JOIN FETCH t.route WHERE sh.sessionId = :sessionId")
+    List<SeatHold> findBySessionIdWithSeats(@Param("sessionId") String sessionId);
+    
+    // Seat and session compared on seat_holds alone, without joining seats
+    @Query("SELECT sh FROM SeatHold sh WHERE sh.seat.id = :seatId AND sh.sessionId = :sessionId")
+    Optional<SeatHold> findBySeatIdAndSessionId(@Param("seatId") Long seatId, @Param("sessionId") String sessionId);
     
     List<SeatHold> findByHoldUntilBefore(LocalDateTime timestamp);
     
     @Query("SELECT sh FROM SeatHold sh WHERE sh.seat.id = :seatId AND sh.holdUntil > :now")
     List<SeatHold> findActiveHoldsForSeat(@Param("seatId") Long seatId, @Param("now") LocalDateTime now);
     
+    @Query("SELECT COUNT(sh) > 0 FROM SeatHold sh WHERE sh.seat.id = :seatId AND sh.holdUntil > :now")
+    boolean existsActiveHoldForSeat(@Param("seatId") Long seatId, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT sh FROM SeatHold sh WHERE sh.seat.trip.id = :tripId AND sh.holdUntil > :now")
+    List<SeatHold> findActiveHoldsByTripId(@Param("tripId") Long tripId, @Param("now") LocalDateTime now);
+    
     @Transactional
     @Modifying
     @Query("DELETE FROM SeatHold sh WHERE sh.holdUntil < :now")
-    void deleteExpiredHolds(@Param("now") LocalDateTime now);
+    int deleteExpiredHolds(@Param("now") LocalDateTime now);
+    
+    // Clears lapsed holds on the given seats so the unique seat_id key lets them be held again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SeatHold sh WHERE sh.seat.id IN :seatIds AND sh.holdUntil <= :now")
+    int deleteExpiredHoldsForSeats(@Param("seatIds") List<Long> seatIds, @Param("now") LocalDateTime now);
     
     @Transactional
     @Modifying
-    void deleteBySessionId(String sessionId);
+    @Query("DELETE FROM SeatHold sh WHERE sh.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") String sessionId);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.bus.reservation.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SeatHoldRepositoryCustom {
+
+    // Writes all hold rows of a session with one multi-row INSERT
+    int insertHolds(List<Long> seatIds, String sessionId, Long userId, LocalDateTime holdUntil, long legMask);
+}
@@ -0,0 +1,41 @@
+package com.bus.reservation.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SeatHoldRepositoryImpl implements SeatHoldRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertHolds(List<Long> seatIds, String sessionId, Long userId, LocalDateTime holdUntil, long legMask) {
+        if (seatIds.isEmpty()) {
+            return 0;
+        }
+
+        String values = String.join(", ", Collections.nCopies(seatIds.size(), "(?, ?, ?, ?, ?, ?)"));
+        Timestamp until = Timestamp.valueOf(holdUntil);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object> args = new ArrayList<>(seatIds.size() * 6);
+        for (Long seatId : seatIds) {
+            args.add(seatId);
+            args.add(sessionId);
+            args.add(userId);
+            args.add(until);
+            args.add(now);
+            args.add(legMask);
+        }
+
+        return jdbcTemplate.update(
+                "INSERT INTO seat_holds (seat_id, session_id, user_id, hold_until, created_at, leg_mask) VALUES " + values,
+                args.toArray());
+    }
+}
@@ -3,22 +3,31 @@ package com.bus.reservation.repository;
 import com.bus.reservation.model.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface SeatRepository extends JpaRepository<Seat, Long> {
+public interface SeatRepository extends JpaRepository<Seat, Long>, SeatRepositoryCustom {
     
-    List<Seat> findByTripId(Long tripId);
+    // By the trip_id column: the derived queries join trips and scan every seat
+    @Query("SELECT s FROM Seat s WHERE s.trip.id = :tripId")
+    List<Seat> findByTripId(@Param("tripId") Long tripId);
     
     //concurrency control
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT s FROM Seat s WHERE s.id = :id")
-
-    Optional<Seat> findByIdWithLock(Long id);
+    Optional<Seat> findByIdWithLock(@Param("id") Long id);
+    
+    // Row locks are taken in ascending id order so concurrent group bookings cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Seat s WHERE s.id IN :ids ORDER BY s.id")
+    List<Seat> findAllByIdWithLock(@Param("ids") List<Long> ids);
     
 
     @Query("SELECT s FROM Seat s WHERE s.trip.id = :tripId AND s.isBooked = false")
@@ -27,5 +36,22 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     @Query("SELECT s FROM Seat s WHERE s.trip.id = :tripId AND s.isBooked = true")
     List<Seat> findBookedSeatsByTripId(@Param("tripId") Long tripId);
     
-    long countByTripIdAndIsBooked(Long tripId, boolean isBooked);
+    @Query("SELECT COUNT(s) FROM Seat s WHERE s.trip.id = :tripId AND s.isBooked = :isBooked")
+    long countByTripIdAndIsBooked(@Param("tripId") Long tripId, @Param("isBooked") boolean isBooked);
+    
+    // [tripId, total, available] per trip in one pass; available means unsold on every leg and not held
+    @Query("SELECT s.trip.id, COUNT(s), SUM(CASE WHEN s.isBooked = false AND NOT EXISTS "
+            + "(SELECT h.id FROM SeatHold h WHERE h.seat = s AND h.holdUntil > :now) THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN s.isBooked = true THEN 1 ELSE 0 END) "
+            + "FROM Seat s WHERE s.trip.id IN :tripIds GROUP BY s.trip.id")
+    List<Object[]> countSeatsByTrip(@Param("tripIds") Collection<Long> tripIds, @Param("now") LocalDateTime now);
+    
+    // Books all seats in one statement; the row count tells whether every seat was still free
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.isBooked = true, s.bookedLegs = :allLegs, s.version = s.version + 1 WHERE s.id IN :ids AND s.isBooked = false")
+    int markBookedIfFree(@Param("ids") List<Long> ids, @Param("allLegs") long allLegs);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Seat s SET s.isBooked = false, s.bookedLegs = 0, s.version = s.version + 1 WHERE s.id IN :ids")
+    int markFree(@Param("ids") List<Long> ids);
 }
\ No newline at end of file
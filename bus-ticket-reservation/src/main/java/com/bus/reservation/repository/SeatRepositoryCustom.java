@@ -0,0 +1,9 @@
+package com.bus.reservation.repository;
+
+import java.util.List;
+
+public interface SeatRepositoryCustom {
+
+    // Generates the standard seat layout for every trip with multi-row INSERTs
+    int insertSeats(List<Long> tripIds, int seatsPerTrip);
+}
@@ -0,0 +1,43 @@
+package com.bus.reservation.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SeatRepositoryImpl implements SeatRepositoryCustom {
+
+    // Keeps each statement well under the drivers' bind-parameter limits
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertSeats(List<Long> tripIds, int seatsPerTrip) {
+        List<Object[]> rows = new ArrayList<>(tripIds.size() * seatsPerTrip);
+        for (Long tripId : tripIds) {
+            for (int i = 1; i <= seatsPerTrip; i++) {
+                rows.add(new Object[]{tripId, "S" + i, (i % 4 == 1 || i % 4 == 0) ? "Window" : "Aisle"});
+            }
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            String values = String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, false, 0, 0)"));
+
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (Object[] row : chunk) {
+                Collections.addAll(args, row);
+            }
+
+            inserted += jdbcTemplate.update(
+                    "INSERT INTO seats (trip_id, seat_number, seat_type, is_booked, booked_legs, version) VALUES " + values,
+                    args.toArray());
+        }
+        return inserted;
+    }
+}
@@ -2,6 +2,7 @@ package com.bus.reservation.repository;
 
 import com.bus.reservation.model.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -9,17 +10,38 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface TripRepository extends JpaRepository<Trip, Long> {
+public interface TripRepository extends JpaRepository<Trip, Long>, JpaSpecificationExecutor<Trip>, TripRepositoryCustom {
     
 	Optional<Trip> findById(Long id);
 	
-    @Query("SELECT t FROM Trip t WHERE t.route.source = :source AND t.route.destination = :destination AND t.departureTime BETWEEN :start AND :end")
-    List<Trip> findByRouteSourceAndRouteDestinationAndDepartureTimeBetween(
-            @Param("source") String source,
-            @Param("destination") String destination,
+    // Trips between two dictionary cities, by city id, with the bus and route search results show
+    @Query("SELECT t FROM Trip t JOIN FETCH t.bus JOIN FETCH t.route r "
+            + "WHERE r.sourceCity.id = :sourceCityId AND r.destinationCity.id = :destinationCityId "
+            + "AND t.departureTime BETWEEN :start AND :end ORDER BY t.departureTime, t.id")
+    List<Trip> findByCitiesAndDepartureTimeBetween(
+            @Param("sourceCityId") Long sourceCityId,
+            @Param("destinationCityId") Long destinationCityId,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
     
-    List<Trip> findByBusId(Long busId);
-    List<Trip> findByRouteId(Long routeId);
+    @Query("SELECT t.departureTime FROM Trip t WHERE t.bus.id = :busId AND t.route.id = :routeId AND t.departureTime BETWEEN :start AND :end")
+    List<LocalDateTime> findDepartureTimes(
+            @Param("busId") Long busId,
+            @Param("routeId") Long routeId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+    
+    // Trips for the search index, with the bus and route it returns
+    @Query("SELECT t FROM Trip t JOIN FETCH t.bus JOIN FETCH t.route WHERE t.departureTime >= :from")
+    List<Trip> findUpcomingWithBusAndRoute(@Param("from") LocalDateTime from);
+    
+    @Query("SELECT t FROM Trip t JOIN FETCH t.bus JOIN FETCH t.route WHERE t.id IN :ids")
+    List<Trip> findAllByIdWithBusAndRoute(@Param("ids") List<Long> ids);
+    
+    // Foreign keys compared directly, so each is an index lookup on trips
+    @Query("SELECT t FROM Trip t WHERE t.bus.id = :busId")
+    List<Trip> findByBusId(@Param("busId") Long busId);
+
+    @Query("SELECT t FROM Trip t WHERE t.route.id = :routeId")
+    List<Trip> findByRouteId(@Param("routeId") Long routeId);
 }
\ No newline at end of file
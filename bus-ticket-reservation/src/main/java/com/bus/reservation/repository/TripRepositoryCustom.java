@@ -0,0 +1,12 @@
+package com.bus.reservation.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface TripRepositoryCustom {
+
+    // Writes the trips with one multi-row INSERT and returns their ids by departure time
+    Map<LocalDateTime, Long> insertTrips(Long busId, Long routeId, Double fare,
+                                         List<LocalDateTime> departures, long durationMinutes);
+}
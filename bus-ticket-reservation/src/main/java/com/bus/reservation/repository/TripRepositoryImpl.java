@@ -0,0 +1,54 @@
+package com.bus.reservation.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class TripRepositoryImpl implements TripRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<LocalDateTime, Long> insertTrips(Long busId, Long routeId, Double fare,
+                                                List<LocalDateTime> departures, long durationMinutes) {
+        if (departures.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Object> args = new ArrayList<>(departures.size() * 5);
+        for (LocalDateTime departure : departures) {
+            args.add(busId);
+            args.add(routeId);
+            args.add(Timestamp.valueOf(departure));
+            args.add(Timestamp.valueOf(departure.plusMinutes(durationMinutes)));
+            args.add(fare);
+        }
+        jdbcTemplate.update(
+                "INSERT INTO trips (bus_id, route_id, departure_time, arrival_time, fare, version) VALUES "
+                        + String.join(", ", Collections.nCopies(departures.size(), "(?, ?, ?, ?, ?, 0)")),
+                args.toArray());
+
+        // Generated keys of multi-row inserts are driver specific; read them back by the unique key instead
+        List<Object> keys = new ArrayList<>(departures.size() + 2);
+        keys.add(busId);
+        keys.add(routeId);
+        departures.forEach(departure -> keys.add(Timestamp.valueOf(departure)));
+        Map<LocalDateTime, Long> ids = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, departure_time FROM trips WHERE bus_id = ? AND route_id = ? AND departure_time IN ("
+                        + String.join(", ", Collections.nCopies(departures.size(), "?")) + ")",
+                rs -> {
+                    ids.put(rs.getTimestamp("departure_time").toLocalDateTime(), rs.getLong("id"));
+                },
+                keys.toArray());
+        return ids;
+    }
+}
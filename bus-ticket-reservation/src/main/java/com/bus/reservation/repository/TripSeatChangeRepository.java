@@ -0,0 +1,25 @@
+package com.bus.reservation.repository;
+
+import com.bus.reservation.model.TripSeatChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TripSeatChangeRepository extends JpaRepository<TripSeatChange, Long> {
+
+    long countByTripIdAndNodeIdNot(Long tripId, String nodeId);
+
+    // Changes made by other nodes, as [tripId, count] rows; trips without any are left out
+    @Query("SELECT c.tripId, COUNT(c) FROM TripSeatChange c WHERE c.tripId IN :tripIds AND c.nodeId <> :nodeId GROUP BY c.tripId")
+    List<Object[]> countByOtherNodes(@Param("tripIds") Collection<Long> tripIds, @Param("nodeId") String nodeId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TripSeatChange c WHERE c.tripId IN :tripIds")
+    int deleteByTripIds(@Param("tripIds") Collection<Long> tripIds);
+}
@@ -0,0 +1,26 @@
+package com.bus.reservation.repository;
+
+import com.bus.reservation.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Foreign keys compared directly: derived, these join the parent table and walk the
+    // whole waitlist by id instead of using the (trip_id, status) index
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.trip.id = :tripId AND w.status = :status ORDER BY w.id")
+    List<WaitlistEntry> findByTripIdAndStatusOrderById(@Param("tripId") Long tripId, @Param("status") String status);
+
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.user.id = :userId ORDER BY w.id DESC")
+    List<WaitlistEntry> findByUserIdOrderByIdDesc(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(w) > 0 FROM WaitlistEntry w WHERE w.trip.id = :tripId AND w.user.id = :userId AND w.status = :status")
+    boolean existsByTripIdAndUserIdAndStatus(@Param("tripId") Long tripId, @Param("userId") Long userId, @Param("status") String status);
+
+    // Position in the queue: waiting entries ahead of this one
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.trip.id = :tripId AND w.status = :status AND w.id < :id")
+    long countByTripIdAndStatusAndIdLessThan(@Param("tripId") Long tripId, @Param("status") String status, @Param("id") Long id);
+}
@@ -1,15 +1,36 @@
 package com.bus.reservation.service;
 
+import com.bus.reservation.dto.AutoHoldResult;
+import com.bus.reservation.dto.CursorPage;
 import com.bus.reservation.model.*;
 import com.bus.reservation.repository.*;
+import com.bus.reservation.exception.BookingConflictException;
+import com.bus.reservation.service.booking.BookingExecutor;
+import com.bus.reservation.service.booking.TripLockStripes;
+import com.bus.reservation.service.hold.SeatHoldStore;
+import com.bus.reservation.service.inventory.SeatAllocator;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.TripLegs;
+import com.bus.reservation.service.inventory.TripSeatInventory;
+import com.bus.reservation.service.paging.Filters;
+import com.bus.reservation.service.paging.Keyset;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.hibernate.Session;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -25,47 +46,92 @@ public class BookingService {
     private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
     private final SeatHoldRepository seatHoldRepository;
+    private final SeatHoldStore seatHoldStore;
+    private final SeatInventoryService seatInventoryService;
+    private final EntityManager entityManager;
+    private final TripLockStripes tripLocks;
+    private final BookingExecutor bookingExecutor;
 
     private static final int SEAT_HOLD_DURATION_MINUTES = 10;
 
+    /**
+     * Hold seats for ten minutes, all or nothing, in the configured SeatHoldStore.
+     */
     @Transactional
     public String holdSeats(Long tripId, List<Long> seatIds, Long userId) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return holdSeats(tripId, seatIds, null, null, userId);
+    }
 
+    /**
+     * Hold seats for a journey between two stops of the trip's route; null
+     * stops default to the route's source and destination.
+     */
+    @Transactional
+    public String holdSeats(Long tripId, List<Long> seatIds, String fromStop, String toStop, Long userId) {
+        checkTripAndUser(tripId, userId);
+        return hold(tripId, seatIds, fromStop, toStop, userId, LocalDateTime.now().plusMinutes(SEAT_HOLD_DURATION_MINUTES));
+    }
+
+    private String hold(Long tripId, List<Long> seatIds, String fromStop, String toStop, Long userId,
+                        LocalDateTime holdUntil) {
+        long legMask = seatInventoryService.legMask(tripId, fromStop, toStop);
         String sessionId = UUID.randomUUID().toString();
-        LocalDateTime holdUntil = LocalDateTime.now().plusMinutes(SEAT_HOLD_DURATION_MINUTES);
 
-        for (Long seatId : seatIds) {
-            Seat seat = seatRepository.findById(seatId)
-                    .orElseThrow(() -> new RuntimeException("Seat not found: " + seatId));
+        seatHoldStore.hold(tripId, seatIds, sessionId, userId, holdUntil, legMask);
 
-            if (seat.isBooked()) {
-                throw new RuntimeException("Seat already booked: " + seat.getSeatNumber());
-            }
+        return sessionId;
+    }
 
-            List<SeatHold> activeHolds = seatHoldRepository.findActiveHoldsForSeat(seatId, LocalDateTime.now());
-            if (!activeHolds.isEmpty()) {
-                throw new RuntimeException("Seat is currently held: " + seat.getSeatNumber());
-            }
+    private void checkTripAndUser(Long tripId, Long userId) {
+        if (tripId == null || !tripRepository.existsById(tripId)) {
+            throw new RuntimeException("Trip not found");
+        }
+        if (userId == null || !userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+    }
 
-            SeatHold seatHold = SeatHold.builder()
-                    .seat(seat)
-                    .sessionId(sessionId)
-                    .holdUntil(holdUntil)
-                    .build();
+    /**
+     * Choose the best free seats for a party from the in-memory inventory and
+     * hold them. Throws BookingConflictException when another session takes one
+     * of the chosen seats first, in which case allocating again will pick others.
+     */
+    @Transactional
+    public AutoHoldResult autoHoldSeats(Long tripId, int partySize, boolean together, boolean window,
+                                        String fromStop, String toStop, Long userId) {
+        checkTripAndUser(tripId, userId);
+        TripSeatInventory inventory = seatInventoryService.getInventory(tripId);
+        List<Long> seatIds = SeatAllocator.allocate(inventory, partySize, together, window,
+                inventory.legMask(fromStop, toStop));
+        if (seatIds.isEmpty()) {
+            throw new RuntimeException("Not enough free seats for a party of " + partySize);
+        }
 
-            seatHoldRepository.save(seatHold);
+        LocalDateTime holdUntil = LocalDateTime.now().plusMinutes(SEAT_HOLD_DURATION_MINUTES);
+        String sessionId;
+        try {
+            sessionId = hold(tripId, seatIds, fromStop, toStop, userId, holdUntil);
+        } catch (RuntimeException e) {
+            throw new BookingConflictException("Chosen seats were just taken: " + e.getMessage());
         }
 
-        return sessionId;
+        return AutoHoldResult.builder()
+                .sessionId(sessionId)
+                .seatIds(seatIds)
+                .seatNumbers(seatIds.stream().map(inventory::getSeatNumber).toList())
+                .holdUntil(holdUntil)
+                .build();
     }
 
+    /**
+     * Book the seats held by the session. A hold for the whole route books
+     * with one conditional update; a hold for part of it adds its legs to each
+     * seat, failing if another booking already has one of them. The fare is
+     * charged in proportion to the legs travelled.
+     */
     @Transactional
     public Booking confirmBooking(String sessionId, Long userId, String paymentMethod) {
-        List<SeatHold> seatHolds = seatHoldRepository.findBySessionId(sessionId);
+        List<SeatHold> seatHolds = seatHoldRepository.findBySessionIdWithSeats(sessionId);
         
         if (seatHolds.isEmpty()) {
             throw new RuntimeException("No seats held for session: " + sessionId);
@@ -75,29 +141,46 @@ public class BookingService {
             if (hold.getHoldUntil().isBefore(LocalDateTime.now())) {
                 throw new RuntimeException("Seat hold expired for seat: " + hold.getSeat().getSeatNumber());
             }
+            if (hold.getUserId() != null && !hold.getUserId().equals(userId)) {
+                throw new RuntimeException("Seats are held for another user");
+            }
         }
 
         Trip trip = seatHolds.get(0).getSeat().getTrip();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        double totalAmount = seatHolds.size() * trip.getFare();
+        TripSeatInventory inventory = seatInventoryService.getInventory(trip.getId());
+        long allLegs = inventory.getAllLegs();
+        long legMask = inventory.orAllLegs(seatHolds.get(0).getLegMask());
 
-        for (SeatHold hold : seatHolds) {
-            Seat seat = hold.getSeat();
-            seat.setBooked(true);
-            seatRepository.save(seat);
-        }
+        double totalAmount = seatHolds.size() * trip.getFare() * Long.bitCount(legMask) / Long.bitCount(allLegs);
 
         List<Seat> seats = seatHolds.stream()
                 .map(SeatHold::getSeat)
                 .toList();
+        List<Long> seatIds = seats.stream().map(Seat::getId).toList();
+
+        if (bookingExecutor.isOptimistic()) {
+            setLegsVersioned(seats, legMask, allLegs, true);
+        } else if (legMask == allLegs) {
+            lockSeats(trip.getId(), seatIds);
+            int booked = seatRepository.markBookedIfFree(seatIds, allLegs);
+            if (booked != seatIds.size()) {
+                throw new BookingConflictException("One or more held seats have already been booked");
+            }
+            syncBookedFlag(seats, true, allLegs);
+        } else {
+            lockAndRefreshSeats(trip.getId(), seats);
+            setLegs(seats, legMask, allLegs, true);
+        }
 
         Booking booking = Booking.builder()
                 .user(user)
                 .trip(trip)
                 .seats(seats)
                 .totalAmount(totalAmount)
+                .legMask(legMask == allLegs ? 0 : legMask)
                 .status("CONFIRMED")
                 .build();
 
@@ -112,30 +195,35 @@ public class BookingService {
 
         paymentRepository.save(payment);
         seatHoldRepository.deleteBySessionId(sessionId);
+        seatInventoryService.markBooked(trip.getId(), seatIds, legMask, sessionId);
 
         return savedBooking;
     }
 
     @Transactional
     public void releaseSeatHold(String sessionId) {
-        seatHoldRepository.deleteBySessionId(sessionId);
+        seatHoldStore.release(sessionId);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isSeatHeld(Long tripId, Long seatId) {
+        return seatHoldStore.isHeld(tripId, seatId);
     }
 
-    @Scheduled(fixedRate = 60000)
     @Transactional
-    public void cleanupExpiredHolds() {
-        LocalDateTime now = LocalDateTime.now();
-        List<SeatHold> expiredHolds = seatHoldRepository.findByHoldUntilBefore(now);
-        
-        if (!expiredHolds.isEmpty()) {
-            seatHoldRepository.deleteAll(expiredHolds);
-            log.info("Cleaned up {} expired seat holds", expiredHolds.size());
-        }
+    public int expireSeatHolds() {
+        return seatHoldStore.expire(LocalDateTime.now());
     }
 
     @Transactional(readOnly = true)
     public List<Seat> getAvailableSeats(Long tripId) {
-        return seatRepository.findAvailableSeatsByTripId(tripId);
+        return seatInventoryService.getAvailableSeats(tripId);
+    }
+
+    // Seats free on every leg between the two stops
+    @Transactional(readOnly = true)
+    public List<Seat> getAvailableSeats(Long tripId, String fromStop, String toStop) {
+        return seatInventoryService.getAvailableSeats(tripId, seatInventoryService.legMask(tripId, fromStop, toStop));
     }
 
     @Transactional(readOnly = true)
@@ -149,6 +237,23 @@ public class BookingService {
         return bookingRepository.findByUserId(userId);
     }
 
+    // One page of the user's bookings, newest first, optionally with one status
+    @Transactional(readOnly = true)
+    public CursorPage<Booking> getUserBookings(Long userId, String status, String cursor, Integer size) {
+        int pageSize = Keyset.pageSize(size);
+        Specification<Booking> filter = (root, query, cb) -> {
+            List<Predicate> where = new ArrayList<>();
+            where.add(cb.equal(root.get("user").get("id"), userId));
+            Filters.equalIgnoringCase(where, cb, root.get("status"), status);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+        Window<Booking> window = bookingRepository.findBy(filter, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "id"))
+                .limit(pageSize)
+                .scroll(Keyset.position(cursor, Map.of("id", Long::valueOf))));
+        return Keyset.page(window, pageSize);
+    }
+
     @Transactional
     public void cancelBooking(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findById(bookingId)
@@ -171,13 +276,25 @@ public class BookingService {
             throw new RuntimeException("Cannot cancel booking within 2 hours of departure");
         }
         
-        for (Seat seat : booking.getSeats()) {
-            seat.setBooked(false);
-            seatRepository.save(seat);
+        TripSeatInventory inventory = seatInventoryService.getInventory(booking.getTrip().getId());
+        long allLegs = inventory.getAllLegs();
+        long legMask = inventory.orAllLegs(booking.getLegMask());
+
+        List<Long> seatIds = booking.getSeats().stream().map(Seat::getId).toList();
+        if (bookingExecutor.isOptimistic()) {
+            setLegsVersioned(booking.getSeats(), legMask, allLegs, false);
+        } else if (legMask == allLegs) {
+            lockSeats(booking.getTrip().getId(), seatIds);
+            seatRepository.markFree(seatIds);
+            syncBookedFlag(booking.getSeats(), false, allLegs);
+        } else {
+            lockAndRefreshSeats(booking.getTrip().getId(), booking.getSeats());
+            setLegs(booking.getSeats(), legMask, allLegs, false);
         }
         
         booking.setStatus("CANCELLED");
         bookingRepository.save(booking);
+        seatInventoryService.markCancelled(booking.getTrip().getId(), seatIds, legMask);
         
         Payment payment = paymentRepository.findByBookingId(bookingId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
@@ -185,6 +302,52 @@ public class BookingService {
         paymentRepository.save(payment);
     }
 
+    // Serialise on the trip inside this JVM, then lock the seat rows in ascending id order
+    private void lockSeats(Long tripId, List<Long> seatIds) {
+        tripLocks.lockUntilCompletion(tripId);
+        seatRepository.findAllByIdWithLock(seatIds);
+    }
+
+    // Part of the route: the seat rows have to be read back under the lock, since
+    // another segment may have been sold since they were loaded with the holds
+    private void lockAndRefreshSeats(Long tripId, List<Seat> seats) {
+        tripLocks.lockUntilCompletion(tripId);
+        seats.stream()
+                .sorted(Comparator.comparing(Seat::getId))
+                .forEach(seat -> entityManager.refresh(seat, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    // Optimistic mode: versioned per-seat updates, a concurrent change fails the flush
+    // and BookingExecutor retries the whole operation in a new transaction
+    private void setLegsVersioned(List<Seat> seats, long legMask, long allLegs, boolean booked) {
+        setLegs(seats, legMask, allLegs, booked);
+        seatRepository.saveAllAndFlush(seats);
+    }
+
+    // Add or remove the legs on each seat; adding fails if any of them is already sold
+    private void setLegs(List<Seat> seats, long legMask, long allLegs, boolean booked) {
+        for (Seat seat : seats) {
+            long legs = TripLegs.bookedLegs(seat, allLegs);
+            if (booked && (legs & legMask) != 0) {
+                throw new BookingConflictException("Seat already booked: " + seat.getSeatNumber());
+            }
+            legs = booked ? legs | legMask : legs & ~legMask;
+            seat.setBookedLegs(legs);
+            seat.setBooked(legs != 0);
+        }
+    }
+
+    // The flag was already written by a bulk update; mark the loaded seats read-only
+    // so setting it here does not make Hibernate flush one UPDATE per seat
+    private void syncBookedFlag(List<Seat> seats, boolean booked, long allLegs) {
+        Session session = entityManager.unwrap(Session.class);
+        for (Seat seat : seats) {
+            session.setReadOnly(seat, true);
+            seat.setBooked(booked);
+            seat.setBookedLegs(booked ? allLegs : 0);
+        }
+    }
+
     // ADD THIS MISSING METHOD - SIMPLIFIED VERSION
     @Transactional(readOnly = true)
     public Booking getBookingById(Long bookingId) {
@@ -1,57 +1,69 @@
 package com.bus.reservation.service;
 
+import com.bus.reservation.dto.CursorPage;
+import com.bus.reservation.dto.TripSearchResult;
 import com.bus.reservation.model.Bus;
-import com.bus.reservation.model.Trip;
 import com.bus.reservation.repository.BusRepository;
-import com.bus.reservation.repository.TripRepository;
+import com.bus.reservation.service.paging.Filters;
+import com.bus.reservation.service.paging.Keyset;
+import com.bus.reservation.service.search.SearchResultCache;
+import com.bus.reservation.service.search.TripSearchIndex;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class BusService {
 
     private final BusRepository busRepository;
-    private final TripRepository tripRepository;
+    private final TripSearchIndex tripSearchIndex;
+    private final SearchResultCache searchResultCache;
 
     public Bus addBus(Bus bus) {
         return busRepository.save(bus);
     }
 
-    public List<Bus> getAllBuses() {
-        try {
-            return busRepository.findAll();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch buses: " + e.getMessage());
-        }
+    // One page of buses in id order, optionally of one type or operator
+    public CursorPage<Bus> listBuses(String busType, String operatorName, String cursor, Integer size) {
+        int pageSize = Keyset.pageSize(size);
+        Specification<Bus> filter = (root, query, cb) -> {
+            List<Predicate> where = new ArrayList<>();
+            Filters.equalIgnoringCase(where, cb, root.get("busType"), busType);
+            Filters.equalIgnoringCase(where, cb, root.get("operatorName"), operatorName);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+        Window<Bus> window = busRepository.findBy(filter, query -> query
+                .sortBy(Sort.by("id"))
+                .limit(pageSize)
+                .scroll(Keyset.position(cursor, Map.of("id", Long::valueOf))));
+        return Keyset.page(window, pageSize);
     }
 
     // Fixed search method - should search trips, not buses directly
-    public List<Trip> searchBuses(String source, String destination) {
+    public List<TripSearchResult> searchBuses(String source, String destination) {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime tomorrow = now.plusDays(1);
         
-        return tripRepository.findByRouteSourceAndRouteDestinationAndDepartureTimeBetween(
+        // A moving window, so built fresh rather than cached
+        return searchResultCache.toResults(tripSearchIndex.search(
                 source,
                 destination,
                 now,
                 tomorrow
-        );
+        ));
     }
 
     // Add more specific search methods
-    public List<Trip> searchBusesWithDate(String source, String destination, LocalDateTime date) {
-        LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = date.toLocalDate().atTime(23, 59, 59);
-        
-        return tripRepository.findByRouteSourceAndRouteDestinationAndDepartureTimeBetween(
-                source,
-                destination,
-                startOfDay,
-                endOfDay
-        );
+    public List<TripSearchResult> searchBusesWithDate(String source, String destination, LocalDateTime date) {
+        return searchResultCache.search(source, destination, date.toLocalDate());
     }
 }
\ No newline at end of file
@@ -1,17 +1,29 @@
 package com.bus.reservation.service;
 
+import com.bus.reservation.dto.CursorPage;
 import com.bus.reservation.dto.PaymentRequest;
 import com.bus.reservation.dto.PaymentResult;
 import com.bus.reservation.model.Booking;
 import com.bus.reservation.model.Payment;
 import com.bus.reservation.repository.BookingRepository;
 import com.bus.reservation.repository.PaymentRepository;
+import com.bus.reservation.service.paging.Filters;
+import com.bus.reservation.service.paging.Keyset;
 import com.bus.reservation.service.payment.PaymentGateway;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,6 +33,28 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final PaymentGateway paymentGateway;
 
+    /**
+     * One page of payments, newest first, optionally by status, method or
+     * payment date range.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Payment> listPayments(String status, String paymentMethod, LocalDateTime from, LocalDateTime to,
+                                            String cursor, Integer size) {
+        int pageSize = Keyset.pageSize(size);
+        Specification<Payment> filter = (root, query, cb) -> {
+            List<Predicate> where = new ArrayList<>();
+            Filters.equalIgnoringCase(where, cb, root.get("status"), status);
+            Filters.equalIgnoringCase(where, cb, root.get("paymentMethod"), paymentMethod);
+            Filters.between(where, cb, root.get("paymentDate"), from, to);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+        Window<Payment> window = paymentRepository.findBy(filter, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "id"))
+                .limit(pageSize)
+                .scroll(Keyset.position(cursor, Map.of("id", Long::valueOf))));
+        return Keyset.page(window, pageSize);
+    }
+
     @Transactional
     public Payment processPayment(PaymentRequest request) {
         Booking booking = bookingRepository.findById(request.getBookingId())
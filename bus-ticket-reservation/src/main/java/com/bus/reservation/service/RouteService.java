@@ -1,23 +1,136 @@
 package com.bus.reservation.service;
 
+import com.bus.reservation.dto.CityEntry;
+import com.bus.reservation.dto.CursorPage;
 import com.bus.reservation.model.Route;
+import com.bus.reservation.model.RouteStop;
 import com.bus.reservation.repository.RouteRepository;
+import com.bus.reservation.repository.RouteStopRepository;
+import com.bus.reservation.repository.TripRepository;
+import com.bus.reservation.service.inventory.TripLegs;
+import com.bus.reservation.service.paging.Filters;
+import com.bus.reservation.service.paging.Keyset;
+import com.bus.reservation.service.search.CityDictionary;
+import com.bus.reservation.service.search.CitySuggester;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class RouteService {
 
     private final RouteRepository routeRepository;
+    private final RouteStopRepository routeStopRepository;
+    private final TripRepository tripRepository;
+    private final CitySuggester citySuggester;
+    private final CityDictionary cityDictionary;
 
+    @Transactional
     public Route addRoute(Route route) {
-        return routeRepository.save(route);
+        cityDictionary.link(route);
+        Route saved = routeRepository.save(route);
+        citySuggester.refresh();
+        return saved;
     }
 
-    public List<Route> getAllRoutes() {
-        return routeRepository.findAll();
+    /**
+     * City names starting with the typed text, most booked first.
+     */
+    public List<String> suggestCities(String query, int limit) {
+        return citySuggester.suggest(query, Math.min(limit, CitySuggester.MAX_SUGGESTIONS));
+    }
+
+    public List<CityEntry> getCities() {
+        return cityDictionary.getCities();
+    }
+
+    public CityEntry addCityAlias(Long cityId, String alias) {
+        CityEntry city = cityDictionary.addAlias(cityId, alias);
+        citySuggester.refresh();
+        return city;
+    }
+
+    // One page of routes in id order, optionally from or to one city
+    public CursorPage<Route> listRoutes(String source, String destination, String cursor, Integer size) {
+        int pageSize = Keyset.pageSize(size);
+        if (cityDictionary.isUnknown(source) || cityDictionary.isUnknown(destination)) {
+            return Keyset.empty(pageSize);
+        }
+        Long sourceId = cityDictionary.resolve(source);
+        Long destinationId = cityDictionary.resolve(destination);
+        Specification<Route> filter = (root, query, cb) -> {
+            List<Predicate> where = new ArrayList<>();
+            Filters.equal(where, cb, root.get("sourceCity").get("id"), sourceId);
+            Filters.equal(where, cb, root.get("destinationCity").get("id"), destinationId);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+        Window<Route> window = routeRepository.findBy(filter, query -> query
+                .sortBy(Sort.by("id"))
+                .limit(pageSize)
+                .scroll(Keyset.position(cursor, Map.of("id", Long::valueOf))));
+        return Keyset.page(window, pageSize);
+    }
+
+    /**
+     * All stops of the route in travel order, source and destination included.
+     */
+    @Transactional(readOnly = true)
+    public List<String> getStops(Long routeId) {
+        Route route = routeRepository.findById(routeId)
+                .orElseThrow(() -> new RuntimeException("Route not found"));
+        List<String> stops = new ArrayList<>();
+        stops.add(route.getSource());
+        routeStopRepository.findByRouteIdOrderByStopOrder(routeId).forEach(stop -> stops.add(stop.getCity()));
+        stops.add(route.getDestination());
+        return stops;
+    }
+
+    /**
+     * Replace the intermediate stops of a route. Seats are sold per leg, so
+     * the stops cannot change once trips are scheduled on the route.
+     */
+    @Transactional
+    public List<String> setStops(Long routeId, List<String> cities) {
+        Route route = routeRepository.findById(routeId)
+                .orElseThrow(() -> new RuntimeException("Route not found"));
+        if (!tripRepository.findByRouteId(routeId).isEmpty()) {
+            throw new RuntimeException("Stops cannot change once trips are scheduled on the route");
+        }
+        if (cities.size() + 1 > TripLegs.MAX_LEGS) {
+            throw new RuntimeException("Routes can have at most " + TripLegs.MAX_LEGS + " legs");
+        }
+
+        Set<String> seen = new HashSet<>();
+        seen.add(route.getSource().toLowerCase());
+        seen.add(route.getDestination().toLowerCase());
+        for (String city : cities) {
+            if (city == null || city.isBlank()) {
+                throw new RuntimeException("Stop name is required");
+            }
+            if (!seen.add(city.trim().toLowerCase())) {
+                throw new RuntimeException("Stop appears twice on the route: " + city);
+            }
+        }
+
+        routeStopRepository.deleteByRouteId(routeId);
+        routeStopRepository.flush();
+        List<RouteStop> stops = new ArrayList<>(cities.size());
+        for (int i = 0; i < cities.size(); i++) {
+            stops.add(RouteStop.builder().route(route).stopOrder(i + 1).city(cities.get(i).trim()).build());
+        }
+        routeStopRepository.saveAll(stops);
+        citySuggester.refresh();
+        return getStops(routeId);
     }
 }
@@ -1,9 +1,11 @@
 package com.bus.reservation.service;
 
 import com.bus.reservation.model.Booking;
-import com.bus.reservation.model.SeatHold;
+import com.bus.reservation.model.Seat;
 import com.bus.reservation.repository.BookingRepository;
-import com.bus.reservation.repository.SeatHoldRepository;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.TripLegs;
+import com.bus.reservation.service.inventory.TripSeatInventory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,23 +20,23 @@ import java.util.List;
 @Slf4j
 public class ScheduledTasksService {
 
-    private final SeatHoldRepository seatHoldRepository;
+    private final BookingService bookingService;
     private final BookingRepository bookingRepository;
+    private final SeatInventoryService seatInventoryService;
 
     /**
-     * Clean up expired seat holds every minute
+     * Safety sweep for expired seat holds. Holds are normally released by the
+     * expiry wheel in SeatInventoryService as they expire; this only catches rows
+     * the wheel never saw (trips this node never loaded, holds taken on other
+     * nodes), through the configured SeatHoldStore.
      */
-    @Scheduled(fixedRate = 60000) // 1 minute
+    @Scheduled(fixedRate = 900000) // Every 15 minutes
     @Transactional
     public void cleanupExpiredSeatHolds() {
         try {
-            LocalDateTime now = LocalDateTime.now();
-            List<SeatHold> expiredHolds = seatHoldRepository.findByHoldUntilBefore(now);
-            
-            if (!expiredHolds.isEmpty()) {
-                int count = expiredHolds.size();
-                seatHoldRepository.deleteAll(expiredHolds);
-                log.info("Cleaned up {} expired seat holds", count);
+            int expired = bookingService.expireSeatHolds();
+            if (expired > 0) {
+                log.info("Removed {} expired seat holds", expired);
             }
         } catch (Exception e) {
             log.error("Failed to clean up expired seat holds: {}", e.getMessage());
@@ -57,13 +59,19 @@ public class ScheduledTasksService {
             int cancelledCount = 0;
             for (Booking booking : unpaidBookings) {
                 try {
-                    // Free up the seats
+                    // Free up the legs this booking had on each seat
+                    TripSeatInventory inventory = seatInventoryService.getInventory(booking.getTrip().getId());
+                    long legMask = inventory.orAllLegs(booking.getLegMask());
                     for (var seat : booking.getSeats()) {
-                        seat.setBooked(false);
+                        long legs = TripLegs.bookedLegs(seat, inventory.getAllLegs()) & ~legMask;
+                        seat.setBookedLegs(legs);
+                        seat.setBooked(legs != 0);
                     }
                     
                     booking.setStatus("CANCELLED");
                     bookingRepository.save(booking);
+                    seatInventoryService.markCancelled(booking.getTrip().getId(),
+                            booking.getSeats().stream().map(Seat::getId).toList(), legMask);
                     
                     cancelledCount++;
                     log.info("Auto-cancelled unpaid booking: {}", booking.getId());
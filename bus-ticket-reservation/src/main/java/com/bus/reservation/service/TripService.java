@@ -1,34 +1,95 @@
 package com.bus.reservation.service;
 
+import com.bus.reservation.dto.CursorPage;
+import com.bus.reservation.dto.TripAvailability;
+import com.bus.reservation.dto.TripSearchResult;
 import com.bus.reservation.model.*;
 import com.bus.reservation.repository.*;
+import com.bus.reservation.service.inventory.SeatCounts;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.paging.Filters;
+import com.bus.reservation.service.paging.Keyset;
+import com.bus.reservation.service.search.CityDictionary;
+import com.bus.reservation.service.search.SearchResultCache;
+import com.bus.reservation.service.search.TripSearchIndex;
+import com.bus.reservation.service.search.TripsChangedEvent;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class TripService {
 
+    public static final int MAX_AVAILABILITY_TRIPS = 500;
+
     private final TripRepository tripRepository;
     private final BusRepository busRepository;
     private final RouteRepository routeRepository;
     private final SeatRepository seatRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final TripSearchIndex tripSearchIndex;
+    private final SearchResultCache searchResultCache;
+    private final CityDictionary cityDictionary;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Trip getTripById(Long id) {
         return tripRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Trip not found with id: " + id));
     }
 
+    /**
+     * One page of trips in departure order, optionally narrowed to a city
+     * pair, bus, route or departure range.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Trip> listTrips(String source, String destination, Long busId, Long routeId,
+                                      LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        int pageSize = Keyset.pageSize(size);
+        if (cityDictionary.isUnknown(source) || cityDictionary.isUnknown(destination)) {
+            return Keyset.empty(pageSize);
+        }
+        Long sourceId = cityDictionary.resolve(source);
+        Long destinationId = cityDictionary.resolve(destination);
+        Specification<Trip> filter = (root, query, cb) -> {
+            root.fetch("bus");
+            root.fetch("route");
+            List<Predicate> where = new ArrayList<>();
+            Filters.equal(where, cb, root.get("route").get("sourceCity").get("id"), sourceId);
+            Filters.equal(where, cb, root.get("route").get("destinationCity").get("id"), destinationId);
+            Filters.equal(where, cb, root.get("bus").get("id"), busId);
+            Filters.equal(where, cb, root.get("route").get("id"), routeId);
+            Filters.between(where, cb, root.get("departureTime"), from, to);
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+        Window<Trip> window = tripRepository.findBy(filter, query -> query
+                .sortBy(Sort.by("departureTime", "id"))
+                .limit(pageSize)
+                .scroll(Keyset.position(cursor, Map.of("departureTime", LocalDateTime::parse, "id", Long::valueOf))));
+        return Keyset.page(window, pageSize);
+    }
+
     // Admin: Schedule new trip
+    @Transactional
     public Trip scheduleTrip(Long busId, Long routeId, LocalDateTime departureTime,
                              LocalDateTime arrivalTime, Double fare) {
         Bus bus = busRepository.findById(busId)
                 .orElseThrow(() -> new RuntimeException("Bus not found"));
         Route route = routeRepository.findById(routeId)
                 .orElseThrow(() -> new RuntimeException("Route not found"));
+        cityDictionary.link(route);
 
         Trip trip = Trip.builder()
                 .bus(bus)
@@ -40,33 +101,108 @@ public class TripService {
 
         Trip savedTrip = tripRepository.save(trip);
 
-        // Auto-generate seats for this trip
-        for (int i = 1; i <= bus.getTotalSeats(); i++) {
-            Seat seat = Seat.builder()
-                    .trip(savedTrip)
-                    .seatNumber("S" + i)
-                    .seatType((i % 4 == 1 || i % 4 == 0) ? "Window" : "Aisle")
-                    .isBooked(false)
-                    .build();
-            seatRepository.save(seat);
+        // Auto-generate seats for this trip in one statement
+        seatRepository.insertSeats(List.of(savedTrip.getId()), bus.getTotalSeats());
+        tripSearchIndex.put(savedTrip);
+        publishChanged(savedTrip);
+
+        return savedTrip;
+    }
+
+    // Admin: change a trip's bus, route, times or fare; bus and route are taken by id.
+    // The trip's seats were made for its bus, so a new bus must have as many.
+    @Transactional
+    public Trip updateTrip(Long id, Trip tripDetails) {
+        Trip trip = getTripById(id);
+
+        if (tripDetails.getBus() != null) {
+            Bus bus = busRepository.findById(tripDetails.getBus().getId())
+                    .orElseThrow(() -> new RuntimeException("Bus not found"));
+            if (!Objects.equals(bus.getTotalSeats(), trip.getBus().getTotalSeats())) {
+                throw new RuntimeException("Trip already has " + trip.getBus().getTotalSeats()
+                        + " seats; it cannot move to a bus with " + bus.getTotalSeats());
+            }
+            trip.setBus(bus);
         }
+        if (tripDetails.getRoute() != null) {
+            Route route = routeRepository.findById(tripDetails.getRoute().getId())
+                    .orElseThrow(() -> new RuntimeException("Route not found"));
+            cityDictionary.link(route);
+            trip.setRoute(route);
+        }
+        trip.setDepartureTime(tripDetails.getDepartureTime());
+        trip.setArrivalTime(tripDetails.getArrivalTime());
+        trip.setFare(tripDetails.getFare());
 
+        Trip savedTrip = tripRepository.save(trip);
+        // The cached seat map holds the route's stops and leg masks
+        seatInventoryService.evict(id);
+        tripSearchIndex.put(savedTrip);
+        publishChanged(savedTrip);
         return savedTrip;
     }
 
-    // Search trips by source, destination, date
-    public List<Trip> searchTrips(String source, String destination, LocalDateTime date) {
-        return tripRepository.findByRouteSourceAndRouteDestinationAndDepartureTimeBetween(
-                source, destination,
-                date.toLocalDate().atStartOfDay(),
-                date.toLocalDate().atTime(23, 59, 59)
-        );
+    // Admin
+    @Transactional
+    public void deleteTrip(Long id) {
+        if (!tripRepository.existsById(id)) {
+            throw new RuntimeException("Trip not found with id: " + id);
+        }
+        tripRepository.deleteById(id);
+        seatInventoryService.evict(id);
+        tripSearchIndex.remove(id);
+        eventPublisher.publishEvent(TripsChangedEvent.deleted(id));
+    }
+
+    // Search trips by source, destination, date, with free seats; repeated searches come from the cache
+    public List<TripSearchResult> searchTrips(String source, String destination, LocalDateTime date) {
+        return searchResultCache.search(source, destination, date.toLocalDate());
     }
 
     // Get seat availability for a trip
     public List<Seat> getTripSeats(Long tripId) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
-        return seatRepository.findByTripId(trip.getId());
+        return seatInventoryService.getSeats(tripId);
+    }
+
+    // Seats flagged booked when sold on any leg between the two stops
+    public List<Seat> getTripSeats(Long tripId, String fromStop, String toStop) {
+        return seatInventoryService.getSeats(tripId, seatInventoryService.legMask(tripId, fromStop, toStop));
+    }
+
+    /**
+     * Seat counts for many trips at once, in the order asked for. Unknown
+     * trips are left out.
+     */
+    public List<TripAvailability> getAvailability(List<Long> tripIds) {
+        if (tripIds == null || tripIds.isEmpty()) {
+            return List.of();
+        }
+        if (tripIds.contains(null)) {
+            throw new IllegalArgumentException("Trip ids must not be null");
+        }
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(tripIds));
+        if (distinct.size() > MAX_AVAILABILITY_TRIPS) {
+            throw new IllegalArgumentException("At most " + MAX_AVAILABILITY_TRIPS + " trips per availability request");
+        }
+        Map<Long, SeatCounts> counts = seatInventoryService.countSeats(distinct);
+        return distinct.stream()
+                .filter(counts::containsKey)
+                .map(tripId -> {
+                    SeatCounts seats = counts.get(tripId);
+                    return TripAvailability.builder()
+                            .tripId(tripId)
+                            .availableSeats(seats.available())
+                            .heldSeats(seats.held())
+                            .bookedSeats(seats.booked())
+                            .totalSeats(seats.total())
+                            .build();
+                })
+                .toList();
+    }
+
+    private void publishChanged(Trip trip) {
+        eventPublisher.publishEvent(new TripsChangedEvent(List.of(trip.getId()),
+                trip.getRoute().getSource(), trip.getRoute().getDestination(),
+                List.of(trip.getDepartureTime().toLocalDate())));
     }
 }
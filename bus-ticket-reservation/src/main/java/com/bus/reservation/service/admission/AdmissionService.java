@@ -0,0 +1,109 @@
+package com.bus.reservation.service.admission;
+
+import com.bus.reservation.dto.AdmissionTicket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Waiting room in front of seat holds. Each user gets a ticket per trip and
+ * tickets are let in at {@code app.admission.rate-per-second} per trip, in
+ * ticket order, so an on-sale rush queues here instead of hammering the
+ * booking tables with retries. Everything is in memory; no database access.
+ */
+@Service
+@Slf4j
+public class AdmissionService {
+
+    private static final long ADMISSION_TICK_MILLIS = 1000;
+
+    private final int ratePerSecond;
+    private final long admissionMillis;
+    private final long abandonMillis;
+
+    private final Map<Long, TripWaitingRoom> rooms = new ConcurrentHashMap<>();
+
+    public AdmissionService(
+            @Value("${app.admission.rate-per-second:50}") int ratePerSecond,
+            @Value("${app.admission.window-seconds:120}") long windowSeconds,
+            @Value("${app.admission.abandon-seconds:30}") long abandonSeconds) {
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+        this.admissionMillis = windowSeconds * 1000;
+        this.abandonMillis = abandonSeconds * 1000;
+    }
+
+    /**
+     * Join the trip's queue, or report where the caller already stands.
+     * Polling with the same user keeps the ticket.
+     */
+    public AdmissionTicket enter(Long tripId, String user) {
+        // Join under the map's lock so admitNext cannot drop the room in between
+        TripWaitingRoom.Entry[] joined = new TripWaitingRoom.Entry[1];
+        TripWaitingRoom room = rooms.compute(tripId, (id, current) -> {
+            TripWaitingRoom open = current != null ? current : new TripWaitingRoom(ratePerSecond);
+            joined[0] = open.enter(user, System.currentTimeMillis(), admissionMillis, abandonMillis);
+            return open;
+        });
+        return ticket(tripId, room, joined[0]);
+    }
+
+    /**
+     * Where the caller stands in the trip's queue, or empty when they hold no
+     * live ticket. Never issues one, so polling it does not join the queue.
+     */
+    public Optional<AdmissionTicket> status(Long tripId, String user) {
+        TripWaitingRoom room = rooms.get(tripId);
+        TripWaitingRoom.Entry entry = room != null
+                ? room.find(user, System.currentTimeMillis(), admissionMillis, abandonMillis)
+                : null;
+        return entry != null ? Optional.of(ticket(tripId, room, entry)) : Optional.empty();
+    }
+
+    private AdmissionTicket ticket(Long tripId, TripWaitingRoom room, TripWaitingRoom.Entry entry) {
+        long position = room.positionOf(entry);
+        boolean admitted = entry.admittedAt > 0;
+        return AdmissionTicket.builder()
+                .tripId(tripId)
+                .ticket(entry.number)
+                .admitted(admitted)
+                .position(admitted ? 0 : position)
+                .estimatedWaitSeconds(admitted ? 0 : (position + ratePerSecond - 1) / ratePerSecond)
+                .admittedUntil(admitted ? entry.admittedAt + admissionMillis : 0)
+                .build();
+    }
+
+    /**
+     * Give up the admission once it has been used for a hold.
+     */
+    public void leave(Long tripId, String user) {
+        TripWaitingRoom room = rooms.get(tripId);
+        if (room != null) {
+            room.leave(user);
+        }
+    }
+
+    public long getWaiting(Long tripId) {
+        TripWaitingRoom room = rooms.get(tripId);
+        return room != null ? room.getWaiting() : 0;
+    }
+
+    /**
+     * Let the next batch of tickets in on every trip and forget rooms nobody is in
+     */
+    @Scheduled(fixedRate = ADMISSION_TICK_MILLIS)
+    public void admitNext() {
+        long now = System.currentTimeMillis();
+        rooms.forEach((tripId, room) -> {
+            // Lapsed tickets go first so the quota only reaches users still waiting
+            room.purge(now, admissionMillis, abandonMillis);
+            room.admit(ratePerSecond);
+            // Re-checked under the map's lock, which enter also joins under
+            rooms.computeIfPresent(tripId, (id, current) -> current.isEmpty() ? null : current);
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package com.bus.reservation.service.admission;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue state for one trip: a ticket counter, the highest ticket let in and
+ * the tickets still waiting behind it. Each tick's quota goes to waiting
+ * tickets only; numbers whose holders left or stopped polling are stepped
+ * over. The admission cursor may run up to one tick's quota ahead of the
+ * tickets issued, so a trip that is not busy lets users straight through.
+ */
+class TripWaitingRoom {
+
+    static final class Entry {
+        final long number;
+        volatile long lastSeen;
+        volatile long admittedAt;
+
+        Entry(long number, long now) {
+            this.number = number;
+            this.lastSeen = now;
+        }
+    }
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong admittedUpTo;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Tickets not yet let in, by number
+    private final NavigableMap<Long, Entry> waiting = new ConcurrentSkipListMap<>();
+
+    TripWaitingRoom(int quota) {
+        this.admittedUpTo = new AtomicLong(quota);
+    }
+
+    /**
+     * The caller's ticket, issuing a new one at the back of the queue when it
+     * has none or its old one lapsed.
+     */
+    Entry enter(String user, long now, long admissionMillis, long abandonMillis) {
+        Entry entry = entries.compute(user, (key, current) -> {
+            if (current != null && !isLapsed(current, now, admissionMillis, abandonMillis)) {
+                return current;
+            }
+            if (current != null) {
+                waiting.remove(current.number);
+            }
+            return issue(now);
+        });
+        see(entry, now);
+        return entry;
+    }
+
+    /**
+     * The caller's ticket if they hold a live one, without issuing one.
+     */
+    Entry find(String user, long now, long admissionMillis, long abandonMillis) {
+        Entry entry = entries.get(user);
+        if (entry == null || isLapsed(entry, now, admissionMillis, abandonMillis)) {
+            return null;
+        }
+        see(entry, now);
+        return entry;
+    }
+
+    void leave(String user) {
+        Entry entry = entries.remove(user);
+        if (entry != null) {
+            waiting.remove(entry.number);
+        }
+    }
+
+    /**
+     * Move the cursor past the next {@code quota} waiting tickets. Quota left
+     * over once the queue runs out lets that many new arrivals straight in.
+     */
+    synchronized void admit(int quota) {
+        long cursor = admittedUpTo.get();
+        int granted = 0;
+        for (Long number : waiting.tailMap(cursor, false).keySet()) {
+            if (granted == quota) {
+                break;
+            }
+            cursor = number;
+            granted++;
+        }
+        if (granted < quota) {
+            cursor = Math.max(cursor, issued.get() + quota - granted);
+        }
+        admittedUpTo.set(cursor);
+        waiting.headMap(cursor, true).clear();
+    }
+
+    // Counted in ticket numbers, so at most the waiting tickets ahead; cheap enough for every poll
+    long positionOf(Entry entry) {
+        return Math.max(0, entry.number - admittedUpTo.get());
+    }
+
+    long getWaiting() {
+        return waiting.size();
+    }
+
+    void purge(long now, long admissionMillis, long abandonMillis) {
+        entries.values().removeIf(entry -> {
+            if (!isLapsed(entry, now, admissionMillis, abandonMillis)) {
+                return false;
+            }
+            waiting.remove(entry.number);
+            return true;
+        });
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // Numbered and queued together so admit never counts a ticket it cannot see yet
+    private synchronized Entry issue(long now) {
+        Entry entry = new Entry(issued.incrementAndGet(), now);
+        if (entry.number > admittedUpTo.get()) {
+            waiting.put(entry.number, entry);
+        }
+        return entry;
+    }
+
+    private void see(Entry entry, long now) {
+        entry.lastSeen = now;
+        if (entry.admittedAt == 0 && entry.number <= admittedUpTo.get()) {
+            entry.admittedAt = now;
+        }
+    }
+
+    // Admitted users get a fixed window to hold; waiting users must keep polling to keep their place
+    private static boolean isLapsed(Entry entry, long now, long admissionMillis, long abandonMillis) {
+        return entry.admittedAt > 0
+                ? now - entry.admittedAt > admissionMillis
+                : now - entry.lastSeen > abandonMillis;
+    }
+}
@@ -0,0 +1,12 @@
+package com.bus.reservation.service.booking;
+
+/**
+ * How confirmations and cancellations guard seat rows, chosen per deployment
+ * with {@code app.booking.concurrency-mode}.
+ */
+public enum BookingConcurrencyMode {
+    // Striped trip lock plus seat row locks in id order
+    PESSIMISTIC,
+    // @Version checks on the seat rows, retried by BookingExecutor on conflict
+    OPTIMISTIC
+}
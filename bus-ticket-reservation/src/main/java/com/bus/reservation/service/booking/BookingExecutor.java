@@ -0,0 +1,73 @@
+package com.bus.reservation.service.booking;
+
+import com.bus.reservation.exception.BookingConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a booking operation and retries it when an optimistic version check
+ * fails, with jittered exponential backoff. Each attempt must start its own
+ * transaction, so call this from outside the transactional service.
+ */
+@Component
+@Slf4j
+public class BookingExecutor {
+
+    private final BookingConcurrencyMode mode;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public BookingExecutor(
+            @Value("${app.booking.concurrency-mode:pessimistic}") String mode,
+            @Value("${app.booking.max-attempts:5}") int maxAttempts,
+            @Value("${app.booking.backoff-ms:10}") long backoffMillis) {
+        this.mode = BookingConcurrencyMode.valueOf(mode.trim().toUpperCase());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    public BookingConcurrencyMode getMode() {
+        return mode;
+    }
+
+    public boolean isOptimistic() {
+        return mode == BookingConcurrencyMode.OPTIMISTIC;
+    }
+
+    public <T> T execute(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Booking still conflicting after {} attempts: {}", attempt, e.getMessage());
+                    throw new BookingConflictException("Seats were changed by another booking, please try again");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void execute(Runnable operation) {
+        execute(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // Full jitter: sleep a random time up to backoff * 2^(attempt - 1)
+    private void backoff(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException("Interrupted while retrying booking");
+        }
+    }
+}
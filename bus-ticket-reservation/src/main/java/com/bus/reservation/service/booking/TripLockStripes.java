@@ -0,0 +1,49 @@
+package com.bus.reservation.service.booking;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-JVM locks keyed by trip id. Work on the same trip is serialised
+ * on this node before it reaches the database, so concurrent confirmations
+ * queue here instead of piling up on seat row locks.
+ */
+@Component
+public class TripLockStripes {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public TripLockStripes() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock the trip's stripe until the current transaction completes.
+     */
+    public void lockUntilCompletion(Long tripId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Trip locks must be taken inside a transaction");
+        }
+
+        ReentrantLock lock = stripeOf(tripId);
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock stripeOf(Long tripId) {
+        int hash = Long.hashCode(tripId);
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,58 @@
+package com.bus.reservation.service.hold;
+
+import com.bus.reservation.model.SeatHold;
+import com.bus.reservation.repository.SeatHoldRepository;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Claims seats with compare-and-set in the trip's in-memory inventory and
+ * writes the seat_holds rows afterwards as a durable record. Only safe while a
+ * single application node takes holds.
+ */
+@Component
+@ConditionalOnProperty(name = "app.booking.hold-store", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessSeatHoldStore implements SeatHoldStore {
+
+    private final SeatInventoryService seatInventoryService;
+    private final SeatHoldRepository seatHoldRepository;
+
+    @Override
+    public void hold(Long tripId, List<Long> seatIds, String sessionId, Long userId, LocalDateTime holdUntil, long legMask) {
+        List<Long> distinct = seatIds.stream().distinct().sorted().toList();
+        seatInventoryService.claimHold(tripId, distinct, sessionId, holdUntil, legMask);
+
+        seatHoldRepository.deleteExpiredHoldsForSeats(distinct, LocalDateTime.now());
+        try {
+            seatHoldRepository.insertHolds(distinct, sessionId, userId, holdUntil, legMask);
+        } catch (DuplicateKeyException e) {
+            // Another node holds one of the seats; the claim is handed back on rollback
+            throw new RuntimeException("Seat is currently held on another node");
+        }
+    }
+
+    @Override
+    public boolean isHeld(Long tripId, Long seatId) {
+        return seatInventoryService.getInventory(tripId).isHeld(seatId);
+    }
+
+    @Override
+    public void release(String sessionId) {
+        List<SeatHold> seatHolds = seatHoldRepository.findBySessionIdWithSeats(sessionId);
+        seatHoldRepository.deleteBySessionId(sessionId);
+        seatInventoryService.markHoldsReleased(seatHolds);
+    }
+
+    @Override
+    public int expire(LocalDateTime now) {
+        // In-memory slots are released by the expiry wheel; only the rows are left to delete
+        return seatHoldRepository.deleteExpiredHolds(now);
+    }
+}
@@ -0,0 +1,80 @@
+package com.bus.reservation.service.hold;
+
+import com.bus.reservation.repository.SeatHoldRepository;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.TripSeatInventory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Shares holds between application nodes through the seat_holds table.
+ * The unique key on seat_id turns the multi-row INSERT into an atomic
+ * insert-if-absent: it either writes every hold of the session or fails.
+ * The other nodes learn of the hold through SeatInventoryService's shared change records.
+ */
+@Component
+@ConditionalOnProperty(name = "app.booking.hold-store", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcSeatHoldStore implements SeatHoldStore {
+
+    private final SeatInventoryService seatInventoryService;
+    private final SeatHoldRepository seatHoldRepository;
+
+    @Override
+    public void hold(Long tripId, List<Long> seatIds, String sessionId, Long userId, LocalDateTime holdUntil, long legMask) {
+        // Seat-id order, so two sessions inserting overlapping rows wait on the keys in the same order
+        List<Long> distinct = seatIds.stream().distinct().sorted().toList();
+
+        // Cheap local rejection; the conditional update on confirm stays the final check.
+        // This node's copy may miss a cancellation made on another node, so it is
+        // brought up to date before any seat is turned away.
+        TripSeatInventory inventory = seatInventoryService.getInventory(tripId);
+        if (!isBookable(inventory, distinct, legMask)) {
+            inventory = seatInventoryService.getCurrentInventory(tripId);
+        }
+        for (Long seatId : distinct) {
+            if (!inventory.contains(seatId)) {
+                throw new RuntimeException("Seat not found: " + seatId);
+            }
+            if (inventory.isBooked(seatId, inventory.orAllLegs(legMask))) {
+                throw new RuntimeException("Seat already booked: " + seatId);
+            }
+        }
+
+        seatHoldRepository.deleteExpiredHoldsForSeats(distinct, LocalDateTime.now());
+        try {
+            seatHoldRepository.insertHolds(distinct, sessionId, userId, holdUntil, legMask);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("Seat is currently held");
+        }
+
+        // Let this node's seat map show the hold as well
+        seatInventoryService.markHeld(tripId, distinct, sessionId, holdUntil);
+    }
+
+    @Override
+    public boolean isHeld(Long tripId, Long seatId) {
+        return seatHoldRepository.existsActiveHoldForSeat(seatId, LocalDateTime.now());
+    }
+
+    @Override
+    public void release(String sessionId) {
+        seatInventoryService.markHoldsReleased(seatHoldRepository.findBySessionIdWithSeats(sessionId));
+        seatHoldRepository.deleteBySessionId(sessionId);
+    }
+
+    @Override
+    public int expire(LocalDateTime now) {
+        return seatHoldRepository.deleteExpiredHolds(now);
+    }
+
+    private static boolean isBookable(TripSeatInventory inventory, List<Long> seatIds, long legMask) {
+        return seatIds.stream().allMatch(seatId ->
+                inventory.contains(seatId) && !inventory.isBooked(seatId, inventory.orAllLegs(legMask)));
+    }
+}
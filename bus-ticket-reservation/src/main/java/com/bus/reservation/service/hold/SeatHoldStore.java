@@ -0,0 +1,35 @@
+package com.bus.reservation.service.hold;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Where seat holds live. BookingService goes through this for creating,
+ * checking, releasing and expiring holds so that the backing store can be
+ * swapped with {@code app.booking.hold-store}: {@code memory} keeps the claim
+ * in this JVM, {@code jdbc} shares it between nodes through the seat_holds table.
+ *
+ * Every implementation must pass SeatHoldStoreContractTest.
+ */
+public interface SeatHoldStore {
+
+    /**
+     * Hold all seats for the session or none of them, on behalf of the user,
+     * for a journey over the given legs of the route (0 for the whole route).
+     * Throws a RuntimeException naming the seat when one is booked on any of
+     * those legs or already held.
+     */
+    void hold(Long tripId, List<Long> seatIds, String sessionId, Long userId, LocalDateTime holdUntil, long legMask);
+
+    boolean isHeld(Long tripId, Long seatId);
+
+    /**
+     * Release every seat still held by the session.
+     */
+    void release(String sessionId);
+
+    /**
+     * Remove holds that expired before {@code now}; returns how many were removed.
+     */
+    int expire(LocalDateTime now);
+}
@@ -0,0 +1,91 @@
+package com.bus.reservation.service.inventory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel for seat-hold deadlines.
+ * Each bucket covers one tick; a hold lands in the bucket of the first tick
+ * boundary at or after its deadline and is only taken out once that deadline
+ * has actually passed, so holds further away than one revolution simply wait
+ * for a later round.
+ * Scheduling, cancelling and expiring are O(1) per hold, independent of how
+ * many are pending. A session has at most one entry; scheduling it again
+ * replaces the earlier one.
+ */
+class HoldExpiryWheel {
+
+    record Expiry(Long tripId, String sessionId, List<Long> seatIds, long expiresAt) {
+    }
+
+    // Where a session's expiry sits, to take it out again
+    private record Slot(Expiry expiry, long tick) {
+    }
+
+    private final long tickMillis;
+    private final List<Set<Expiry>> buckets;
+    private final Map<String, Slot> slots = new HashMap<>();
+    private long nextTick;
+
+    HoldExpiryWheel(long tickMillis, int size, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+        this.nextTick = startMillis / tickMillis;
+    }
+
+    synchronized void schedule(Expiry expiry) {
+        cancel(expiry.sessionId());
+        long tick = Math.max(-Math.floorDiv(-expiry.expiresAt(), tickMillis), nextTick);
+        bucketOf(tick).add(expiry);
+        slots.put(expiry.sessionId(), new Slot(expiry, tick));
+    }
+
+    /**
+     * Take the session's hold off the wheel, once it is confirmed or released.
+     */
+    synchronized void cancel(String sessionId) {
+        Slot slot = slots.remove(sessionId);
+        if (slot != null) {
+            bucketOf(slot.tick()).remove(slot.expiry());
+        }
+    }
+
+    /**
+     * Remove and return every hold whose deadline is at or before {@code now}.
+     */
+    synchronized List<Expiry> advance(long now) {
+        List<Expiry> expired = new ArrayList<>();
+        long lastTick = Math.floorDiv(now, tickMillis);
+        // Visiting more than one revolution would only revisit the same buckets
+        long firstTick = Math.max(nextTick, lastTick - buckets.size() + 1);
+
+        for (long tick = firstTick; tick <= lastTick; tick++) {
+            bucketOf(tick).removeIf(expiry -> {
+                if (expiry.expiresAt() <= now) {
+                    expired.add(expiry);
+                    return true;
+                }
+                return false;
+            });
+        }
+        expired.forEach(expiry -> slots.remove(expiry.sessionId()));
+
+        nextTick = Math.max(nextTick, lastTick + 1);
+        return expired;
+    }
+
+    synchronized int getPending() {
+        return slots.size();
+    }
+
+    private Set<Expiry> bucketOf(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+}
@@ -0,0 +1,125 @@
+package com.bus.reservation.service.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks seats for a party from a trip's in-memory availability.
+ * Free seats are walked in layout order and every run of {@code partySize}
+ * consecutive free seats is scored: gaps between them first, then rows beyond
+ * the fewest the party could fit in, then aisle splits, then (if asked) how
+ * many are window seats, with earlier rows winning ties. One pass over the
+ * seats, no database access.
+ */
+public final class SeatAllocator {
+
+    private static final int GAP_PENALTY = 1000;
+    private static final int EXTRA_ROW_PENALTY = 100;
+    private static final int AISLE_PENALTY = 10;
+    private static final int WINDOW_BONUS = 5;
+
+    private SeatAllocator() {
+    }
+
+    /**
+     * Seat ids for the party, or an empty list when not enough seats are free.
+     *
+     * @param together keep the party in one block; otherwise take the best seats one by one
+     * @param window   prefer window seats
+     */
+    public static List<Long> allocate(TripSeatInventory inventory, int partySize, boolean together, boolean window) {
+        return allocate(inventory, partySize, together, window, inventory.getAllLegs());
+    }
+
+    /**
+     * Seat ids for the party travelling over the given legs; seats sold only
+     * on other legs count as free.
+     */
+    public static List<Long> allocate(TripSeatInventory inventory, int partySize, boolean together, boolean window,
+                                      long legMask) {
+        if (partySize < 1) {
+            throw new RuntimeException("Party size must be at least 1");
+        }
+        SeatLayout layout = inventory.getLayout();
+        long now = System.currentTimeMillis();
+
+        // Layout positions of the free seats, front to back
+        int[] free = new int[layout.size()];
+        int freeCount = 0;
+        for (int position = 0; position < layout.size(); position++) {
+            if (inventory.isAvailableAt(layout.indexAt(position), legMask, now)) {
+                free[freeCount++] = position;
+            }
+        }
+        if (freeCount < partySize) {
+            return List.of();
+        }
+
+        return together
+                ? toSeatIds(inventory, layout, free, bestBlock(inventory, layout, free, freeCount, partySize, window), partySize)
+                : bestSingles(inventory, layout, free, freeCount, partySize, window);
+    }
+
+    private static int bestBlock(TripSeatInventory inventory, SeatLayout layout, int[] free, int freeCount,
+                                 int partySize, boolean window) {
+        int minRows = (partySize + SeatLayout.SEATS_PER_ROW - 1) / SeatLayout.SEATS_PER_ROW;
+        int best = 0;
+        long bestScore = Long.MAX_VALUE;
+
+        for (int start = 0; start + partySize <= freeCount; start++) {
+            // Seats skipped inside the block
+            long score = GAP_PENALTY * (long) (free[start + partySize - 1] - free[start] - (partySize - 1));
+            int windows = 0;
+            for (int k = start; k < start + partySize; k++) {
+                int index = layout.indexAt(free[k]);
+                if (inventory.isWindowAt(index)) {
+                    windows++;
+                }
+                if (k > start && layout.acrossAisle(layout.indexAt(free[k - 1]), index)) {
+                    score += AISLE_PENALTY;
+                }
+            }
+            int rows = layout.rowOf(layout.indexAt(free[start + partySize - 1]))
+                    - layout.rowOf(layout.indexAt(free[start])) + 1;
+            score += EXTRA_ROW_PENALTY * (long) Math.max(0, rows - minRows);
+            if (window) {
+                score -= WINDOW_BONUS * (long) windows;
+            }
+
+            if (score < bestScore) {
+                bestScore = score;
+                best = start;
+            }
+        }
+        return best;
+    }
+
+    private static List<Long> bestSingles(TripSeatInventory inventory, SeatLayout layout, int[] free, int freeCount,
+                                          int partySize, boolean window) {
+        List<Long> seatIds = new ArrayList<>(partySize);
+        if (window) {
+            for (int k = 0; k < freeCount && seatIds.size() < partySize; k++) {
+                int index = layout.indexAt(free[k]);
+                if (inventory.isWindowAt(index)) {
+                    seatIds.add(inventory.seatIdAt(index));
+                }
+            }
+        }
+        for (int k = 0; k < freeCount && seatIds.size() < partySize; k++) {
+            int index = layout.indexAt(free[k]);
+            if (!window || !inventory.isWindowAt(index)) {
+                seatIds.add(inventory.seatIdAt(index));
+            }
+        }
+        return seatIds;
+    }
+
+    private static List<Long> toSeatIds(TripSeatInventory inventory, SeatLayout layout, int[] free,
+                                        int start, int partySize) {
+        List<Long> seatIds = new ArrayList<>(partySize);
+        for (int k = start; k < start + partySize; k++) {
+            seatIds.add(inventory.seatIdAt(layout.indexAt(free[k])));
+        }
+        return seatIds;
+    }
+}
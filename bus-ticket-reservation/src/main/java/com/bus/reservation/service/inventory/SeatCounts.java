@@ -0,0 +1,10 @@
+package com.bus.reservation.service.inventory;
+
+/**
+ * Seats of a trip free for the whole route, held but not sold, sold on at
+ * least one leg, and in all. Available, held and booked add up to total.
+ */
+public record SeatCounts(int available, int held, int booked, int total) {
+
+    public static final SeatCounts NONE = new SeatCounts(0, 0, 0, 0);
+}
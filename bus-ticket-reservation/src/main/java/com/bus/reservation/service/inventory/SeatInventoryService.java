@@ -0,0 +1,575 @@
+package com.bus.reservation.service.inventory;
+
+import com.bus.reservation.dto.HoldExpiryStats;
+import com.bus.reservation.dto.SeatInventoryReport;
+import com.bus.reservation.dto.SeatMap;
+import com.bus.reservation.model.Seat;
+import com.bus.reservation.model.SeatHold;
+import com.bus.reservation.model.RouteStop;
+import com.bus.reservation.model.Trip;
+import com.bus.reservation.model.TripSeatChange;
+import com.bus.reservation.repository.RouteStopRepository;
+import com.bus.reservation.repository.SeatHoldRepository;
+import com.bus.reservation.repository.SeatRepository;
+import com.bus.reservation.repository.TripRepository;
+import com.bus.reservation.repository.TripSeatChangeRepository;
+import com.bus.reservation.service.stream.SeatChange;
+import com.bus.reservation.service.stream.SeatStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a {@link TripSeatInventory} per trip so seat-map reads do not hit the
+ * seats table. Inventories are loaded lazily on first read and kept in step by
+ * the booking paths, which report every seat change after their transaction commits.
+ * Seats becoming free again are also announced as a {@link SeatsFreedEvent}.
+ * With holds shared between nodes ({@code app.booking.hold-store=jdbc}) every
+ * change also leaves a {@link TripSeatChange} record, and each node re-reads the
+ * cached trips that other nodes have changed since it read them.
+ */
+@Service
+@Slf4j
+public class SeatInventoryService {
+
+    private final SeatRepository seatRepository;
+    private final SeatHoldRepository seatHoldRepository;
+    private final TripRepository tripRepository;
+    private final RouteStopRepository routeStopRepository;
+    private final SeatStreamService seatStreamService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TripSeatChangeRepository tripSeatChangeRepository;
+
+    // Loads read in a transaction of their own, begun after the stamp is taken, so a
+    // caller's older snapshot (REPEATABLE READ) cannot hide a commit the stamp missed
+    private final TransactionTemplate ownReadTransaction;
+
+    private final Map<Long, TripSeatInventory> inventories = new ConcurrentHashMap<>();
+
+    // Other nodes change seats too, so changes are recorded and polled for
+    private final boolean shared;
+
+    // Tells this node's change records from the other nodes'
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private static final int SYNC_BATCH = 500;
+
+    // Bumped on every mutation so a load racing with a commit can detect it and retry
+    private final Map<Long, AtomicLong> mutationStamps = new ConcurrentHashMap<>();
+
+    private static final long EXPIRY_TICK_MILLIS = 1000;
+    private static final int EXPIRY_WHEEL_SIZE = 1024;
+
+    private final HoldExpiryWheel expiryWheel =
+            new HoldExpiryWheel(EXPIRY_TICK_MILLIS, EXPIRY_WHEEL_SIZE, System.currentTimeMillis());
+
+    private final AtomicLong expiredHolds = new AtomicLong();
+    private final AtomicLong expiredSeats = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private volatile int lastSweepSize;
+    private volatile int maxSweepSize;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public SeatInventoryService(
+            SeatRepository seatRepository,
+            SeatHoldRepository seatHoldRepository,
+            TripRepository tripRepository,
+            RouteStopRepository routeStopRepository,
+            SeatStreamService seatStreamService,
+            ApplicationEventPublisher eventPublisher,
+            TripSeatChangeRepository tripSeatChangeRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.booking.hold-store:memory}") String holdStore) {
+        this.seatRepository = seatRepository;
+        this.seatHoldRepository = seatHoldRepository;
+        this.tripRepository = tripRepository;
+        this.routeStopRepository = routeStopRepository;
+        this.seatStreamService = seatStreamService;
+        this.eventPublisher = eventPublisher;
+        this.tripSeatChangeRepository = tripSeatChangeRepository;
+        this.shared = "jdbc".equals(holdStore);
+        this.ownReadTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.ownReadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ownReadTransaction.setReadOnly(true);
+    }
+
+    public TripSeatInventory getInventory(Long tripId) {
+        TripSeatInventory inventory = inventories.get(tripId);
+        return inventory != null ? inventory : load(tripId);
+    }
+
+    /**
+     * Free, held, booked and total seats per trip for search results and
+     * listing pages. Trips with a cached inventory are counted from it; the
+     * rest with one aggregate query, without loading their inventories.
+     * Unknown trips are left out.
+     */
+    public Map<Long, SeatCounts> countSeats(Collection<Long> tripIds) {
+        Map<Long, SeatCounts> counts = new HashMap<>();
+        List<Long> uncached = new ArrayList<>();
+        for (Long tripId : tripIds) {
+            TripSeatInventory inventory = inventories.get(tripId);
+            if (inventory != null) {
+                counts.put(tripId, countsOf(inventory));
+            } else {
+                uncached.add(tripId);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            for (Object[] row : seatRepository.countSeatsByTrip(uncached, LocalDateTime.now())) {
+                int total = ((Number) row[1]).intValue();
+                int available = ((Number) row[2]).intValue();
+                int booked = ((Number) row[3]).intValue();
+                counts.put((Long) row[0], new SeatCounts(available, total - available - booked, booked, total));
+            }
+        }
+        return counts;
+    }
+
+    public List<Seat> getSeats(Long tripId) {
+        return getInventory(tripId).getSeats();
+    }
+
+    public List<Seat> getSeats(Long tripId, long legMask) {
+        return getInventory(tripId).getSeats(legMask);
+    }
+
+    public List<Seat> getAvailableSeats(Long tripId) {
+        return getInventory(tripId).getAvailableSeats();
+    }
+
+    public List<Seat> getAvailableSeats(Long tripId, long legMask) {
+        return getInventory(tripId).getAvailableSeats(legMask);
+    }
+
+    /**
+     * Legs of the trip's route between two of its stops; both null means the whole route.
+     */
+    public long legMask(Long tripId, String fromStop, String toStop) {
+        return getInventory(tripId).legMask(fromStop, toStop);
+    }
+
+    /**
+     * Layout and availability of the trip's seats for a journey over the given
+     * legs; a seat counts as booked when it is sold on any of them. The bits are
+     * re-read until no change lands in between, so they match the version
+     * reported with them.
+     */
+    public SeatMap getSeatMap(Long tripId, long legMask, SeatMapEncoding encoding) {
+        TripSeatInventory inventory = getInventory(tripId);
+        long version;
+        BitSet booked;
+        BitSet held;
+        do {
+            version = inventory.getVersion();
+            booked = inventory.bookedSeats(legMask);
+            held = inventory.heldSeats();
+        } while (version != inventory.getVersion());
+
+        return SeatMap.builder()
+                .tripId(tripId)
+                .version(version)
+                .seatCount(inventory.size())
+                .seatIds(inventory.getSeatIds())
+                .seatNumbers(inventory.getSeatNumbers())
+                .seatTypes(inventory.getSeatTypes())
+                .stops(inventory.getStops())
+                .legMask(legMask)
+                .encoding(encoding.name().toLowerCase())
+                .booked(encoding.encode(booked, inventory.size()))
+                .held(encoding.encode(held, inventory.size()))
+                .etag(seatMapTag(inventory, version, legMask, encoding))
+                .build();
+    }
+
+    /**
+     * Strong validator for the trip's current seat map; also changes when the
+     * inventory is rebuilt, whose version starts again at 0.
+     */
+    public String getSeatMapTag(Long tripId, long legMask, SeatMapEncoding encoding) {
+        TripSeatInventory inventory = getInventory(tripId);
+        return seatMapTag(inventory, inventory.getVersion(), legMask, encoding);
+    }
+
+    /**
+     * Claim the seats for a session straight away, all or nothing, failing if
+     * any of them is sold on one of the given legs (0 for the whole route).
+     * The claim is handed back if the surrounding transaction rolls back.
+     */
+    public void claimHold(Long tripId, Collection<Long> seatIds, String sessionId, LocalDateTime holdUntil,
+                          long legMask) {
+        TripSeatInventory inventory = getInventory(tripId);
+        inventory.tryHold(seatIds, sessionId, holdUntil, inventory.orAllLegs(legMask));
+        expiryWheel.schedule(new HoldExpiryWheel.Expiry(tripId, sessionId, List.copyOf(seatIds),
+                TripSeatInventory.toEpochMillis(holdUntil)));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        inventory.release(seatIds, sessionId);
+                    } else {
+                        publish(tripId, SeatChange.HELD, seatIds, inventory.getVersion(), null);
+                    }
+                }
+            });
+        } else {
+            publish(tripId, SeatChange.HELD, seatIds, inventory.getVersion(), null);
+        }
+    }
+
+    /**
+     * Mirror a hold granted by the shared hold store once it commits, so this
+     * node's seat map shows it and the expiry wheel hands it back.
+     */
+    public void markHeld(Long tripId, Collection<Long> seatIds, String sessionId, LocalDateTime holdUntil) {
+        afterCommit(tripId, seatIds, SeatChange.HELD, null, (inventory, ids) -> {
+            inventory.markHeld(ids, sessionId, holdUntil);
+            expiryWheel.schedule(new HoldExpiryWheel.Expiry(tripId, sessionId, List.copyOf(ids),
+                    TripSeatInventory.toEpochMillis(holdUntil)));
+        });
+    }
+
+    public void markReleased(Long tripId, Collection<Long> seatIds, String sessionId) {
+        afterCommit(tripId, seatIds, SeatChange.RELEASED, sessionId, (inventory, ids) -> inventory.release(ids, sessionId));
+    }
+
+    public void markHoldsReleased(List<SeatHold> seatHolds) {
+        Map<Long, Map<String, List<Long>>> seatIdsByTripAndSession = seatHolds.stream()
+                .collect(Collectors.groupingBy(hold -> hold.getSeat().getTrip().getId(),
+                        Collectors.groupingBy(SeatHold::getSessionId,
+                                Collectors.mapping(hold -> hold.getSeat().getId(), Collectors.toList()))));
+        seatIdsByTripAndSession.forEach((tripId, bySession) ->
+                bySession.forEach((sessionId, seatIds) -> markReleased(tripId, seatIds, sessionId)));
+    }
+
+    public void markBooked(Long tripId, Collection<Long> seatIds, long legMask, String sessionId) {
+        afterCommit(tripId, seatIds, SeatChange.BOOKED, sessionId, (inventory, ids) -> inventory.markBooked(ids, legMask));
+    }
+
+    public void markCancelled(Long tripId, Collection<Long> seatIds, long legMask) {
+        afterCommit(tripId, seatIds, SeatChange.CANCELLED, null, (inventory, ids) -> inventory.markCancelled(ids, legMask));
+    }
+
+    /**
+     * Drop the trip's cached inventory, now and again when the surrounding
+     * transaction commits, so a load racing the change cannot keep the old trip.
+     */
+    public void evict(Long tripId) {
+        inventories.remove(tripId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inventories.remove(tripId);
+                }
+            });
+        }
+    }
+
+    /**
+     * The trip's inventory, first brought up to date with the changes other
+     * nodes committed when holds are shared; for checks that must not turn
+     * seats away on an old copy.
+     */
+    public TripSeatInventory getCurrentInventory(Long tripId) {
+        TripSeatInventory inventory = getInventory(tripId);
+        if (shared && inventory == inventories.get(tripId)) {
+            refresh(inventory);
+        }
+        return inventories.getOrDefault(tripId, inventory);
+    }
+
+    /**
+     * Re-read the cached trips that other nodes have changed since this node
+     * read them, and stream their changes as if they were made here.
+     */
+    @Scheduled(fixedDelayString = "${app.booking.shared-sync-ms:1000}")
+    public void syncSharedChanges() {
+        if (!shared || inventories.isEmpty()) {
+            return;
+        }
+        List<Long> tripIds = List.copyOf(inventories.keySet());
+        for (int from = 0; from < tripIds.size(); from += SYNC_BATCH) {
+            List<Long> batch = tripIds.subList(from, Math.min(from + SYNC_BATCH, tripIds.size()));
+            for (Object[] row : tripSeatChangeRepository.countByOtherNodes(batch, nodeId)) {
+                TripSeatInventory inventory = inventories.get((Long) row[0]);
+                if (inventory != null && ((Number) row[1]).longValue() > inventory.getSharedChanges()) {
+                    refresh(inventory);
+                }
+            }
+        }
+    }
+
+    public SeatInventoryReport getReport(Long tripId) {
+        return report(getInventory(tripId)).build();
+    }
+
+    // Admin: drop the cached bitmap and reload it from the database
+    public SeatInventoryReport rebuild(Long tripId) {
+        stampOf(tripId).incrementAndGet();
+        inventories.remove(tripId);
+        return getReport(tripId);
+    }
+
+    // Admin: compare the cached bitmap with a fresh read of the database
+    public SeatInventoryReport verify(Long tripId) {
+        TripSeatInventory cached = getInventory(tripId);
+        TripSeatInventory fresh = readFromDatabase(tripId);
+
+        List<Long> bookedMismatches = cached.bookedDifferences(fresh);
+        List<Long> heldMismatches = cached.heldDifferences(fresh);
+        boolean consistent = bookedMismatches.isEmpty() && heldMismatches.isEmpty();
+        if (!consistent) {
+            log.warn("Seat inventory for trip {} is out of step: {} booked and {} held mismatches",
+                    tripId, bookedMismatches.size(), heldMismatches.size());
+        }
+
+        return report(cached)
+                .consistent(consistent)
+                .bookedMismatches(bookedMismatches)
+                .heldMismatches(heldMismatches)
+                .build();
+    }
+
+    /**
+     * Release holds whose holdUntil has passed, about a second after it passes,
+     * and delete their rows with one bulk statement
+     */
+    @Scheduled(fixedRate = EXPIRY_TICK_MILLIS)
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        List<HoldExpiryWheel.Expiry> expired = expiryWheel.advance(now);
+        if (expired.isEmpty()) {
+            lastSweepSize = 0;
+            return;
+        }
+
+        int seats = 0;
+        for (HoldExpiryWheel.Expiry expiry : expired) {
+            TripSeatInventory inventory = inventories.get(expiry.tripId());
+            if (inventory != null && inventory.release(expiry.seatIds(), expiry.sessionId())) {
+                publish(expiry.tripId(), SeatChange.RELEASED, expiry.seatIds(), inventory.getVersion(),
+                        expiry.sessionId());
+            }
+            seats += expiry.seatIds().size();
+
+            long lag = now - expiry.expiresAt();
+            totalLagMillis.addAndGet(lag);
+            lastLagMillis = lag;
+            maxLagMillis = Math.max(maxLagMillis, lag);
+        }
+
+        expiredHolds.addAndGet(expired.size());
+        expiredSeats.addAndGet(seats);
+        lastSweepSize = seats;
+        maxSweepSize = Math.max(maxSweepSize, seats);
+
+        try {
+            seatHoldRepository.deleteExpiredHolds(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to delete expired seat holds: {}", e.getMessage());
+        }
+        log.debug("Released {} expired seat holds ({} seats)", expired.size(), seats);
+    }
+
+    public HoldExpiryStats getExpiryStats() {
+        long holds = expiredHolds.get();
+        return HoldExpiryStats.builder()
+                .pendingHolds(expiryWheel.getPending())
+                .expiredHolds(holds)
+                .expiredSeats(expiredSeats.get())
+                .lastSweepSize(lastSweepSize)
+                .maxSweepSize(maxSweepSize)
+                .lastLagMillis(lastLagMillis)
+                .maxLagMillis(maxLagMillis)
+                .averageLagMillis(holds == 0 ? 0 : (double) totalLagMillis.get() / holds)
+                .build();
+    }
+
+    /**
+     * Drop inventories of trips that have already departed
+     */
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public void evictDepartedTrips() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> departedTrips = new ArrayList<>();
+        inventories.values().removeIf(inventory -> {
+            boolean departed = inventory.getDepartureTime().isBefore(now);
+            if (departed) {
+                mutationStamps.remove(inventory.getTripId());
+                departedTrips.add(inventory.getTripId());
+            }
+            return departed;
+        });
+        if (shared && !departedTrips.isEmpty()) {
+            tripSeatChangeRepository.deleteByTripIds(departedTrips);
+        }
+    }
+
+    // Held is what is neither free nor sold, so the three always add up
+    private static SeatCounts countsOf(TripSeatInventory inventory) {
+        int total = inventory.size();
+        int booked = inventory.getBookedCount();
+        int available = Math.min(inventory.getAvailableCount(), total - booked);
+        return new SeatCounts(available, total - available - booked, booked, total);
+    }
+
+    private TripSeatInventory load(Long tripId) {
+        while (true) {
+            long stamp = stampOf(tripId).get();
+            TripSeatInventory loaded = readFromDatabase(tripId);
+
+            TripSeatInventory existing = inventories.putIfAbsent(tripId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            if (stampOf(tripId).get() == stamp) {
+                loaded.activeHoldExpiries().forEach(expiryWheel::schedule);
+                return loaded;
+            }
+            // A booking committed while we were reading, the snapshot may have missed it
+            inventories.remove(tripId, loaded);
+        }
+    }
+
+    private TripSeatInventory readFromDatabase(Long tripId) {
+        return ownReadTransaction.execute(status -> {
+            // Counted first: a change landing after the count is picked up again on the next sync
+            long sharedChanges = shared ? tripSeatChangeRepository.countByTripIdAndNodeIdNot(tripId, nodeId) : 0;
+            Trip trip = tripRepository.findById(tripId)
+                    .orElseThrow(() -> new RuntimeException("Trip not found"));
+            List<Seat> seats = seatRepository.findByTripId(tripId);
+            List<SeatHold> activeHolds = seatHoldRepository.findActiveHoldsByTripId(tripId, LocalDateTime.now());
+            TripSeatInventory inventory =
+                    new TripSeatInventory(tripId, trip.getDepartureTime(), stopsOf(trip), seats, activeHolds);
+            inventory.setSharedChanges(sharedChanges);
+            return inventory;
+        });
+    }
+
+    // Take over what other nodes changed, unless a change from this node landed while reading;
+    // the next sync tries again then
+    private void refresh(TripSeatInventory inventory) {
+        Long tripId = inventory.getTripId();
+        long stamp = stampOf(tripId).get();
+        TripSeatInventory fresh = readFromDatabase(tripId);
+
+        if (!inventory.hasLayoutOf(fresh)) {
+            if (inventories.replace(tripId, inventory, fresh)) {
+                stampOf(tripId).incrementAndGet();
+                fresh.activeHoldExpiries().forEach(expiryWheel::schedule);
+            }
+            return;
+        }
+        Map<SeatChange, List<Long>> changes;
+        synchronized (inventory) {
+            if (stampOf(tripId).get() != stamp) {
+                return;
+            }
+            changes = inventory.adopt(fresh);
+            inventory.setSharedChanges(fresh.getSharedChanges());
+        }
+        fresh.activeHoldExpiries().forEach(expiryWheel::schedule);
+        changes.forEach((seatChange, seatIds) -> publish(tripId, seatChange, seatIds, inventory.getVersion(), null));
+    }
+
+    private List<String> stopsOf(Trip trip) {
+        List<RouteStop> intermediate = routeStopRepository.findByRouteIdOrderByStopOrder(trip.getRoute().getId());
+        List<String> stops = new ArrayList<>(intermediate.size() + 2);
+        stops.add(trip.getRoute().getSource());
+        intermediate.forEach(stop -> stops.add(stop.getCity()));
+        stops.add(trip.getRoute().getDestination());
+        return stops;
+    }
+
+    // endedSession is a hold confirmed or released by the change, taken off the expiry wheel
+    private void afterCommit(Long tripId, Collection<Long> seatIds, SeatChange seatChange, String endedSession,
+                             BiConsumer<TripSeatInventory, Collection<Long>> change) {
+        if (shared) {
+            tripSeatChangeRepository.save(TripSeatChange.builder().tripId(tripId).nodeId(nodeId).build());
+        }
+        Runnable apply = () -> {
+            if (endedSession != null) {
+                expiryWheel.cancel(endedSession);
+            }
+            TripSeatInventory inventory = inventories.get(tripId);
+            if (inventory != null) {
+                // Stamped under the lock a refresh checks the stamp under
+                synchronized (inventory) {
+                    stampOf(tripId).incrementAndGet();
+                    change.accept(inventory, seatIds);
+                }
+            } else {
+                stampOf(tripId).incrementAndGet();
+            }
+            publish(tripId, seatChange, seatIds, inventory != null ? inventory.getVersion() : -1, endedSession);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // Tell seat map subscribers and in-process listeners about a committed change.
+    // Without a cached inventory there is no seat map version to stream against.
+    // endedSession is the hold a release or expiry ended, when known.
+    private void publish(Long tripId, SeatChange seatChange, Collection<Long> seatIds, long version,
+                         String endedSession) {
+        if (version >= 0) {
+            seatStreamService.publish(tripId, seatChange, seatIds, version);
+        }
+        List<Long> ids = List.copyOf(seatIds);
+        eventPublisher.publishEvent(new SeatsChangedEvent(tripId, seatChange, ids));
+        if (seatChange == SeatChange.RELEASED || seatChange == SeatChange.CANCELLED) {
+            eventPublisher.publishEvent(new SeatsFreedEvent(tripId, ids, endedSession));
+        }
+    }
+
+    private String seatMapTag(TripSeatInventory inventory, long version, long legMask, SeatMapEncoding encoding) {
+        return "\"" + inventory.getTripId() + "-" + inventory.getGeneration() + "-" + version
+                + "-" + Long.toHexString(legMask) + "-" + encoding.name().toLowerCase() + "\"";
+    }
+
+    private AtomicLong stampOf(Long tripId) {
+        return mutationStamps.computeIfAbsent(tripId, id -> new AtomicLong());
+    }
+
+    private SeatInventoryReport.SeatInventoryReportBuilder report(TripSeatInventory inventory) {
+        return SeatInventoryReport.builder()
+                .tripId(inventory.getTripId())
+                .totalSeats(inventory.size())
+                .bookedSeats(inventory.getBookedCount())
+                .heldSeats(inventory.getHeldCount())
+                .availableSeats(inventory.getAvailableCount())
+                .version(inventory.getVersion());
+    }
+}
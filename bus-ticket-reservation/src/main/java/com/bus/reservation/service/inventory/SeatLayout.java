@@ -0,0 +1,73 @@
+package com.bus.reservation.service.inventory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Physical position of each seat of a trip, derived from the seat numbers
+ * scheduling generates: "S1".."Sn", four to a row, two on each side of the
+ * aisle. Seats whose number does not follow that pattern go after the others
+ * in seat-id order.
+ */
+class SeatLayout {
+
+    static final int SEATS_PER_ROW = 4;
+
+    // Inventory indices in layout order, front to back, left to right
+    private final int[] order;
+    private final int[] row;
+    private final int[] column;
+
+    SeatLayout(String[] seatNumbers) {
+        int size = seatNumbers.length;
+        int[] numbers = new int[size];
+        int fallback = Arrays.stream(seatNumbers).mapToInt(SeatLayout::parse).max().orElse(0);
+        for (int i = 0; i < size; i++) {
+            int number = parse(seatNumbers[i]);
+            numbers[i] = number > 0 ? number : ++fallback;
+        }
+
+        this.order = IntStream.range(0, size).boxed()
+                .sorted(Comparator.comparingInt(i -> numbers[i]))
+                .mapToInt(Integer::intValue).toArray();
+        this.row = new int[size];
+        this.column = new int[size];
+        for (int i = 0; i < size; i++) {
+            row[i] = (numbers[i] - 1) / SEATS_PER_ROW;
+            column[i] = (numbers[i] - 1) % SEATS_PER_ROW;
+        }
+    }
+
+    int size() {
+        return order.length;
+    }
+
+    int indexAt(int position) {
+        return order[position];
+    }
+
+    int rowOf(int index) {
+        return row[index];
+    }
+
+    /**
+     * Whether two seats sit next to each other in one row with the aisle between them.
+     */
+    boolean acrossAisle(int index, int other) {
+        return row[index] == row[other]
+                && Math.min(column[index], column[other]) == SEATS_PER_ROW / 2 - 1
+                && Math.abs(column[index] - column[other]) == 1;
+    }
+
+    private static int parse(String seatNumber) {
+        if (seatNumber == null || seatNumber.length() < 2 || seatNumber.charAt(0) != 'S') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(seatNumber.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
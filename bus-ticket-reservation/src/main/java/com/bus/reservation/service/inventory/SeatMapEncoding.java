@@ -0,0 +1,75 @@
+package com.bus.reservation.service.inventory;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Text encodings for per-seat bits in a seat map.
+ * BITSET is the base64 of {@link BitSet#toByteArray()}. RLE lists the lengths
+ * of alternating runs of clear and set bits, starting with a clear run, so a
+ * mostly empty bus is a few numbers.
+ */
+public enum SeatMapEncoding {
+
+    BITSET {
+        @Override
+        public String encode(BitSet bits, int size) {
+            return Base64.getEncoder().encodeToString(bits.toByteArray());
+        }
+
+        @Override
+        public BitSet decode(String encoded, int size) {
+            return BitSet.valueOf(Base64.getDecoder().decode(encoded));
+        }
+    },
+
+    RLE {
+        @Override
+        public String encode(BitSet bits, int size) {
+            StringJoiner runs = new StringJoiner(",");
+            boolean value = false;
+            int start = 0;
+            while (start < size) {
+                int end = value ? bits.nextClearBit(start) : bits.nextSetBit(start);
+                end = end < 0 || end > size ? size : end;
+                runs.add(Integer.toString(end - start));
+                start = end;
+                value = !value;
+            }
+            return runs.toString();
+        }
+
+        @Override
+        public BitSet decode(String encoded, int size) {
+            BitSet bits = new BitSet(size);
+            boolean value = false;
+            int start = 0;
+            for (String run : encoded.isEmpty() ? new String[0] : encoded.split(",")) {
+                int end = start + Integer.parseInt(run);
+                bits.set(start, end, value);
+                start = end;
+                value = !value;
+            }
+            return bits;
+        }
+    };
+
+    public abstract String encode(BitSet bits, int size);
+
+    public abstract BitSet decode(String encoded, int size);
+
+    public static SeatMapEncoding fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            List<String> names = new ArrayList<>();
+            for (SeatMapEncoding encoding : values()) {
+                names.add(encoding.name().toLowerCase());
+            }
+            throw new RuntimeException("Unknown seat map encoding: " + name + ", expected one of " + names);
+        }
+    }
+}
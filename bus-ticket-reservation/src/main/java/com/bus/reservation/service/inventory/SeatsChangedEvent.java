@@ -0,0 +1,12 @@
+package com.bus.reservation.service.inventory;
+
+import com.bus.reservation.service.stream.SeatChange;
+
+import java.util.List;
+
+/**
+ * Published after any seat of a trip changes state: held, released, booked
+ * or cancelled, once the change has committed.
+ */
+public record SeatsChangedEvent(Long tripId, SeatChange change, List<Long> seatIds) {
+}
@@ -0,0 +1,13 @@
+package com.bus.reservation.service.inventory;
+
+import java.util.List;
+
+/**
+ * Published after seats of a trip become free again: a hold was released or
+ * expired, or a booking was cancelled.
+ *
+ * @param sessionId the released or expired hold's session; null for a cancellation
+ *                  or when another node made the change
+ */
+public record SeatsFreedEvent(Long tripId, List<Long> seatIds, String sessionId) {
+}
@@ -0,0 +1,38 @@
+package com.bus.reservation.service.inventory;
+
+import com.bus.reservation.model.Seat;
+
+/**
+ * Leg masks for multi-stop routes.
+ * Leg {@code i} runs from stop {@code i} to stop {@code i + 1}, so a journey
+ * from stop {@code a} to stop {@code b} is the bits {@code a} to {@code b - 1}.
+ */
+public final class TripLegs {
+
+    public static final int MAX_LEGS = 63;
+
+    private TripLegs() {
+    }
+
+    /**
+     * Every leg of a route with the given number of legs.
+     */
+    public static long all(int legs) {
+        return (1L << legs) - 1;
+    }
+
+    /**
+     * Legs travelled between two stop positions, {@code from < to}.
+     */
+    public static long span(int from, int to) {
+        return all(to) & ~all(from);
+    }
+
+    /**
+     * Legs the seat is sold on; rows booked before legs were tracked only
+     * have the flag and count as sold on all of them.
+     */
+    public static long bookedLegs(Seat seat, long allLegs) {
+        return seat.getBookedLegs() != 0 ? seat.getBookedLegs() & allLegs : seat.isBooked() ? allLegs : 0;
+    }
+}
@@ -0,0 +1,571 @@
+package com.bus.reservation.service.inventory;
+
+import com.bus.reservation.model.Seat;
+import com.bus.reservation.model.SeatHold;
+import com.bus.reservation.service.stream.SeatChange;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Compact in-memory seat state for a single trip.
+ * Seats are addressed by their position in ascending seat-id order. Booked
+ * state is a bitmap of sold legs per seat, so a seat sold for part of a
+ * multi-stop route is still free on the other legs; checking a journey is one
+ * AND with the mask of the legs it spans. Every seat also has a hold slot
+ * (owner session and expiry) that is taken with compare-and-set, so no lock is
+ * needed to hold seats.
+ */
+public class TripSeatInventory {
+
+    /**
+     * Owner and expiry of a seat hold. Slots are replaced, never mutated, so a
+     * compare-and-set on the slot array is enough to claim or release a seat.
+     */
+    record HoldSlot(String sessionId, long expiresAt) {
+
+        boolean isActive(long now) {
+            return expiresAt > now;
+        }
+    }
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final Long tripId;
+    private final LocalDateTime departureTime;
+    private final long[] seatIds;
+    private final String[] seatNumbers;
+    private final String[] seatTypes;
+    private final SeatLayout layout;
+    private final String[] stops;
+    private final long allLegs;
+    private final AtomicLongArray bookedLegs;
+    private final AtomicReferenceArray<HoldSlot> holds;
+    private final AtomicLong version = new AtomicLong();
+
+    // Tells inventories of the same trip apart after a rebuild, whose version starts again at 0
+    private final long generation = GENERATIONS.incrementAndGet();
+
+    // With shared holds, the changes other nodes had recorded on the trip when it was read
+    private volatile long sharedChanges;
+
+    TripSeatInventory(Long tripId, LocalDateTime departureTime, List<Seat> seats, List<SeatHold> activeHolds) {
+        this(tripId, departureTime, List.of(), seats, activeHolds);
+    }
+
+    /**
+     * @param stops the route's stops from source to destination; fewer than two means a single leg
+     */
+    TripSeatInventory(Long tripId, LocalDateTime departureTime, List<String> stops,
+                      List<Seat> seats, List<SeatHold> activeHolds) {
+        if (stops.size() - 1 > TripLegs.MAX_LEGS) {
+            throw new RuntimeException("Routes can have at most " + TripLegs.MAX_LEGS + " legs");
+        }
+        List<Seat> ordered = new ArrayList<>(seats);
+        ordered.sort(Comparator.comparing(Seat::getId));
+
+        this.tripId = tripId;
+        this.departureTime = departureTime;
+        this.seatIds = new long[ordered.size()];
+        this.seatNumbers = new String[ordered.size()];
+        this.seatTypes = new String[ordered.size()];
+        this.stops = stops.toArray(new String[0]);
+        this.allLegs = TripLegs.all(Math.max(1, stops.size() - 1));
+        this.bookedLegs = new AtomicLongArray(ordered.size());
+        this.holds = new AtomicReferenceArray<>(ordered.size());
+
+        for (int i = 0; i < ordered.size(); i++) {
+            Seat seat = ordered.get(i);
+            seatIds[i] = seat.getId();
+            seatNumbers[i] = seat.getSeatNumber();
+            seatTypes[i] = seat.getSeatType();
+            bookedLegs.set(i, TripLegs.bookedLegs(seat, allLegs));
+        }
+        this.layout = new SeatLayout(seatNumbers);
+
+        for (SeatHold hold : activeHolds) {
+            int index = indexOf(hold.getSeat().getId());
+            if (index >= 0) {
+                holds.set(index, new HoldSlot(hold.getSessionId(), toEpochMillis(hold.getHoldUntil())));
+            }
+        }
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    public LocalDateTime getDepartureTime() {
+        return departureTime;
+    }
+
+    public int size() {
+        return seatIds.length;
+    }
+
+    public boolean contains(Long seatId) {
+        return indexOf(seatId) >= 0;
+    }
+
+    SeatLayout getLayout() {
+        return layout;
+    }
+
+    long seatIdAt(int index) {
+        return seatIds[index];
+    }
+
+    boolean isWindowAt(int index) {
+        return "Window".equals(seatTypes[index]);
+    }
+
+    int indexOf(Long seatId) {
+        return seatId == null ? -1 : Arrays.binarySearch(seatIds, seatId);
+    }
+
+    /**
+     * Stops from source to destination, empty when the route has none recorded.
+     */
+    public List<String> getStops() {
+        return List.of(stops);
+    }
+
+    public long getAllLegs() {
+        return allLegs;
+    }
+
+    /**
+     * Legs between two stops of the route; both null means the whole route.
+     */
+    public long legMask(String fromStop, String toStop) {
+        boolean noFrom = fromStop == null || fromStop.isBlank();
+        boolean noTo = toStop == null || toStop.isBlank();
+        if (noFrom && noTo) {
+            return allLegs;
+        }
+        int from = noFrom ? 0 : stopIndex(fromStop);
+        int to = noTo ? Math.max(1, stops.length - 1) : stopIndex(toStop);
+        if (from >= to) {
+            throw new RuntimeException(stops[from] + " does not come before " + stops[to] + " on this route");
+        }
+        return TripLegs.span(from, to);
+    }
+
+    /**
+     * A stored leg mask with 0 (rows from before legs were tracked) meaning the whole route.
+     */
+    public long orAllLegs(long legMask) {
+        return legMask == 0 ? allLegs : legMask & allLegs;
+    }
+
+    private int stopIndex(String stop) {
+        for (int i = 0; i < stops.length; i++) {
+            if (stops[i].equalsIgnoreCase(stop.trim())) {
+                return i;
+            }
+        }
+        throw new RuntimeException("Stop not on this route: " + stop);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    long getSharedChanges() {
+        return sharedChanges;
+    }
+
+    void setSharedChanges(long sharedChanges) {
+        this.sharedChanges = sharedChanges;
+    }
+
+    public String getSeatNumber(Long seatId) {
+        int index = indexOf(seatId);
+        return index >= 0 ? seatNumbers[index] : null;
+    }
+
+    public boolean isBooked(Long seatId) {
+        return isBooked(seatId, allLegs);
+    }
+
+    /**
+     * Whether the seat is sold on any of the given legs.
+     */
+    public boolean isBooked(Long seatId, long legMask) {
+        int index = indexOf(seatId);
+        return index >= 0 && isBookedAt(index, legMask);
+    }
+
+    public boolean isHeld(Long seatId) {
+        int index = indexOf(seatId);
+        return index >= 0 && isHeldAt(index, System.currentTimeMillis());
+    }
+
+    public int getBookedCount() {
+        int count = 0;
+        for (int i = 0; i < seatIds.length; i++) {
+            if (bookedLegs.get(i) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getHeldCount() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (int i = 0; i < seatIds.length; i++) {
+            if (isHeldAt(i, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getAvailableCount() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (int i = 0; i < seatIds.length; i++) {
+            if (isAvailableAt(i, allLegs, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Claim every requested seat for the session, or none of them.
+     * Seats are claimed in seat-id order; on the first seat that is booked on
+     * one of the legs or actively held by someone else all slots taken so far
+     * are handed back. A hold covers the whole seat whatever its legs.
+     */
+    void tryHold(Collection<Long> ids, String sessionId, LocalDateTime holdUntil, long legMask) {
+        int[] indices = indicesOf(ids);
+        HoldSlot claim = new HoldSlot(sessionId, toEpochMillis(holdUntil));
+        long now = System.currentTimeMillis();
+
+        for (int claimed = 0; claimed < indices.length; claimed++) {
+            int index = indices[claimed];
+            HoldSlot current = holds.get(index);
+            boolean taken = current != null && current.isActive(now);
+
+            if (!taken && holds.compareAndSet(index, current, claim)) {
+                // Confirmation sets the booked bit before it clears the slot, so check after the claim
+                if (!isBookedAt(index, legMask)) {
+                    continue;
+                }
+                holds.compareAndSet(index, claim, null);
+                rollback(indices, claimed, claim);
+                throw new RuntimeException("Seat already booked: " + seatNumbers[index]);
+            }
+
+            rollback(indices, claimed, claim);
+            throw new RuntimeException("Seat is currently held: " + seatNumbers[index]);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Record a hold that was already granted elsewhere (the shared hold store),
+     * overwriting whatever the slots held.
+     */
+    void markHeld(Collection<Long> ids, String sessionId, LocalDateTime holdUntil) {
+        HoldSlot slot = new HoldSlot(sessionId, toEpochMillis(holdUntil));
+        for (Long seatId : ids) {
+            int index = indexOf(seatId);
+            if (index >= 0) {
+                holds.set(index, slot);
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    boolean release(Collection<Long> ids, String sessionId) {
+        boolean changed = false;
+        for (Long seatId : ids) {
+            int index = indexOf(seatId);
+            HoldSlot current = index >= 0 ? holds.get(index) : null;
+            if (current != null && current.sessionId().equals(sessionId)
+                    && holds.compareAndSet(index, current, null)) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            version.incrementAndGet();
+        }
+        return changed;
+    }
+
+    void markBooked(Collection<Long> ids, long legMask) {
+        boolean changed = false;
+        for (Long seatId : ids) {
+            int index = indexOf(seatId);
+            if (index >= 0) {
+                changed |= updateLegs(index, legs -> legs | legMask);
+                changed |= holds.getAndSet(index, null) != null;
+            }
+        }
+        if (changed) {
+            version.incrementAndGet();
+        }
+    }
+
+    void markCancelled(Collection<Long> ids, long legMask) {
+        boolean changed = false;
+        for (Long seatId : ids) {
+            int index = indexOf(seatId);
+            if (index >= 0) {
+                changed |= updateLegs(index, legs -> legs & ~legMask);
+            }
+        }
+        if (changed) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Seats of this trip rebuilt from the bitmap, without their trip reference.
+     */
+    public List<Seat> getSeats() {
+        return getSeats(allLegs);
+    }
+
+    /**
+     * Seats of this trip, flagged booked when sold on any of the given legs.
+     */
+    public List<Seat> getSeats(long legMask) {
+        List<Seat> seats = new ArrayList<>(seatIds.length);
+        for (int i = 0; i < seatIds.length; i++) {
+            seats.add(toSeat(i, legMask));
+        }
+        return seats;
+    }
+
+    /**
+     * Seats that are neither booked nor currently held.
+     */
+    public List<Seat> getAvailableSeats() {
+        return getAvailableSeats(allLegs);
+    }
+
+    /**
+     * Seats free on every one of the given legs and not currently held.
+     */
+    public List<Seat> getAvailableSeats(long legMask) {
+        long now = System.currentTimeMillis();
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < seatIds.length; i++) {
+            if (isAvailableAt(i, legMask, now)) {
+                seats.add(toSeat(i, legMask));
+            }
+        }
+        return seats;
+    }
+
+    public List<Long> getSeatIds() {
+        return Arrays.stream(seatIds).boxed().toList();
+    }
+
+    public List<String> getSeatNumbers() {
+        return Arrays.asList(seatNumbers.clone());
+    }
+
+    public List<String> getSeatTypes() {
+        return Arrays.asList(seatTypes.clone());
+    }
+
+    /**
+     * Seats sold on any of the given legs, one bit per seat in seat-id order.
+     */
+    public BitSet bookedSeats(long legMask) {
+        BitSet booked = new BitSet(seatIds.length);
+        for (int i = 0; i < seatIds.length; i++) {
+            if (isBookedAt(i, legMask)) {
+                booked.set(i);
+            }
+        }
+        return booked;
+    }
+
+    /**
+     * Seats with an active hold, one bit per seat in seat-id order.
+     */
+    public BitSet heldSeats() {
+        long now = System.currentTimeMillis();
+        BitSet held = new BitSet(seatIds.length);
+        for (int i = 0; i < seatIds.length; i++) {
+            if (isHeldAt(i, now)) {
+                held.set(i);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Active holds grouped per session, used to put holds loaded from the database on the expiry wheel.
+     */
+    List<HoldExpiryWheel.Expiry> activeHoldExpiries() {
+        long now = System.currentTimeMillis();
+        Map<String, List<Long>> seatIdsBySession = new HashMap<>();
+        Map<String, Long> expiryBySession = new HashMap<>();
+        for (int i = 0; i < seatIds.length; i++) {
+            HoldSlot slot = holds.get(i);
+            if (slot != null && slot.isActive(now)) {
+                seatIdsBySession.computeIfAbsent(slot.sessionId(), id -> new ArrayList<>()).add(seatIds[i]);
+                expiryBySession.merge(slot.sessionId(), slot.expiresAt(), Math::max);
+            }
+        }
+
+        List<HoldExpiryWheel.Expiry> expiries = new ArrayList<>(seatIdsBySession.size());
+        seatIdsBySession.forEach((sessionId, ids) ->
+                expiries.add(new HoldExpiryWheel.Expiry(tripId, sessionId, ids, expiryBySession.get(sessionId))));
+        return expiries;
+    }
+
+    // Same seats and stops, so the other's state can be copied slot by slot
+    boolean hasLayoutOf(TripSeatInventory other) {
+        return Arrays.equals(seatIds, other.seatIds) && Arrays.equals(stops, other.stops);
+    }
+
+    /**
+     * Take over the booked legs and holds of a fresh read of the same trip,
+     * for changes committed by other nodes. Returns the seats that changed,
+     * by kind of change; a hold that ended in a sale counts as booked only.
+     */
+    Map<SeatChange, List<Long>> adopt(TripSeatInventory fresh) {
+        long now = System.currentTimeMillis();
+        Map<SeatChange, List<Long>> changes = new EnumMap<>(SeatChange.class);
+        for (int i = 0; i < seatIds.length; i++) {
+            long legs = bookedLegs.get(i);
+            long freshLegs = fresh.bookedLegs.get(i);
+            boolean sold = (freshLegs & ~legs) != 0;
+            if (sold) {
+                changes.computeIfAbsent(SeatChange.BOOKED, change -> new ArrayList<>()).add(seatIds[i]);
+            }
+            if ((legs & ~freshLegs) != 0) {
+                changes.computeIfAbsent(SeatChange.CANCELLED, change -> new ArrayList<>()).add(seatIds[i]);
+            }
+            bookedLegs.set(i, freshLegs);
+
+            HoldSlot slot = holds.get(i);
+            HoldSlot freshSlot = fresh.holds.get(i);
+            boolean held = slot != null && slot.isActive(now);
+            if (freshSlot != null && freshSlot.isActive(now)) {
+                if (!held || !slot.sessionId().equals(freshSlot.sessionId())) {
+                    changes.computeIfAbsent(SeatChange.HELD, change -> new ArrayList<>()).add(seatIds[i]);
+                }
+                holds.set(i, freshSlot);
+            } else if (slot != null) {
+                holds.set(i, null);
+                if (held && !sold) {
+                    changes.computeIfAbsent(SeatChange.RELEASED, change -> new ArrayList<>()).add(seatIds[i]);
+                }
+            }
+        }
+        if (!changes.isEmpty()) {
+            version.incrementAndGet();
+        }
+        return changes;
+    }
+
+    List<Long> bookedDifferences(TripSeatInventory other) {
+        List<Long> mismatched = new ArrayList<>();
+        for (int i = 0; i < seatIds.length; i++) {
+            int otherIndex = other.indexOf(seatIds[i]);
+            if (otherIndex < 0 || bookedLegs.get(i) != other.bookedLegs.get(otherIndex)) {
+                mismatched.add(seatIds[i]);
+            }
+        }
+        addMissing(other, mismatched);
+        return mismatched;
+    }
+
+    List<Long> heldDifferences(TripSeatInventory other) {
+        long now = System.currentTimeMillis();
+        List<Long> mismatched = new ArrayList<>();
+        for (int i = 0; i < seatIds.length; i++) {
+            int otherIndex = other.indexOf(seatIds[i]);
+            if (otherIndex < 0 || isHeldAt(i, now) != other.isHeldAt(otherIndex, now)) {
+                mismatched.add(seatIds[i]);
+            }
+        }
+        addMissing(other, mismatched);
+        return mismatched;
+    }
+
+    private void addMissing(TripSeatInventory other, List<Long> mismatched) {
+        for (long otherSeatId : other.seatIds) {
+            if (indexOf(otherSeatId) < 0) {
+                mismatched.add(otherSeatId);
+            }
+        }
+    }
+
+    private int[] indicesOf(Collection<Long> ids) {
+        int[] indices = new int[ids.size()];
+        int n = 0;
+        for (Long seatId : ids) {
+            int index = indexOf(seatId);
+            if (index < 0) {
+                throw new RuntimeException("Seat not found: " + seatId);
+            }
+            indices[n++] = index;
+        }
+        return Arrays.stream(indices).sorted().distinct().toArray();
+    }
+
+    private void rollback(int[] indices, int claimed, HoldSlot claim) {
+        for (int i = 0; i < claimed; i++) {
+            holds.compareAndSet(indices[i], claim, null);
+        }
+    }
+
+    boolean isAvailableAt(int index, long legMask, long now) {
+        return !isBookedAt(index, legMask) && !isHeldAt(index, now);
+    }
+
+    private boolean isHeldAt(int index, long now) {
+        HoldSlot slot = holds.get(index);
+        return slot != null && slot.isActive(now);
+    }
+
+    private boolean updateLegs(int index, LongUnaryOperator update) {
+        long previous = bookedLegs.getAndUpdate(index, update);
+        return previous != update.applyAsLong(previous);
+    }
+
+    private boolean isBookedAt(int index, long legMask) {
+        return (bookedLegs.get(index) & legMask) != 0;
+    }
+
+    private Seat toSeat(int index, long legMask) {
+        return Seat.builder()
+                .id(seatIds[index])
+                .seatNumber(seatNumbers[index])
+                .seatType(seatTypes[index])
+                .isBooked(isBookedAt(index, legMask))
+                .bookedLegs(bookedLegs.get(index))
+                .build();
+    }
+
+    static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
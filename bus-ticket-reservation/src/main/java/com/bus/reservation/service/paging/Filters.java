@@ -0,0 +1,41 @@
+package com.bus.reservation.service.paging;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Optional filter parameters of the list endpoints as criteria predicates;
+ * a null or blank parameter adds nothing.
+ */
+public final class Filters {
+
+    private Filters() {
+    }
+
+    public static void equal(List<Predicate> where, CriteriaBuilder cb, Expression<?> path, Object value) {
+        if (value != null) {
+            where.add(cb.equal(path, value));
+        }
+    }
+
+    // Case-insensitive, surrounding spaces ignored
+    public static void equalIgnoringCase(List<Predicate> where, CriteriaBuilder cb, Expression<String> path, String value) {
+        if (value != null && !value.isBlank()) {
+            where.add(cb.equal(cb.lower(path), value.trim().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    public static <T extends Comparable<? super T>> void between(List<Predicate> where, CriteriaBuilder cb,
+                                                                 Expression<T> path, T from, T to) {
+        if (from != null) {
+            where.add(cb.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            where.add(cb.lessThanOrEqualTo(path, to));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bus.reservation.service.paging;
+
+import com.bus.reservation.dto.CursorPage;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for the list endpoints. A page is read with a Spring Data
+ * Window query that seeks past the sort keys of the previous page's last row,
+ * so every page costs the same however deep it is, unlike OFFSET. The keys
+ * travel to the client as an opaque cursor.
+ */
+public final class Keyset {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private Keyset() {
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (requested < 1 || requested > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return requested;
+    }
+
+    /**
+     * Where to continue from: the start for no cursor, otherwise the sort keys
+     * it carries, each parsed with the given function.
+     */
+    public static ScrollPosition position(String cursor, Map<String, Function<String, ?>> keys) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            for (String pair : decoded.split("&")) {
+                int at = pair.indexOf('=');
+                Function<String, ?> parser = at < 0 ? null : keys.get(pair.substring(0, at));
+                if (parser == null) {
+                    throw new IllegalArgumentException(pair);
+                }
+                values.put(pair.substring(0, at), parser.apply(URLDecoder.decode(pair.substring(at + 1), StandardCharsets.UTF_8)));
+            }
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (!values.keySet().equals(keys.keySet())) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        return ScrollPosition.forward(values);
+    }
+
+    // Nothing can match the filters, e.g. a city no route serves
+    public static <T> CursorPage<T> empty(int size) {
+        return CursorPage.<T>builder().items(List.of()).size(size).build();
+    }
+
+    public static <T> CursorPage<T> page(Window<T> window, int size) {
+        String next = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            next = encode(((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys());
+        }
+        return CursorPage.<T>builder()
+                .items(window.getContent())
+                .nextCursor(next)
+                .size(size)
+                .build();
+    }
+
+    private static String encode(Map<String, ?> keys) {
+        StringJoiner joined = new StringJoiner("&");
+        keys.forEach((key, value) -> joined.add(key + "=" + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,217 @@
+package com.bus.reservation.service.schedule;
+
+import com.bus.reservation.dto.BulkScheduleStatus;
+import com.bus.reservation.dto.TripScheduleRule;
+import com.bus.reservation.model.Bus;
+import com.bus.reservation.model.Route;
+import com.bus.reservation.repository.BusRepository;
+import com.bus.reservation.repository.RouteRepository;
+import com.bus.reservation.repository.SeatRepository;
+import com.bus.reservation.repository.TripRepository;
+import com.bus.reservation.service.search.CityDictionary;
+import com.bus.reservation.service.search.TripSearchIndex;
+import com.bus.reservation.service.search.TripsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Publishes many departures at once from recurrence rules.
+ * A job runs in the background, one transaction per chunk of departures: the
+ * chunk's trips go in with one multi-row INSERT and their seats with a few
+ * more, so a month for hundreds of buses takes seconds rather than one
+ * statement per seat. Departures that already exist for the bus and route are
+ * skipped, which makes re-running a range (e.g. after a failed job) safe.
+ */
+@Service
+@Slf4j
+public class TripScheduleService {
+
+    private static final int MAX_DEPARTURES_PER_RULE = 10000;
+
+    private final TripRepository tripRepository;
+    private final SeatRepository seatRepository;
+    private final BusRepository busRepository;
+    private final RouteRepository routeRepository;
+    private final TripSearchIndex tripSearchIndex;
+    private final CityDictionary cityDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    private final Map<String, BulkScheduleStatus> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-schedule");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TripScheduleService(
+            TripRepository tripRepository,
+            SeatRepository seatRepository,
+            BusRepository busRepository,
+            RouteRepository routeRepository,
+            TripSearchIndex tripSearchIndex,
+            CityDictionary cityDictionary,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.schedule.chunk-size:100}") int chunkSize) {
+        this.tripRepository = tripRepository;
+        this.seatRepository = seatRepository;
+        this.busRepository = busRepository;
+        this.routeRepository = routeRepository;
+        this.tripSearchIndex = tripSearchIndex;
+        this.cityDictionary = cityDictionary;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Validate the rules and start scheduling them in the background.
+     */
+    public BulkScheduleStatus start(List<TripScheduleRule> rules) {
+        List<PlannedRule> planned = new ArrayList<>(rules.size());
+        int total = 0;
+        for (TripScheduleRule rule : rules) {
+            PlannedRule plan = plan(rule);
+            planned.add(plan);
+            total += plan.departures().size();
+        }
+
+        BulkScheduleStatus status = BulkScheduleStatus.builder()
+                .jobId(UUID.randomUUID().toString())
+                .state("RUNNING")
+                .totalTrips(total)
+                .startedAt(LocalDateTime.now())
+                .build();
+        jobs.put(status.getJobId(), status);
+        executor.submit(() -> run(status, planned));
+        return snapshot(status);
+    }
+
+    public BulkScheduleStatus getStatus(String jobId) {
+        BulkScheduleStatus status = jobs.get(jobId);
+        if (status == null) {
+            throw new RuntimeException("Schedule job not found: " + jobId);
+        }
+        return snapshot(status);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(BulkScheduleStatus status, List<PlannedRule> planned) {
+        try {
+            for (PlannedRule plan : planned) {
+                List<LocalDateTime> departures = plan.departures();
+                for (int from = 0; from < departures.size(); from += chunkSize) {
+                    scheduleChunk(status, plan, departures.subList(from, Math.min(from + chunkSize, departures.size())));
+                }
+            }
+            finish(status, "COMPLETED", null);
+            log.info("Bulk schedule {} finished: {} trips created, {} skipped",
+                    status.getJobId(), status.getCreatedTrips(), status.getSkippedTrips());
+        } catch (Exception e) {
+            log.error("Bulk schedule {} failed: {}", status.getJobId(), e.getMessage());
+            finish(status, "FAILED", e.getMessage());
+        }
+    }
+
+    private void scheduleChunk(BulkScheduleStatus status, PlannedRule plan, List<LocalDateTime> chunk) {
+        TripScheduleRule rule = plan.rule();
+        List<Long> created = new ArrayList<>();
+        int[] counts = transactionTemplate.execute(tx -> {
+            Set<LocalDateTime> existing = new HashSet<>(tripRepository.findDepartureTimes(
+                    rule.getBusId(), rule.getRouteId(), chunk.get(0), chunk.get(chunk.size() - 1)));
+            List<LocalDateTime> missing = chunk.stream().filter(departure -> !existing.contains(departure)).toList();
+
+            Map<LocalDateTime, Long> tripIds = tripRepository.insertTrips(
+                    rule.getBusId(), rule.getRouteId(), rule.getFare(), missing, rule.getDurationMinutes());
+            created.addAll(tripIds.values());
+            int seats = seatRepository.insertSeats(new ArrayList<>(tripIds.values()), plan.seatsPerTrip());
+            return new int[]{missing.size(), chunk.size() - missing.size(), seats};
+        });
+        tripSearchIndex.putAll(created);
+        if (!created.isEmpty()) {
+            List<LocalDate> days = chunk.stream().map(LocalDateTime::toLocalDate).distinct().toList();
+            eventPublisher.publishEvent(new TripsChangedEvent(List.copyOf(created),
+                    plan.route().getSource(), plan.route().getDestination(), days));
+        }
+
+        synchronized (status) {
+            status.setCreatedTrips(status.getCreatedTrips() + counts[0]);
+            status.setSkippedTrips(status.getSkippedTrips() + counts[1]);
+            status.setCreatedSeats(status.getCreatedSeats() + counts[2]);
+        }
+    }
+
+    private PlannedRule plan(TripScheduleRule rule) {
+        if (rule.getStartDate() == null || rule.getEndDate() == null || rule.getEndDate().isBefore(rule.getStartDate())) {
+            throw new RuntimeException("Schedule needs a start date on or before its end date");
+        }
+        if (rule.getDepartureTimes() == null || rule.getDepartureTimes().isEmpty()) {
+            throw new RuntimeException("Schedule needs at least one departure time");
+        }
+        if (rule.getDurationMinutes() <= 0 || rule.getFare() == null) {
+            throw new RuntimeException("Schedule needs a positive duration and a fare");
+        }
+        Bus bus = busRepository.findById(rule.getBusId())
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
+        Route route = routeRepository.findById(rule.getRouteId())
+                .orElseThrow(() -> new RuntimeException("Route not found"));
+        if (route.getSourceCity() == null || route.getDestinationCity() == null) {
+            cityDictionary.linkRoute(route.getId());
+        }
+
+        List<LocalDateTime> departures = new ArrayList<>();
+        List<LocalTime> times = rule.getDepartureTimes().stream().distinct().sorted().toList();
+        for (LocalDate date = rule.getStartDate(); !date.isAfter(rule.getEndDate()); date = date.plusDays(1)) {
+            if (rule.getDaysOfWeek() == null || rule.getDaysOfWeek().isEmpty()
+                    || rule.getDaysOfWeek().contains(date.getDayOfWeek())) {
+                for (LocalTime time : times) {
+                    departures.add(date.atTime(time));
+                }
+            }
+            if (departures.size() > MAX_DEPARTURES_PER_RULE) {
+                throw new RuntimeException("Schedule expands to more than " + MAX_DEPARTURES_PER_RULE + " departures");
+            }
+        }
+        return new PlannedRule(rule, route, bus.getTotalSeats(), departures);
+    }
+
+    private void finish(BulkScheduleStatus status, String state, String error) {
+        synchronized (status) {
+            status.setState(state);
+            status.setError(error);
+            status.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private BulkScheduleStatus snapshot(BulkScheduleStatus status) {
+        synchronized (status) {
+            return status.toBuilder().build();
+        }
+    }
+
+    private record PlannedRule(TripScheduleRule rule, Route route, int seatsPerTrip, List<LocalDateTime> departures) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.bus.reservation.service.search;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+
+/**
+ * When trips and search keys last changed, for caches that read outside
+ * their lock: a read notes the tick it began at and keeps its result only
+ * if nothing it covers changed after that. Changes older than every read
+ * still in flight are forgotten. Not thread-safe; the owning cache calls it
+ * under its own lock.
+ */
+final class ChangeStamps {
+
+    private long clock;
+    private long clearedAt;
+    private final LinkedHashMap<Long, Long> tripChangedAt = new LinkedHashMap<>();
+    private final LinkedHashMap<TripSearchIndex.Key, Long> keyChangedAt = new LinkedHashMap<>();
+    private final TreeMap<Long, Integer> inFlight = new TreeMap<>();
+
+    // Start of a read; pass the tick back to changedSince and finish
+    long begin() {
+        inFlight.merge(clock, 1, Integer::sum);
+        return clock;
+    }
+
+    void finish(long seen) {
+        inFlight.computeIfPresent(seen, (tick, count) -> count > 1 ? count - 1 : null);
+        long oldest = inFlight.isEmpty() ? clock : inFlight.firstKey();
+        prune(tripChangedAt, oldest);
+        prune(keyChangedAt, oldest);
+    }
+
+    void changed(Collection<Long> tripIds, Collection<TripSearchIndex.Key> keys) {
+        long now = ++clock;
+        if (!inFlight.isEmpty()) {
+            tripIds.forEach(tripId -> stamp(tripChangedAt, tripId, now));
+            keys.forEach(key -> stamp(keyChangedAt, key, now));
+        }
+    }
+
+    void cleared() {
+        clearedAt = ++clock;
+    }
+
+    // Whether the key or any of the trips changed after the read began
+    boolean changedSince(long seen, TripSearchIndex.Key key, Collection<Long> tripIds) {
+        if (clearedAt > seen || keyChangedAt.getOrDefault(key, 0L) > seen) {
+            return true;
+        }
+        for (Long tripId : tripIds) {
+            if (tripChangedAt.getOrDefault(tripId, 0L) > seen) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Re-inserted so each map stays in tick order
+    private static <K> void stamp(LinkedHashMap<K, Long> changedAt, K changed, long now) {
+        changedAt.remove(changed);
+        changedAt.put(changed, now);
+    }
+
+    private static <K> void prune(LinkedHashMap<K, Long> changedAt, long oldest) {
+        Iterator<Long> ticks = changedAt.values().iterator();
+        while (ticks.hasNext() && ticks.next() <= oldest) {
+            ticks.remove();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.CityEntry;
+import com.bus.reservation.model.City;
+import com.bus.reservation.model.CityAlias;
+import com.bus.reservation.model.Route;
+import com.bus.reservation.repository.CityAliasRepository;
+import com.bus.reservation.repository.CityRepository;
+import com.bus.reservation.repository.RouteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * City names to integer ids, so routes, the trip search index and booking
+ * reports key cities by id instead of comparing free-text names. Names are
+ * folded before lookup (case, accents, spacing), so "Chennai", "chennai "
+ * and "CHENNAI" are one city, and a city can be given aliases ("Madras").
+ *
+ * Lookups are answered from an immutable in-memory snapshot, loaded on first
+ * use and replaced when a city or alias is added. Loading also links routes
+ * saved without their cities, such as routes created before the dictionary.
+ */
+@Service
+@Slf4j
+public class CityDictionary {
+
+    private final CityRepository cityRepository;
+    private final CityAliasRepository cityAliasRepository;
+    private final RouteRepository routeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // New cities and aliases commit on their own, so a rolled-back caller cannot leave the snapshot ahead of the table
+    private final TransactionTemplate ownTransaction;
+
+    // Null until loaded
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(Map<String, Long> ids, Map<Long, String> names, Map<Long, List<String>> aliases) {
+    }
+
+    public CityDictionary(
+            CityRepository cityRepository,
+            CityAliasRepository cityAliasRepository,
+            RouteRepository routeRepository,
+            TransactionTemplate transactionTemplate) {
+        this.cityRepository = cityRepository;
+        this.cityAliasRepository = cityAliasRepository;
+        this.routeRepository = routeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Id of the city with this name or alias, or null when there is none.
+     */
+    public Long resolve(String name) {
+        return loaded().ids().get(key(name));
+    }
+
+    // A filter naming a city that is not known, which nothing can match
+    public boolean isUnknown(String name) {
+        return name != null && !name.isBlank() && resolve(name) == null;
+    }
+
+    public String nameOf(Long cityId) {
+        return loaded().names().get(cityId);
+    }
+
+    /**
+     * Id of the city with this name or alias, adding the city when it is new.
+     */
+    public synchronized Long intern(String name) {
+        String key = key(name);
+        if (key.isEmpty()) {
+            throw new RuntimeException("City name is required");
+        }
+        Long known = loaded().ids().get(key);
+        if (known != null) {
+            return known;
+        }
+        City city = ownTransaction.execute(status -> cityRepository.findByNameKey(key)
+                .orElseGet(() -> cityRepository.save(City.builder().name(name.trim()).nameKey(key).build())));
+        snapshot = with(snapshot, key, city.getId(), city.getName(), null);
+        return city.getId();
+    }
+
+    public Long sourceOf(Route route) {
+        return route.getSourceCity() != null ? route.getSourceCity().getId() : intern(route.getSource());
+    }
+
+    public Long destinationOf(Route route) {
+        return route.getDestinationCity() != null ? route.getDestinationCity().getId() : intern(route.getDestination());
+    }
+
+    // As sourceOf and destinationOf, but null instead of adding a city that is not known yet
+    public Long knownSourceOf(Route route) {
+        return route.getSourceCity() != null ? route.getSourceCity().getId() : resolve(route.getSource());
+    }
+
+    public Long knownDestinationOf(Route route) {
+        return route.getDestinationCity() != null ? route.getDestinationCity().getId() : resolve(route.getDestination());
+    }
+
+    /**
+     * Point the route at its source and destination cities, unless it already
+     * does. The route is written with them when it is next saved or, if
+     * managed, flushed.
+     */
+    public void link(Route route) {
+        if (route.getSourceCity() != null && route.getDestinationCity() != null) {
+            return;
+        }
+        route.setSourceCity(cityRepository.getReferenceById(intern(route.getSource())));
+        route.setDestinationCity(cityRepository.getReferenceById(intern(route.getDestination())));
+    }
+
+    // For a saved route read outside a transaction
+    public void linkRoute(Long routeId) {
+        transactionTemplate.executeWithoutResult(status -> routeRepository.findById(routeId).ifPresent(this::link));
+    }
+
+    public List<CityEntry> getCities() {
+        Snapshot current = loaded();
+        return current.names().entrySet().stream()
+                .map(entry -> toEntry(current, entry.getKey()))
+                .sorted(Comparator.comparing(CityEntry::getName))
+                .toList();
+    }
+
+    /**
+     * Let the city be found by another name too. A name that already belongs
+     * to a different city cannot become an alias.
+     */
+    public synchronized CityEntry addAlias(Long cityId, String alias) {
+        Snapshot current = loaded();
+        if (!current.names().containsKey(cityId)) {
+            throw new RuntimeException("City not found");
+        }
+        String key = key(alias);
+        if (key.isEmpty()) {
+            throw new RuntimeException("Alias is required");
+        }
+        Long existing = current.ids().get(key);
+        if (existing != null && !existing.equals(cityId)) {
+            throw new RuntimeException("'" + alias.trim() + "' is already " + current.names().get(existing));
+        }
+        if (existing == null) {
+            try {
+                ownTransaction.executeWithoutResult(status -> cityAliasRepository.save(CityAlias.builder()
+                        .city(cityRepository.getReferenceById(cityId)).alias(alias.trim()).aliasKey(key).build()));
+            } catch (DataIntegrityViolationException e) {
+                throw new RuntimeException("'" + alias.trim() + "' is already taken");
+            }
+            snapshot = with(current, key, cityId, current.names().get(cityId), alias.trim());
+        }
+        return toEntry(snapshot, cityId);
+    }
+
+    /**
+     * Fold a name for lookup: accents dropped, case ignored, runs of spaces,
+     * hyphens, dots and underscores made one space.
+     */
+    public static String key(String name) {
+        if (name == null) {
+            return "";
+        }
+        String plain = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return plain.replaceAll("[\\s\\-_.]+", " ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Snapshot loaded() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private synchronized Snapshot load() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        Map<String, Long> ids = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, List<String>> aliases = new HashMap<>();
+        for (City city : cityRepository.findAll()) {
+            ids.put(city.getNameKey(), city.getId());
+            names.put(city.getId(), city.getName());
+        }
+        for (CityAlias alias : cityAliasRepository.findAllWithCity()) {
+            ids.put(alias.getAliasKey(), alias.getCity().getId());
+            aliases.computeIfAbsent(alias.getCity().getId(), id -> new ArrayList<>()).add(alias.getAlias());
+        }
+        snapshot = new Snapshot(ids, names, aliases);
+
+        Integer linked = transactionTemplate.execute(status -> {
+            List<Route> unlinked = routeRepository.findUnlinked();
+            unlinked.forEach(this::link);
+            return unlinked.size();
+        });
+        log.info("City dictionary loaded: {} cities, {} routes linked", names.size(), linked);
+        return snapshot;
+    }
+
+    // A copy of the snapshot with one more name (alias null) or alias for the city
+    private static Snapshot with(Snapshot current, String key, Long cityId, String name, String alias) {
+        Map<String, Long> ids = new HashMap<>(current.ids());
+        Map<Long, String> names = new HashMap<>(current.names());
+        Map<Long, List<String>> aliases = new HashMap<>(current.aliases());
+        ids.put(key, cityId);
+        names.put(cityId, name);
+        if (alias != null) {
+            List<String> cityAliases = new ArrayList<>(aliases.getOrDefault(cityId, List.of()));
+            cityAliases.add(alias);
+            aliases.put(cityId, List.copyOf(cityAliases));
+        }
+        return new Snapshot(ids, names, aliases);
+    }
+
+    private static CityEntry toEntry(Snapshot snapshot, Long cityId) {
+        return CityEntry.builder()
+                .id(cityId)
+                .name(snapshot.names().get(cityId))
+                .aliases(snapshot.aliases().getOrDefault(cityId, List.of()))
+                .build();
+    }
+}
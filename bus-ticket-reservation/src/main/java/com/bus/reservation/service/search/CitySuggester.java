@@ -0,0 +1,173 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.repository.BookingRepository;
+import com.bus.reservation.repository.RouteRepository;
+import com.bus.reservation.repository.RouteStopRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Suggestions for the city search boxes, from the sources, destinations and
+ * stops of all routes. Names are matched by prefix, of the whole name or of
+ * any word in it, after folding case, accents and common spelling variants
+ * of transliterated names ("Tiruchchirappalli" and "Thiruchirapalli" fold
+ * alike). Cities with more bookings come first.
+ *
+ * Suggestions come from an immutable trie whose every node already holds its
+ * best-ranked cities, so a lookup walks the typed prefix and returns a list.
+ * It is built on the first request and replaced when a route is added and
+ * hourly to pick up booking volume.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CitySuggester {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // Bookings that count towards a city's popularity
+    private static final List<String> BOOKED = List.of("CONFIRMED", "COMPLETED", "ARCHIVED");
+
+    private final RouteRepository routeRepository;
+    private final RouteStopRepository routeStopRepository;
+    private final BookingRepository bookingRepository;
+    private final CityDictionary cityDictionary;
+
+    // Null until the first suggestion is asked for
+    private volatile Node root;
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<String> top = new ArrayList<>();
+    }
+
+    private record City(String name, long bookings) {
+    }
+
+    /**
+     * Up to limit city names starting with the typed text, most booked first.
+     */
+    public List<String> suggest(String query, int limit) {
+        String key = fold(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root != null ? root : load();
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int count = Math.max(0, Math.min(limit, node.top.size()));
+        return List.copyOf(node.top.subList(0, count));
+    }
+
+    /**
+     * Rebuild from the current routes, if suggestions have been served already.
+     */
+    public void refresh() {
+        if (root != null) {
+            root = build();
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public void refreshPopularity() {
+        refresh();
+    }
+
+    private synchronized Node load() {
+        if (root == null) {
+            root = build();
+        }
+        return root;
+    }
+
+    private Node build() {
+        Map<String, Long> bookings = new HashMap<>();
+        Stream.concat(bookingRepository.countBySourceCity(BOOKED).stream(),
+                        bookingRepository.countByDestinationCity(BOOKED).stream())
+                .forEach(row -> bookings.merge(CityDictionary.key(cityDictionary.nameOf((Long) row[0])), (Long) row[1], Long::sum));
+
+        // One entry per city however its routes spell the case, first spelling wins
+        Map<String, City> cities = new LinkedHashMap<>();
+        Stream.concat(routeRepository.findAllCities().stream(), routeStopRepository.findAllCities().stream())
+                .filter(name -> name != null && !name.isBlank())
+                .forEach(name -> cities.putIfAbsent(CityDictionary.key(name),
+                        new City(name.trim(), bookings.getOrDefault(CityDictionary.key(name), 0L))));
+
+        Node built = new Node();
+        cities.values().stream()
+                .sorted(Comparator.comparingLong(City::bookings).reversed().thenComparing(City::name))
+                .forEach(city -> insert(built, city.name()));
+        log.info("City suggestions built for {} cities", cities.size());
+        return built;
+    }
+
+    // Cities arrive best first, so each node keeps the first MAX_SUGGESTIONS it sees
+    private static void insert(Node root, String city) {
+        String[] words = city.split("[\\s\\-]+");
+        for (int w = 0; w < words.length; w++) {
+            String key = fold(String.join(" ", List.of(words).subList(w, words.length)));
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                List<String> top = node.top;
+                if (top.size() < MAX_SUGGESTIONS && !top.contains(city)) {
+                    top.add(city);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fold a name or a typed prefix for matching: case, accents, spaces and
+     * punctuation dropped, an h after a consonant dropped (th, dh, bh, ...),
+     * w/v, z/j, y/i and q/k merged and doubled letters collapsed. Each output
+     * letter depends only on what came before it, so folding a prefix of a
+     * name gives a prefix of the folded name.
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(plain.length());
+        char previous = 0;
+        for (int i = 0; i < plain.length(); i++) {
+            char c = Character.toLowerCase(plain.charAt(i));
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            c = switch (c) {
+                case 'w' -> 'v';
+                case 'z' -> 'j';
+                case 'y' -> 'i';
+                case 'q' -> 'k';
+                default -> c;
+            };
+            boolean dropped = c == 'h' && isConsonant(previous);
+            if (!dropped && (folded.isEmpty() || folded.charAt(folded.length() - 1) != c)) {
+                folded.append(c);
+            }
+            previous = c;
+        }
+        return folded.toString();
+    }
+
+    private static boolean isConsonant(char c) {
+        return c >= 'a' && c <= 'z' && "aeiou".indexOf(c) < 0;
+    }
+}
@@ -0,0 +1,175 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.Itinerary;
+import com.bus.reservation.dto.JourneyPlan;
+import com.bus.reservation.model.Trip;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journeys that may need a change of bus, e.g. Coimbatore to Hyderabad via
+ * Bangalore. Every indexed trip is a connection from its route's source to
+ * its destination; the planner scans them once in departure order from the
+ * requested time (connection scan) and keeps, per city, the arrivals not
+ * beaten by another on time, fare and number of buses. Boarding after a
+ * previous bus needs the minimum transfer time.
+ *
+ * The timetable is TripSearchIndex's departure-ordered view, which is kept
+ * in step with every trip change, so a search touches no database and only
+ * the departures inside its window.
+ */
+@Service
+@Slf4j
+public class ConnectionPlanner {
+
+    private static final Comparator<Label> BY_ARRIVAL =
+            Comparator.comparing((Label label) -> label.arrival).thenComparingDouble(label -> label.fare);
+    private static final Comparator<Label> BY_FARE =
+            Comparator.comparingDouble((Label label) -> label.fare).thenComparing(label -> label.arrival);
+
+    private final TripSearchIndex tripSearchIndex;
+    private final CityDictionary cityDictionary;
+    private final long minTransferMinutes;
+    private final int maxLegs;
+    private final long windowHours;
+
+    public ConnectionPlanner(
+            TripSearchIndex tripSearchIndex,
+            CityDictionary cityDictionary,
+            @Value("${app.planner.min-transfer-minutes:30}") long minTransferMinutes,
+            @Value("${app.planner.max-legs:3}") int maxLegs,
+            @Value("${app.planner.window-hours:36}") long windowHours) {
+        this.tripSearchIndex = tripSearchIndex;
+        this.cityDictionary = cityDictionary;
+        this.minTransferMinutes = minTransferMinutes;
+        this.maxLegs = maxLegs;
+        this.windowHours = windowHours;
+    }
+
+    // Reached a city: by taking trip after the previous label, or the origin itself when trip is null
+    private record Label(Trip trip, Label previous, LocalDateTime arrival, double fare, int legs) {
+    }
+
+    /**
+     * Journeys from source to destination leaving at or after the given time,
+     * with the earliest arrival and the cheapest picked out.
+     */
+    public JourneyPlan plan(String source, String destination, LocalDateTime after) {
+        String originKey = CityDictionary.key(source);
+        String targetKey = CityDictionary.key(destination);
+        Long origin = cityDictionary.resolve(source);
+        Long target = cityDictionary.resolve(destination);
+        if (originKey.isEmpty() || targetKey.isEmpty() || originKey.equals(targetKey)
+                || (origin != null && origin.equals(target))) {
+            throw new RuntimeException("Source and destination must be two different cities");
+        }
+
+        long started = System.nanoTime();
+        Map<Long, List<Label>> reached = new HashMap<>();
+        List<Label> arrivals = new ArrayList<>();
+        // A city no route serves has no journeys
+        if (origin != null && target != null) {
+            reached.put(origin, new ArrayList<>(List.of(new Label(null, null, after, 0.0, 0))));
+            reached.put(target, arrivals);
+        }
+
+        Iterable<Trip> timetable = reached.isEmpty() ? List.of() : tripSearchIndex.departures(after, after.plusHours(windowHours));
+        for (Trip trip : timetable) {
+            // Routes whose cities are not in the dictionary yet, and trips without an arrival, lead nowhere
+            Long from = cityDictionary.knownSourceOf(trip.getRoute());
+            Long to = cityDictionary.knownDestinationOf(trip.getRoute());
+            if (from == null || to == null || from.equals(to) || trip.getArrivalTime() == null
+                    || from.equals(target) || to.equals(origin)) {
+                continue;
+            }
+            List<Label> waiting = reached.get(from);
+            if (waiting == null) {
+                continue;
+            }
+
+            double fare = trip.getFare() == null ? 0.0 : trip.getFare();
+            for (Label boarding : boardings(waiting, trip.getDepartureTime())) {
+                Label label = new Label(trip, boarding, trip.getArrivalTime(), boarding.fare + fare, boarding.legs + 1);
+                // Anything already beaten by a journey to the destination cannot lead to a better one
+                if (!to.equals(target) && dominated(arrivals, label)) {
+                    continue;
+                }
+                insert(reached.computeIfAbsent(to, city -> new ArrayList<>()), label);
+            }
+        }
+
+        List<Itinerary> options = arrivals.stream().sorted(BY_ARRIVAL).map(ConnectionPlanner::toItinerary).toList();
+        long micros = (System.nanoTime() - started) / 1000;
+        log.debug("Planned {} -> {}: {} options in {} us", source, destination, options.size(), micros);
+        return JourneyPlan.builder()
+                .source(source)
+                .destination(destination)
+                .earliestArrival(arrivals.stream().min(BY_ARRIVAL).map(ConnectionPlanner::toItinerary).orElse(null))
+                .cheapest(arrivals.stream().min(BY_FARE).map(ConnectionPlanner::toItinerary).orElse(null))
+                .options(options)
+                .searchMicros(micros)
+                .build();
+    }
+
+    // Every way to be at the city in time for a departure with a leg to spare. The
+    // cheapest is not enough: a dearer arrival on fewer buses may be the only one
+    // with legs left for the rest of the journey.
+    private List<Label> boardings(List<Label> waiting, LocalDateTime departure) {
+        List<Label> boardings = new ArrayList<>();
+        for (Label label : waiting) {
+            if (label.legs >= maxLegs) {
+                continue;
+            }
+            LocalDateTime ready = label.trip == null ? label.arrival : label.arrival.plusMinutes(minTransferMinutes);
+            if (!ready.isAfter(departure)) {
+                boardings.add(label);
+            }
+        }
+        return boardings;
+    }
+
+    private static boolean dominated(List<Label> labels, Label label) {
+        for (Label other : labels) {
+            if (!other.arrival.isAfter(label.arrival) && other.fare <= label.fare && other.legs <= label.legs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keep the label unless another arrives no later, for no more and on no more buses
+    private static void insert(List<Label> labels, Label label) {
+        if (dominated(labels, label)) {
+            return;
+        }
+        labels.removeIf(other -> !label.arrival.isAfter(other.arrival) && label.fare <= other.fare && label.legs <= other.legs);
+        labels.add(label);
+    }
+
+    private static Itinerary toItinerary(Label arrival) {
+        Deque<Trip> legs = new ArrayDeque<>();
+        for (Label label = arrival; label.trip != null; label = label.previous) {
+            legs.addFirst(label.trip);
+        }
+        LocalDateTime departure = legs.getFirst().getDepartureTime();
+        return Itinerary.builder()
+                .legs(List.copyOf(legs))
+                .departureTime(departure)
+                .arrivalTime(arrival.arrival)
+                .durationMinutes(Duration.between(departure, arrival.arrival).toMinutes())
+                .totalFare(arrival.fare)
+                .transfers(legs.size() - 1)
+                .build();
+    }
+}
@@ -0,0 +1,249 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.FareCalendar;
+import com.bus.reservation.dto.FareCalendarDay;
+import com.bus.reservation.model.Trip;
+import com.bus.reservation.service.inventory.SeatCounts;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cheapest fare and free seats per day for a city pair, so a month of prices
+ * is one request instead of a search per day. Each day keeps the fare and
+ * free seats of its trips; seat changes update the trip in place from the
+ * seat inventory, counted outside the lock, and scheduling, moving or deleting a trip drops the days
+ * involved to be read again from TripSearchIndex on the next request.
+ * A day's trips are an immutable map, replaced on every change, so a
+ * request can total them outside the lock.
+ *
+ * Days are held least recently used first and bounded in number.
+ */
+@Service
+public class FareCalendarIndex {
+
+    public static final int DEFAULT_DAYS = 30;
+    public static final int MAX_DAYS = 90;
+
+    private final TripSearchIndex tripSearchIndex;
+    private final SeatInventoryService seatInventoryService;
+    private final int maxEntries;
+
+    // Guarded by this, as is dayOfTrip
+    private final LinkedHashMap<TripSearchIndex.Key, Map<Long, TripFare>> days = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TripSearchIndex.Key, Map<Long, TripFare>> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            eldest.getValue().keySet().forEach(tripId -> dayOfTrip.remove(tripId, eldest.getKey()));
+            return true;
+        }
+    };
+    private final Map<Long, TripSearchIndex.Key> dayOfTrip = new HashMap<>();
+
+    // A day read while one of its trips or the day itself changed is not kept
+    private final ChangeStamps changes = new ChangeStamps();
+
+    private record TripFare(double fare, int available) {
+    }
+
+    public FareCalendarIndex(
+            TripSearchIndex tripSearchIndex,
+            SeatInventoryService seatInventoryService,
+            @Value("${app.search.fare-calendar.max-days:100000}") int maxEntries) {
+        this.tripSearchIndex = tripSearchIndex;
+        this.seatInventoryService = seatInventoryService;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * The cheapest bookable fare and free seats for each of the given number
+     * of days from the first one.
+     */
+    public FareCalendar calendar(String source, String destination, LocalDate first, int count) {
+        if (count < 1 || count > MAX_DAYS) {
+            throw new RuntimeException("Days must be between 1 and " + MAX_DAYS);
+        }
+        long started = System.nanoTime();
+        // Null when a city is not known; every day is then empty and nothing is kept
+        TripSearchIndex.Key pair = tripSearchIndex.keyFor(source, destination, first);
+
+        Map<LocalDate, Map<Long, TripFare>> found = new LinkedHashMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        long seen;
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                LocalDate day = first.plusDays(i);
+                Map<Long, TripFare> trips = pair == null ? Map.of() : days.get(dayOf(pair, day));
+                found.put(day, trips);
+                if (trips == null) {
+                    missing.add(day);
+                }
+            }
+            seen = changes.begin();
+        }
+
+        try {
+            if (!missing.isEmpty()) {
+                Map<LocalDate, Map<Long, TripFare>> read = read(source, destination, missing);
+                found.putAll(read);
+                synchronized (this) {
+                    read.forEach((day, trips) -> {
+                        if (!changes.changedSince(seen, dayOf(pair, day), trips.keySet())) {
+                            keep(dayOf(pair, day), trips);
+                        }
+                    });
+                }
+            }
+        } finally {
+            synchronized (this) {
+                changes.finish(seen);
+            }
+        }
+
+        List<FareCalendarDay> calendar = found.entrySet().stream()
+                .map(entry -> toDay(entry.getKey(), entry.getValue()))
+                .toList();
+        return FareCalendar.builder()
+                .source(source)
+                .destination(destination)
+                .days(calendar)
+                .cheapestDay(calendar.stream()
+                        .filter(day -> day.getMinFare() != null)
+                        .min(Comparator.comparingDouble(FareCalendarDay::getMinFare))
+                        .map(FareCalendarDay::getDate)
+                        .orElse(null))
+                .searchMicros((System.nanoTime() - started) / 1000)
+                .build();
+    }
+
+    // The recount may read the database when the trip's inventory is not
+    // cached, so it runs outside the lock; a later change's recount wins
+    @EventListener
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        Long tripId = event.tripId();
+        TripSearchIndex.Key key;
+        long seen;
+        synchronized (this) {
+            changes.changed(List.of(tripId), List.of());
+            key = dayOfTrip.get(tripId);
+            if (key == null) {
+                return;
+            }
+            seen = changes.begin();
+        }
+        try {
+            SeatCounts counts = seatInventoryService.countSeats(List.of(tripId)).getOrDefault(tripId, SeatCounts.NONE);
+            synchronized (this) {
+                Map<Long, TripFare> trips = days.get(key);
+                if (trips != null && trips.containsKey(tripId) && !changes.changedSince(seen, key, List.of(tripId))) {
+                    Map<Long, TripFare> updated = new HashMap<>(trips);
+                    updated.computeIfPresent(tripId, (id, fare) -> new TripFare(fare.fare(), counts.available()));
+                    days.put(key, Map.copyOf(updated));
+                }
+            }
+        } finally {
+            synchronized (this) {
+                changes.finish(seen);
+            }
+        }
+    }
+
+    // After commit, so a request cannot read the trips as they were before the change
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTripsChanged(TripsChangedEvent event) {
+        TripSearchIndex.Key pair = tripSearchIndex.keyFor(event.source(), event.destination(), LocalDate.MIN);
+        List<TripSearchIndex.Key> changedDays = pair == null ? List.of()
+                : event.days().stream().map(day -> dayOf(pair, day)).toList();
+        changes.changed(event.tripIds(), changedDays);
+        for (Long tripId : event.tripIds()) {
+            TripSearchIndex.Key key = dayOfTrip.get(tripId);
+            if (key != null) {
+                drop(key);
+            }
+        }
+        changedDays.forEach(this::drop);
+    }
+
+    /**
+     * Drop departure days that have passed
+     */
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public synchronized void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        List.copyOf(days.keySet()).stream()
+                .filter(key -> key.day().isBefore(today))
+                .forEach(this::drop);
+    }
+
+    public synchronized void clear() {
+        changes.cleared();
+        days.clear();
+        dayOfTrip.clear();
+    }
+
+    // The missing days' trips from the index in one range, their seats counted in one go
+    private Map<LocalDate, Map<Long, TripFare>> read(String source, String destination, List<LocalDate> missing) {
+        LocalDate first = missing.get(0);
+        LocalDate last = missing.get(missing.size() - 1);
+        List<Trip> trips = tripSearchIndex.search(source, destination, first.atStartOfDay(), last.atTime(23, 59, 59)).stream()
+                .filter(trip -> missing.contains(trip.getDepartureTime().toLocalDate()))
+                .toList();
+        Map<Long, SeatCounts> counts = seatInventoryService.countSeats(trips.stream().map(Trip::getId).toList());
+
+        Map<LocalDate, Map<Long, TripFare>> read = new LinkedHashMap<>();
+        missing.forEach(day -> read.put(day, new HashMap<>()));
+        for (Trip trip : trips) {
+            double fare = trip.getFare() == null ? 0.0 : trip.getFare();
+            int available = counts.getOrDefault(trip.getId(), SeatCounts.NONE).available();
+            read.get(trip.getDepartureTime().toLocalDate()).put(trip.getId(), new TripFare(fare, available));
+        }
+        return read;
+    }
+
+    private void keep(TripSearchIndex.Key key, Map<Long, TripFare> trips) {
+        days.put(key, Map.copyOf(trips));
+        trips.keySet().forEach(tripId -> dayOfTrip.put(tripId, key));
+    }
+
+    private void drop(TripSearchIndex.Key key) {
+        Map<Long, TripFare> trips = days.remove(key);
+        if (trips != null) {
+            trips.keySet().forEach(tripId -> dayOfTrip.remove(tripId, key));
+        }
+    }
+
+    private static TripSearchIndex.Key dayOf(TripSearchIndex.Key pair, LocalDate day) {
+        return new TripSearchIndex.Key(pair.source(), pair.destination(), day);
+    }
+
+    private static FareCalendarDay toDay(LocalDate date, Map<Long, TripFare> trips) {
+        Double minFare = null;
+        int available = 0;
+        for (TripFare fare : trips.values()) {
+            available += fare.available();
+            if (fare.available() > 0 && (minFare == null || fare.fare() < minFare)) {
+                minFare = fare.fare();
+            }
+        }
+        return FareCalendarDay.builder()
+                .date(date)
+                .minFare(minFare)
+                .trips(trips.size())
+                .availableSeats(available)
+                .build();
+    }
+}
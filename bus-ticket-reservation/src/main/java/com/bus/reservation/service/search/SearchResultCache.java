@@ -0,0 +1,223 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.SearchCacheStats;
+import com.bus.reservation.dto.TripSearchResult;
+import com.bus.reservation.model.Trip;
+import com.bus.reservation.service.inventory.SeatCounts;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Results of day searches for a city pair, with seat availability per trip,
+ * so the same search repeated in peak season is answered without touching
+ * the index or the seat inventories again.
+ *
+ * Entries are dropped exactly when something in them changes: a seat of one
+ * of their trips (SeatsChangedEvent), or a trip scheduled into, moved out of
+ * or deleted from them (TripsChangedEvent). There is no expiry time. The
+ * cache is bounded by the number of trips it holds and drops the least
+ * recently used searches first. Results are held as TripColumns, ready for
+ * TripFacetSearch to filter and sort.
+ */
+@Service
+public class SearchResultCache {
+
+    private final TripSearchIndex tripSearchIndex;
+    private final SeatInventoryService seatInventoryService;
+    private final long maxWeight;
+
+    // Guarded by this; iteration order is least recently used first
+    private final LinkedHashMap<TripSearchIndex.Key, TripColumns> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<TripSearchIndex.Key>> keysByTrip = new HashMap<>();
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    // A search is not cached if its own trips or key changed while it ran
+    private final ChangeStamps changes = new ChangeStamps();
+
+    public SearchResultCache(
+            TripSearchIndex tripSearchIndex,
+            SeatInventoryService seatInventoryService,
+            @Value("${app.search.cache.max-trips:20000}") long maxWeight) {
+        this.tripSearchIndex = tripSearchIndex;
+        this.seatInventoryService = seatInventoryService;
+        this.maxWeight = Math.max(1, maxWeight);
+    }
+
+    /**
+     * Trips from source to destination departing on the day, in departure
+     * order, with their free seats.
+     */
+    public List<TripSearchResult> search(String source, String destination, LocalDate day) {
+        return columns(source, destination, day).results;
+    }
+
+    // The same search in columns, for filtering and sorting it
+    TripColumns columns(String source, String destination, LocalDate day) {
+        TripSearchIndex.Key key = tripSearchIndex.keyFor(source, destination, day);
+        if (key == null) {
+            return new TripColumns(List.of());
+        }
+        long seen;
+        synchronized (this) {
+            TripColumns cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            seen = changes.begin();
+        }
+
+        TripColumns columns = null;
+        try {
+            columns = new TripColumns(toResults(
+                    tripSearchIndex.search(source, destination, day.atStartOfDay(), day.atTime(23, 59, 59))));
+            return columns;
+        } finally {
+            synchronized (this) {
+                if (columns != null && !changes.changedSince(seen, key, tripIdsOf(columns)) && !entries.containsKey(key)) {
+                    entries.put(key, columns);
+                    columns.results.forEach(result -> keysByTrip.computeIfAbsent(result.getTripId(), id -> new HashSet<>()).add(key));
+                    weight += weightOf(columns);
+                    evictOverflow();
+                }
+                changes.finish(seen);
+            }
+        }
+    }
+
+    /**
+     * Search results for the trips, uncached: trip, bus and route fields with
+     * seat counts taken in one go for all of them.
+     */
+    public List<TripSearchResult> toResults(List<Trip> trips) {
+        Map<Long, SeatCounts> counts = seatInventoryService.countSeats(trips.stream().map(Trip::getId).toList());
+        return trips.stream()
+                .map(trip -> toResult(trip, counts.getOrDefault(trip.getId(), SeatCounts.NONE)))
+                .toList();
+    }
+
+    @EventListener
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        invalidateTrips(List.of(event.tripId()), List.of());
+    }
+
+    // After commit, so a search cannot cache the trips as they were before the change
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripsChanged(TripsChangedEvent event) {
+        List<TripSearchIndex.Key> keys = event.days().stream()
+                .map(day -> tripSearchIndex.keyFor(event.source(), event.destination(), day))
+                .filter(Objects::nonNull)
+                .toList();
+        invalidateTrips(event.tripIds(), keys);
+    }
+
+    public synchronized void clear() {
+        changes.cleared();
+        invalidations += entries.size();
+        entries.clear();
+        keysByTrip.clear();
+        weight = 0;
+    }
+
+    public synchronized SearchCacheStats getStats() {
+        long lookups = hits + misses;
+        return SearchCacheStats.builder()
+                .entries(entries.size())
+                .weight(weight)
+                .maxWeight(maxWeight)
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .hitRate(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    // Drop the searches the trips are in, and the searches they now belong to
+    private synchronized void invalidateTrips(List<Long> tripIds, List<TripSearchIndex.Key> keys) {
+        changes.changed(tripIds, keys);
+        for (Long tripId : tripIds) {
+            Set<TripSearchIndex.Key> containing = keysByTrip.get(tripId);
+            if (containing != null) {
+                List.copyOf(containing).forEach(key -> invalidations += remove(key) ? 1 : 0);
+            }
+        }
+        keys.forEach(key -> invalidations += remove(key) ? 1 : 0);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<TripSearchIndex.Key, TripColumns>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Map.Entry<TripSearchIndex.Key, TripColumns> entry = eldest.next();
+            eldest.remove();
+            forget(entry.getKey(), entry.getValue());
+            evictions++;
+        }
+    }
+
+    private boolean remove(TripSearchIndex.Key key) {
+        TripColumns columns = entries.remove(key);
+        if (columns == null) {
+            return false;
+        }
+        forget(key, columns);
+        return true;
+    }
+
+    private void forget(TripSearchIndex.Key key, TripColumns columns) {
+        weight -= weightOf(columns);
+        for (TripSearchResult result : columns.results) {
+            Long tripId = result.getTripId();
+            Set<TripSearchIndex.Key> keys = keysByTrip.get(tripId);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTrip.remove(tripId);
+            }
+        }
+    }
+
+    private static TripSearchResult toResult(Trip trip, SeatCounts counts) {
+        return TripSearchResult.builder()
+                .tripId(trip.getId())
+                .departureTime(trip.getDepartureTime())
+                .arrivalTime(trip.getArrivalTime())
+                .fare(trip.getFare())
+                .busId(trip.getBus().getId())
+                .busNumber(trip.getBus().getBusNumber())
+                .busType(trip.getBus().getBusType())
+                .operatorName(trip.getBus().getOperatorName())
+                .routeId(trip.getRoute().getId())
+                .source(trip.getRoute().getSource())
+                .destination(trip.getRoute().getDestination())
+                .availableSeats(counts.available())
+                .totalSeats(counts.total())
+                .build();
+    }
+
+    private static List<Long> tripIdsOf(TripColumns columns) {
+        return columns.results.stream().map(TripSearchResult::getTripId).toList();
+    }
+
+    // Empty searches still take a slot
+    private static long weightOf(TripColumns columns) {
+        return columns.size() + 1L;
+    }
+}
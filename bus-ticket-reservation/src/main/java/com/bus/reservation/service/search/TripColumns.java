@@ -0,0 +1,66 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.TripSearchResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One day's search results for a city pair laid out a column per field, so
+ * filtering and sorting them reads primitive arrays. Rows are in departure
+ * order. Bus types and operators are coded by order of first appearance;
+ * a missing name is coded as UNSPECIFIED.
+ */
+final class TripColumns {
+
+    static final String UNSPECIFIED = "Unspecified";
+
+    final List<TripSearchResult> results;
+    final double[] fares;
+    final int[] departureMinutes;    // Minute of the day
+    final int[] durationMinutes;
+    final int[] busTypes;            // Index into busTypeNames
+    final int[] operators;           // Index into operatorNames
+    final int[] availableSeats;
+    final List<String> busTypeNames = new ArrayList<>();
+    final List<String> operatorNames = new ArrayList<>();
+
+    TripColumns(List<TripSearchResult> results) {
+        int size = results.size();
+        this.results = results;
+        fares = new double[size];
+        departureMinutes = new int[size];
+        durationMinutes = new int[size];
+        busTypes = new int[size];
+        operators = new int[size];
+        availableSeats = new int[size];
+
+        Map<String, Integer> busTypeCodes = new HashMap<>();
+        Map<String, Integer> operatorCodes = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            TripSearchResult result = results.get(row);
+            fares[row] = result.getFare() == null ? 0.0 : result.getFare();
+            departureMinutes[row] = result.getDepartureTime().getHour() * 60 + result.getDepartureTime().getMinute();
+            durationMinutes[row] = result.getArrivalTime() == null ? 0
+                    : (int) Duration.between(result.getDepartureTime(), result.getArrivalTime()).toMinutes();
+            busTypes[row] = code(busTypeCodes, busTypeNames, result.getBusType());
+            operators[row] = code(operatorCodes, operatorNames, result.getOperatorName());
+            availableSeats[row] = result.getAvailableSeats();
+        }
+    }
+
+    int size() {
+        return results.size();
+    }
+
+    private static int code(Map<String, Integer> codes, List<String> names, String name) {
+        String key = name == null || name.isBlank() ? UNSPECIFIED : name.trim();
+        return codes.computeIfAbsent(key, k -> {
+            names.add(k);
+            return names.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.TripFacets;
+import com.bus.reservation.dto.TripFilter;
+import com.bus.reservation.dto.TripSearchResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Filter, sort and facet counts over one day's trips for a city pair: bus
+ * type, operator, departure window, fare band and free seats. Works on the
+ * TripColumns held by SearchResultCache, so nothing is read from the
+ * database for a cached day and no value is boxed per trip.
+ *
+ * Each facet counts the trips that pass every filter except its own, so a
+ * client can show how many trips picking another value would give.
+ */
+@Service
+@RequiredArgsConstructor
+public class TripFacetSearch {
+
+    private static final int BUS_TYPE = 1;
+    private static final int OPERATOR = 1 << 1;
+    private static final int DEPARTURE = 1 << 2;
+    private static final int FARE = 1 << 3;
+    private static final int SEATS = 1 << 4;
+    private static final int ALL = BUS_TYPE | OPERATOR | DEPARTURE | FARE | SEATS;
+
+    // Sort keys carry the row in their low bits
+    private static final int ROW_BITS = 20;
+
+    private final SearchResultCache searchResultCache;
+
+    public TripFacets search(TripFilter filter) {
+        if (filter.getSource() == null || filter.getDestination() == null || filter.getDate() == null) {
+            throw new RuntimeException("Source, destination and date are required");
+        }
+        String sort = filter.getSort() == null ? "departure" : filter.getSort().trim().toLowerCase(Locale.ROOT);
+        if (!List.of("departure", "fare", "duration").contains(sort)) {
+            throw new RuntimeException("Sort must be departure, fare or duration");
+        }
+
+        long started = System.nanoTime();
+        TripColumns columns = searchResultCache.columns(filter.getSource(), filter.getDestination(), filter.getDate());
+        boolean[] busTypes = selected(columns.busTypeNames, filter.getBusTypes());
+        boolean[] operators = selected(columns.operatorNames, filter.getOperators());
+        int after = minuteOf(filter.getDepartAfter(), 0);
+        int before = minuteOf(filter.getDepartBefore(), 24 * 60);
+        double minFare = filter.getMinFare() == null ? Double.NEGATIVE_INFINITY : filter.getMinFare();
+        double maxFare = filter.getMaxFare() == null ? Double.POSITIVE_INFINITY : filter.getMaxFare();
+        int minSeats = filter.getMinSeats() == null ? 0 : filter.getMinSeats();
+
+        int size = columns.size();
+        int[] busTypeCounts = new int[columns.busTypeNames.size()];
+        int[] operatorCounts = new int[columns.operatorNames.size()];
+        long[] keys = new long[size];
+        int matched = 0;
+        double lowest = Double.POSITIVE_INFINITY;
+        double highest = Double.NEGATIVE_INFINITY;
+
+        for (int row = 0; row < size; row++) {
+            int passed = 0;
+            if (busTypes == null || busTypes[columns.busTypes[row]]) {
+                passed |= BUS_TYPE;
+            }
+            if (operators == null || operators[columns.operators[row]]) {
+                passed |= OPERATOR;
+            }
+            int departure = columns.departureMinutes[row];
+            if (departure >= after && departure <= before) {
+                passed |= DEPARTURE;
+            }
+            double fare = columns.fares[row];
+            if (fare >= minFare && fare <= maxFare) {
+                passed |= FARE;
+            }
+            if (columns.availableSeats[row] >= minSeats) {
+                passed |= SEATS;
+            }
+
+            if ((passed | BUS_TYPE) == ALL) {
+                busTypeCounts[columns.busTypes[row]]++;
+            }
+            if ((passed | OPERATOR) == ALL) {
+                operatorCounts[columns.operators[row]]++;
+            }
+            if ((passed | FARE) == ALL) {
+                lowest = Math.min(lowest, fare);
+                highest = Math.max(highest, fare);
+            }
+            if (passed == ALL) {
+                keys[matched++] = sortKey(columns, sort, row);
+            }
+        }
+
+        // Rows are in departure order already, and ties keep it
+        long[] order = Arrays.copyOf(keys, matched);
+        Arrays.sort(order);
+        List<TripSearchResult> results = new ArrayList<>(matched);
+        for (long key : order) {
+            results.add(columns.results.get((int) (key & ((1 << ROW_BITS) - 1))));
+        }
+
+        return TripFacets.builder()
+                .results(results)
+                .totalTrips(size)
+                .busTypes(counts(columns.busTypeNames, busTypeCounts))
+                .operators(counts(columns.operatorNames, operatorCounts))
+                .minFare(lowest == Double.POSITIVE_INFINITY ? null : lowest)
+                .maxFare(highest == Double.NEGATIVE_INFINITY ? null : highest)
+                .searchMicros((System.nanoTime() - started) / 1000)
+                .build();
+    }
+
+    private static long sortKey(TripColumns columns, String sort, int row) {
+        long value = switch (sort) {
+            case "fare" -> Math.max(0, Math.round(columns.fares[row] * 100));
+            case "duration" -> Math.max(0, columns.durationMinutes[row]);
+            default -> 0;
+        };
+        return value << ROW_BITS | row;
+    }
+
+    // Null when not filtered on; otherwise which codes were asked for
+    private static boolean[] selected(List<String> names, List<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return null;
+        }
+        boolean[] selected = new boolean[names.size()];
+        for (int code = 0; code < names.size(); code++) {
+            String name = names.get(code);
+            selected[code] = wanted.stream().anyMatch(value -> value != null && value.trim().equalsIgnoreCase(name));
+        }
+        return selected;
+    }
+
+    private static int minuteOf(LocalTime time, int otherwise) {
+        return time == null ? otherwise : time.getHour() * 60 + time.getMinute();
+    }
+
+    private static Map<String, Integer> counts(List<String> names, int[] counts) {
+        Map<String, Integer> facet = new LinkedHashMap<>();
+        for (int code = 0; code < names.size(); code++) {
+            facet.put(names.get(code), counts[code]);
+        }
+        return facet;
+    }
+}
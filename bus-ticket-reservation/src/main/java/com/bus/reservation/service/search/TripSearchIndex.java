@@ -0,0 +1,312 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.SearchIndexReport;
+import com.bus.reservation.model.Trip;
+import com.bus.reservation.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of upcoming trips for search, so the search endpoints do
+ * not join trips to routes for every request. Trips are bucketed by (source
+ * city id, destination city id, departure day) with each bucket sorted
+ * by departure time; a search looks up one bucket per day and scans only the
+ * departures inside its window.
+ *
+ * Buckets are immutable lists replaced on every change, so searches never
+ * lock. The index is loaded on the first search and kept in step by
+ * TripService and TripScheduleService after their transactions commit.
+ * Departures before the start of the day the index was loaded (moved forward
+ * hourly) are not indexed and are searched in the database.
+ *
+ * The same trips are also kept in one departure-ordered timetable across all
+ * city pairs, which ConnectionPlanner scans for journeys with a change of bus.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TripSearchIndex {
+
+    private static final Comparator<Trip> BY_DEPARTURE =
+            Comparator.comparing(Trip::getDepartureTime).thenComparing(Trip::getId);
+
+    private final TripRepository tripRepository;
+    private final CityDictionary cityDictionary;
+
+    private final Map<Key, List<Trip>> buckets = new ConcurrentHashMap<>();
+    private final Map<Long, Trip> trips = new ConcurrentHashMap<>();
+    private final NavigableSet<Trip> timetable = new ConcurrentSkipListSet<>(BY_DEPARTURE);
+
+    // Null until loaded; departures from here on are indexed
+    private volatile LocalDateTime indexedFrom;
+
+    record Key(Long source, Long destination, LocalDate day) {
+    }
+
+    /**
+     * Key of the day's trips between two cities named in a request, or null
+     * when either city is not known, so there can be no trips.
+     */
+    Key keyFor(String source, String destination, LocalDate day) {
+        Long sourceId = cityDictionary.resolve(source);
+        Long destinationId = cityDictionary.resolve(destination);
+        return sourceId == null || destinationId == null ? null : new Key(sourceId, destinationId, day);
+    }
+
+    /**
+     * Trips from source to destination departing within [from, to], in departure order.
+     */
+    public List<Trip> search(String source, String destination, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime indexed = ensureLoaded();
+        Long sourceId = cityDictionary.resolve(source);
+        Long destinationId = cityDictionary.resolve(destination);
+        if (sourceId == null || destinationId == null) {
+            return List.of();
+        }
+        if (from.isBefore(indexed)) {
+            return tripRepository.findByCitiesAndDepartureTimeBetween(sourceId, destinationId, from, to);
+        }
+
+        List<Trip> found = new ArrayList<>();
+        for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+            List<Trip> bucket = buckets.get(new Key(sourceId, destinationId, day));
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = firstDepartingAtOrAfter(bucket, from);
+                 i < bucket.size() && !bucket.get(i).getDepartureTime().isAfter(to); i++) {
+                found.add(bucket.get(i));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * All indexed trips departing within [from, to], in departure order, as a
+     * live view. Departures before the indexed range are left out.
+     */
+    public NavigableSet<Trip> departures(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime indexed = ensureLoaded();
+        LocalDateTime start = from.isBefore(indexed) ? indexed : from;
+        if (start.isAfter(to)) {
+            return Collections.emptyNavigableSet();
+        }
+        return timetable.subSet(probe(start, Long.MIN_VALUE), true, probe(to, Long.MAX_VALUE), true);
+    }
+
+    /**
+     * Add or move a trip once the surrounding transaction commits.
+     */
+    public void put(Trip trip) {
+        Trip copy = copyOf(trip);
+        afterCommit(() -> apply(copy.getId(), copy));
+    }
+
+    /**
+     * Index trips inserted without entities (bulk scheduling), after they are committed.
+     */
+    public void putAll(List<Long> tripIds) {
+        if (tripIds.isEmpty() || indexedFrom == null) {
+            return;
+        }
+        tripRepository.findAllByIdWithBusAndRoute(tripIds).forEach(trip -> apply(trip.getId(), copyOf(trip)));
+    }
+
+    public void remove(Long tripId) {
+        afterCommit(() -> apply(tripId, null));
+    }
+
+    public SearchIndexReport getReport() {
+        ensureLoaded();
+        return report().build();
+    }
+
+    // Admin: drop the index and load it again from the database
+    public synchronized SearchIndexReport rebuild() {
+        buckets.clear();
+        trips.clear();
+        timetable.clear();
+        indexedFrom = null;
+        return getReport();
+    }
+
+    // Admin: compare the index with a fresh read of the database
+    public synchronized SearchIndexReport verify() {
+        LocalDateTime from = ensureLoaded();
+        Map<Long, Trip> fresh = tripRepository.findUpcomingWithBusAndRoute(from).stream()
+                .collect(Collectors.toMap(Trip::getId, trip -> trip));
+
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        fresh.forEach((id, trip) -> {
+            Trip indexed = trips.get(id);
+            if (indexed == null) {
+                missing.add(id);
+            } else if (!sameEntry(indexed, trip)) {
+                stale.add(id);
+            }
+        });
+        trips.keySet().stream().filter(id -> !fresh.containsKey(id)).forEach(stale::add);
+
+        boolean consistent = missing.isEmpty() && stale.isEmpty();
+        if (!consistent) {
+            log.warn("Trip search index is out of step: {} missing and {} stale trips", missing.size(), stale.size());
+        }
+        return report()
+                .consistent(consistent)
+                .databaseTrips(fresh.size())
+                .missingTrips(missing.stream().sorted().toList())
+                .staleTrips(stale.stream().sorted().toList())
+                .build();
+    }
+
+    /**
+     * Drop departure days that have passed
+     */
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public synchronized void evictPastDays() {
+        if (indexedFrom == null) {
+            return;
+        }
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        buckets.keySet().removeIf(key -> key.day().atStartOfDay().isBefore(today));
+        trips.values().removeIf(trip -> trip.getDepartureTime().isBefore(today));
+        timetable.headSet(probe(today, Long.MIN_VALUE)).clear();
+        indexedFrom = today;
+    }
+
+    private LocalDateTime ensureLoaded() {
+        LocalDateTime from = indexedFrom;
+        return from != null ? from : load();
+    }
+
+    private synchronized LocalDateTime load() {
+        if (indexedFrom != null) {
+            return indexedFrom;
+        }
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        Map<Key, List<Trip>> loaded = new HashMap<>();
+        for (Trip trip : tripRepository.findUpcomingWithBusAndRoute(from)) {
+            Trip copy = copyOf(trip);
+            trips.put(copy.getId(), copy);
+            loaded.computeIfAbsent(keyOf(copy), key -> new ArrayList<>()).add(copy);
+        }
+        loaded.forEach((key, bucket) -> {
+            bucket.sort(BY_DEPARTURE);
+            buckets.put(key, List.copyOf(bucket));
+        });
+        timetable.addAll(trips.values());
+        indexedFrom = from;
+        log.info("Trip search index loaded: {} trips in {} buckets", trips.size(), buckets.size());
+        return from;
+    }
+
+    // Replace whatever the index holds for the trip; null removes it. Before the
+    // first load there is nothing to update, the load reads the committed rows.
+    private synchronized void apply(Long tripId, Trip trip) {
+        if (indexedFrom == null) {
+            return;
+        }
+        Trip previous = trip != null && !trip.getDepartureTime().isBefore(indexedFrom)
+                ? trips.put(tripId, trip)
+                : trips.remove(tripId);
+        if (previous != null) {
+            timetable.remove(previous);
+            buckets.computeIfPresent(keyOf(previous), (key, bucket) -> {
+                List<Trip> rest = bucket.stream().filter(indexed -> !indexed.getId().equals(tripId)).toList();
+                return rest.isEmpty() ? null : rest;
+            });
+        }
+        if (trip != null && trips.get(tripId) == trip) {
+            timetable.add(trip);
+            buckets.compute(keyOf(trip), (key, bucket) -> {
+                List<Trip> updated = bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+                int at = -Collections.binarySearch(updated, trip, BY_DEPARTURE) - 1;
+                updated.add(at, trip);
+                return List.copyOf(updated);
+            });
+        }
+    }
+
+    private void afterCommit(Runnable apply) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private SearchIndexReport.SearchIndexReportBuilder report() {
+        return SearchIndexReport.builder()
+                .indexedFrom(indexedFrom)
+                .buckets(buckets.size())
+                .indexedTrips(trips.size());
+    }
+
+    private static int firstDepartingAtOrAfter(List<Trip> bucket, LocalDateTime from) {
+        int low = 0;
+        int high = bucket.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bucket.get(mid).getDepartureTime().isBefore(from)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean sameEntry(Trip indexed, Trip trip) {
+        return keyOf(indexed).equals(keyOf(trip))
+                && indexed.getDepartureTime().equals(trip.getDepartureTime())
+                && Objects.equals(indexed.getFare(), trip.getFare())
+                && indexed.getBus().getId().equals(trip.getBus().getId());
+    }
+
+    private Key keyOf(Trip trip) {
+        return new Key(cityDictionary.sourceOf(trip.getRoute()), cityDictionary.destinationOf(trip.getRoute()),
+                trip.getDepartureTime().toLocalDate());
+    }
+
+    // Stand-in for range bounds on the timetable, which orders by departure then id
+    private static Trip probe(LocalDateTime departure, long id) {
+        return Trip.builder().id(id).departureTime(departure).build();
+    }
+
+    // Detached copy without the seat collection, safe to hand to any request thread
+    private static Trip copyOf(Trip trip) {
+        return Trip.builder()
+                .id(trip.getId())
+                .bus(trip.getBus())
+                .route(trip.getRoute())
+                .departureTime(trip.getDepartureTime())
+                .arrivalTime(trip.getArrivalTime())
+                .fare(trip.getFare())
+                .version(trip.getVersion())
+                .build();
+    }
+}
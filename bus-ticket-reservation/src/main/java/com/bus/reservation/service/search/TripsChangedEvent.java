@@ -0,0 +1,16 @@
+package com.bus.reservation.service.search;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published when trips are scheduled, changed or deleted. Source, destination
+ * and days give where the trips are searched for now; both are empty for a
+ * deletion. Listeners act once the publishing transaction commits.
+ */
+public record TripsChangedEvent(List<Long> tripIds, String source, String destination, List<LocalDate> days) {
+
+    public static TripsChangedEvent deleted(Long tripId) {
+        return new TripsChangedEvent(List.of(tripId), null, null, List.of());
+    }
+}
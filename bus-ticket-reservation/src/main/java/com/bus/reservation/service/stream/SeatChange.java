@@ -0,0 +1,8 @@
+package com.bus.reservation.service.stream;
+
+public enum SeatChange {
+    HELD,
+    RELEASED,
+    BOOKED,
+    CANCELLED
+}
@@ -0,0 +1,251 @@
+package com.bus.reservation.service.stream;
+
+import com.bus.reservation.dto.SeatDelta;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Live seat changes per trip over Server-Sent Events.
+ * Subscribers are async {@link SseEmitter}s, so an idle connection costs a map
+ * entry and no thread. Changes are buffered per trip and flushed a few times a
+ * second as one delta, serialised once for all of the trip's subscribers, so a
+ * six-seat booking (or a hold followed by its booking) is a single event.
+ *
+ * The scheduled flush and heartbeat only queue the writes; blocking sends run
+ * on a small pool of their own, in order per subscriber, so a slow client
+ * cannot hold up the shared scheduler thread (hold expiry, admission). A
+ * subscriber whose send has been stuck longer than the send timeout is
+ * dropped.
+ */
+@Service
+@Slf4j
+public class SeatStreamService {
+
+    private static final long FLUSH_MILLIS = 250;
+    private static final long HEARTBEAT_MILLIS = 30000;
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+    private final ExecutorService sender;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, PendingChanges> pending = new ConcurrentHashMap<>();
+
+    public SeatStreamService(
+            ObjectMapper objectMapper,
+            @Value("${app.seat-stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.seat-stream.send-timeout-ms:5000}") long sendTimeoutMillis,
+            @Value("${app.seat-stream.sender-threads:4}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "seat-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // One open stream; its sends are chained so they go out in order
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);   // Guarded by this
+        private volatile long sendingSince;     // Millis the current send began, 0 when idle
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * Register a subscriber and send it {@code initial} as a "seat-map" event
+     * to apply later deltas to. The snapshot is taken after registering, so no
+     * change falls between it and the first delta.
+     */
+    public SseEmitter subscribe(Long tripId, Supplier<?> initial) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.compute(tripId, (id, emitters) -> {
+            Set<Subscriber> set = emitters != null ? emitters : ConcurrentHashMap.<Subscriber>newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+
+        Runnable remove = () -> unsubscribe(tripId, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        try {
+            emitter.send(SseEmitter.event().name("seat-map").data(initial.get(), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            remove.run();
+        } catch (RuntimeException e) {
+            // e.g. the trip does not exist
+            remove.run();
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * Record a committed change; it goes out with the trip's next flush.
+     */
+    public void publish(Long tripId, SeatChange change, Collection<Long> seatIds, long version) {
+        if (!subscribers.containsKey(tripId)) {
+            return;
+        }
+        // compute() so a flush taking the buffer away cannot lose this change
+        pending.compute(tripId, (id, changes) -> {
+            PendingChanges buffer = changes != null ? changes : new PendingChanges();
+            buffer.add(change, seatIds, version);
+            return buffer;
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @Scheduled(fixedDelay = FLUSH_MILLIS)
+    public void flush() {
+        drain().forEach((tripId, delta) -> {
+            Set<Subscriber> emitters = subscribers.get(tripId);
+            if (emitters == null || emitters.isEmpty()) {
+                return;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(delta);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialise seat delta for trip {}: {}", tripId, e.getMessage());
+                return;
+            }
+            for (Subscriber subscriber : emitters) {
+                enqueue(tripId, subscriber, SseEmitter.event().name("seats").data(json, MediaType.APPLICATION_JSON));
+            }
+        });
+    }
+
+    // Keeps idle connections open through proxies and finds subscribers that went away
+    @Scheduled(fixedRate = HEARTBEAT_MILLIS)
+    public void heartbeat() {
+        subscribers.forEach((tripId, emitters) -> {
+            for (Subscriber subscriber : emitters) {
+                enqueue(tripId, subscriber, SseEmitter.event().comment("keep-alive"));
+            }
+        });
+    }
+
+    /**
+     * Take the buffered changes of every trip as one delta per trip.
+     */
+    Map<Long, SeatDelta> drain() {
+        Map<Long, SeatDelta> deltas = new HashMap<>();
+        for (Long tripId : pending.keySet()) {
+            PendingChanges changes = pending.remove(tripId);
+            if (changes != null) {
+                deltas.put(tripId, changes.toDelta(tripId));
+            }
+        }
+        return deltas;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    // Queue the event behind the subscriber's earlier sends, unless it is stuck on one
+    private void enqueue(Long tripId, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        long since = subscriber.sendingSince;
+        if (since != 0 && System.currentTimeMillis() - since > sendTimeoutMillis) {
+            log.warn("Dropping seat stream subscriber of trip {}: send blocked for over {} ms", tripId, sendTimeoutMillis);
+            unsubscribe(tripId, subscriber);
+            return;
+        }
+        synchronized (subscriber) {
+            try {
+                subscriber.tail = subscriber.tail.thenRunAsync(() -> send(tripId, subscriber, event), sender);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private void send(Long tripId, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.dropped) {
+            return;
+        }
+        subscriber.sendingSince = System.currentTimeMillis();
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | RuntimeException e) {
+            unsubscribe(tripId, subscriber);
+        } finally {
+            subscriber.sendingSince = 0;
+        }
+    }
+
+    private void unsubscribe(Long tripId, Subscriber subscriber) {
+        subscriber.dropped = true;
+        subscribers.computeIfPresent(tripId, (id, emitters) -> {
+            emitters.remove(subscriber);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    /**
+     * Latest change per seat since the last flush.
+     */
+    private static final class PendingChanges {
+
+        private final Map<Long, SeatChange> changes = new LinkedHashMap<>();
+        private long version;
+
+        synchronized void add(SeatChange change, Collection<Long> seatIds, long version) {
+            for (Long seatId : seatIds) {
+                changes.remove(seatId);
+                changes.put(seatId, change);
+            }
+            this.version = Math.max(this.version, version);
+        }
+
+        synchronized SeatDelta toDelta(Long tripId) {
+            SeatDelta delta = SeatDelta.builder().tripId(tripId).version(version).build();
+            changes.forEach((seatId, change) -> {
+                switch (change) {
+                    case HELD -> delta.getHeld().add(seatId);
+                    case RELEASED -> delta.getReleased().add(seatId);
+                    case BOOKED -> delta.getBooked().add(seatId);
+                    case CANCELLED -> delta.getCancelled().add(seatId);
+                }
+            });
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.bus.reservation.service.waitlist;
+
+import com.bus.reservation.dto.AutoHoldResult;
+import com.bus.reservation.exception.BookingConflictException;
+import com.bus.reservation.model.Trip;
+import com.bus.reservation.model.User;
+import com.bus.reservation.model.WaitlistEntry;
+import com.bus.reservation.repository.TripRepository;
+import com.bus.reservation.repository.UserRepository;
+import com.bus.reservation.repository.WaitlistEntryRepository;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatsFreedEvent;
+import com.bus.reservation.util.EmailService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Per-trip waitlist for sold-out trips. Entries queue in join order; whenever
+ * seats of a trip are freed (a hold released or expired, a booking cancelled)
+ * the trip is matched once: the head entries are given a seat hold, picked by
+ * SeatAllocator, while enough seats are free, and their users are notified.
+ * An offer that is not confirmed expires like any hold, which frees the seats
+ * for the next entry and marks the offer EXPIRED. Nothing polls: a trip is only looked at after one
+ * of its seats is freed or someone joins its queue.
+ *
+ * Matching runs on one background thread, which also owns the in-memory
+ * queues; the database keeps the entries so a restart loses nothing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistService {
+
+    public static final String WAITING = "WAITING";
+    public static final String OFFERED = "OFFERED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String EXPIRED = "EXPIRED";
+
+    private static final int MAX_PARTY_SIZE = 10;
+    private static final int OFFER_ATTEMPTS = 3;
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final TripRepository tripRepository;
+    private final UserRepository userRepository;
+    private final BookingService bookingService;
+    private final SeatInventoryService seatInventoryService;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Waiting entry ids per trip, oldest first; only touched on the matcher thread
+    private final Map<Long, Deque<Long>> queues = new ConcurrentHashMap<>();
+
+    // Trips with a match queued, so a burst of freed seats runs one match
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService matcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-matcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queue the user for seats on the trip. If seats are already free the
+     * entry is offered straight away.
+     */
+    public WaitlistEntry join(Long tripId, int partySize, Long userId) {
+        if (partySize < 1 || partySize > MAX_PARTY_SIZE) {
+            throw new RuntimeException("Party size must be between 1 and " + MAX_PARTY_SIZE);
+        }
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new RuntimeException("Trip not found"));
+        if (trip.getDepartureTime().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Trip has already departed");
+        }
+        if (waitlistEntryRepository.existsByTripIdAndUserIdAndStatus(tripId, userId, WAITING)) {
+            throw new RuntimeException("Already on the waitlist for this trip");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        WaitlistEntry entry = waitlistEntryRepository.save(WaitlistEntry.builder()
+                .trip(trip)
+                .user(user)
+                .partySize(partySize)
+                .status(WAITING)
+                .build());
+
+        matcher.execute(() -> {
+            Deque<Long> queue = queues.get(tripId);
+            if (queue != null) {
+                queue.addLast(entry.getId());
+            }
+            match(tripId);
+        });
+        return entry;
+    }
+
+    public void leave(Long entryId, Long userId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+        if (!entry.getUser().getId().equals(userId)) {
+            throw new RuntimeException("You can only leave your own waitlist entries");
+        }
+        if (!WAITING.equals(entry.getStatus())) {
+            throw new RuntimeException("Waitlist entry is no longer waiting");
+        }
+        // The matcher drops it when it reaches the head
+        entry.setStatus(CANCELLED);
+        waitlistEntryRepository.save(entry);
+    }
+
+    public List<WaitlistEntry> getUserEntries(Long userId) {
+        return waitlistEntryRepository.findByUserIdOrderByIdDesc(userId);
+    }
+
+    /**
+     * Waiting entries ahead of this one, 0 for the head or when it is no longer waiting.
+     */
+    public long getPosition(WaitlistEntry entry) {
+        if (!WAITING.equals(entry.getStatus())) {
+            return 0;
+        }
+        return waitlistEntryRepository.countByTripIdAndStatusAndIdLessThan(entry.getTrip().getId(), WAITING, entry.getId());
+    }
+
+    @EventListener
+    public void onSeatsFreed(SeatsFreedEvent event) {
+        Long tripId = event.tripId();
+        if (event.sessionId() != null) {
+            matcher.execute(() -> expireOffer(tripId, event.sessionId()));
+        }
+        if (pending.add(tripId)) {
+            matcher.execute(() -> {
+                pending.remove(tripId);
+                match(tripId);
+            });
+        }
+    }
+
+    /**
+     * Forget queues of trips that have already departed
+     */
+    @Scheduled(fixedRate = 3600000) // Every hour
+    public void evictDepartedTrips() {
+        matcher.execute(() -> queues.keySet().removeIf(tripId -> tripRepository.findById(tripId)
+                .map(trip -> trip.getDepartureTime().isBefore(LocalDateTime.now()))
+                .orElse(true)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matcher.shutdownNow();
+    }
+
+    // Offer free seats to the head of the trip's queue until they run out. Strictly
+    // first come first served: a party that does not fit yet keeps its place and
+    // blocks smaller parties behind it.
+    private void match(Long tripId) {
+        try {
+            Deque<Long> queue = queues.computeIfAbsent(tripId, this::loadQueue);
+            int conflicts = 0;
+            while (!queue.isEmpty()) {
+                WaitlistEntry entry = waitlistEntryRepository.findById(queue.peekFirst()).orElse(null);
+                if (entry == null || !WAITING.equals(entry.getStatus())) {
+                    queue.pollFirst();
+                    continue;
+                }
+                if (seatInventoryService.getInventory(tripId).getAvailableCount() < entry.getPartySize()) {
+                    return;
+                }
+
+                AutoHoldResult offer;
+                try {
+                    offer = offer(entry);
+                } catch (BookingConflictException e) {
+                    // Someone else took the seats first; look at what is left
+                    if (++conflicts >= OFFER_ATTEMPTS) {
+                        return;
+                    }
+                    continue;
+                }
+
+                queue.pollFirst();
+                if (offer != null) {
+                    notifyOffer(entry, offer);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Waitlist matching failed for trip {}: {}", tripId, e.getMessage());
+        }
+    }
+
+    // Hold the seats and mark the entry offered in one transaction, so neither
+    // is kept without the other; null when the entry stopped waiting meanwhile
+    private AutoHoldResult offer(WaitlistEntry entry) {
+        return transactionTemplate.execute(status -> {
+            WaitlistEntry current = waitlistEntryRepository.findById(entry.getId()).orElse(null);
+            if (current == null || !WAITING.equals(current.getStatus())) {
+                return null;
+            }
+            AutoHoldResult offer = bookingService.autoHoldSeats(current.getTrip().getId(), current.getPartySize(),
+                    true, false, null, null, current.getUser().getId());
+            current.setStatus(OFFERED);
+            current.setSessionId(offer.getSessionId());
+            current.setOfferedUntil(offer.getHoldUntil());
+            waitlistEntryRepository.save(current);
+            return offer;
+        });
+    }
+
+    // The offer's hold was released or lapsed without a booking
+    private void expireOffer(Long tripId, String sessionId) {
+        try {
+            for (WaitlistEntry entry : waitlistEntryRepository.findByTripIdAndStatusOrderById(tripId, OFFERED)) {
+                if (sessionId.equals(entry.getSessionId())) {
+                    entry.setStatus(EXPIRED);
+                    waitlistEntryRepository.save(entry);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to expire waitlist offer {} on trip {}: {}", sessionId, tripId, e.getMessage());
+        }
+    }
+
+    private Deque<Long> loadQueue(Long tripId) {
+        Deque<Long> queue = new ArrayDeque<>();
+        waitlistEntryRepository.findByTripIdAndStatusOrderById(tripId, WAITING)
+                .forEach(entry -> queue.addLast(entry.getId()));
+        return queue;
+    }
+
+    private void notifyOffer(WaitlistEntry entry, AutoHoldResult offer) {
+        log.info("Waitlist entry {} offered seats {} on trip {}", entry.getId(), offer.getSeatNumbers(), entry.getTrip().getId());
+        try {
+            emailService.sendSimpleEmail(entry.getUser().getEmail(),
+                    "Seats available - Trip #" + entry.getTrip().getId(),
+                    "Seats " + String.join(", ", offer.getSeatNumbers()) + " are held for you until "
+                            + offer.getHoldUntil() + ". Confirm with session " + offer.getSessionId() + ".");
+        } catch (RuntimeException e) {
+            log.error("Failed to send waitlist offer email: {}", e.getMessage());
+        }
+    }
+}
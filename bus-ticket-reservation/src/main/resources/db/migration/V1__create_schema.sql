@@ -0,0 +1,177 @@
+-- Schema as Hibernate generated it before migrations were introduced, without
+-- the unique keys on seat_holds.seat_id and trips (bus, route, departure) that V2 adds.
+-- Databases created by Hibernate are baselined at this version instead of running it.
+
+create table buses (
+    id bigint not null auto_increment,
+    bus_number varchar(255) not null,
+    bus_type varchar(255) not null,
+    operator_name varchar(255),
+    total_seats integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table cities (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    name_key varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table city_aliases (
+    id bigint not null auto_increment,
+    city_id bigint not null,
+    alias varchar(255) not null,
+    alias_key varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table routes (
+    id bigint not null auto_increment,
+    source varchar(255) not null,
+    destination varchar(255) not null,
+    source_city_id bigint,
+    destination_city_id bigint,
+    distance float(53),
+    duration varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table route_stops (
+    id bigint not null auto_increment,
+    route_id bigint not null,
+    stop_order integer not null,
+    city varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table trips (
+    id bigint not null auto_increment,
+    bus_id bigint not null,
+    route_id bigint not null,
+    departure_time datetime(6) not null,
+    arrival_time datetime(6) not null,
+    fare float(53) not null,
+    version bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table seats (
+    id bigint not null auto_increment,
+    trip_id bigint not null,
+    seat_number varchar(255) not null,
+    seat_type varchar(255),
+    is_booked bit not null,
+    booked_legs bigint not null,
+    version bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table seat_holds (
+    id bigint not null auto_increment,
+    seat_id bigint not null,
+    session_id varchar(255) not null,
+    user_id bigint,
+    hold_until datetime(6) not null,
+    leg_mask bigint not null,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    phone varchar(255) not null,
+    password varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER') not null,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table bookings (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    trip_id bigint not null,
+    total_amount float(53) not null,
+    leg_mask bigint not null,
+    status varchar(255) not null,
+    booking_date datetime(6),
+    hold_until datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table booking_seats (
+    booking_id bigint not null,
+    seat_id bigint not null
+) engine=InnoDB;
+
+create table payments (
+    id bigint not null auto_increment,
+    booking_id bigint not null,
+    amount float(53),
+    payment_method varchar(255),
+    status varchar(255),
+    transaction_id varchar(255),
+    payment_gateway_id varchar(255),
+    gateway_response varchar(255),
+    payment_date datetime(6),
+    refund_date datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table waitlist_entries (
+    id bigint not null auto_increment,
+    trip_id bigint not null,
+    user_id bigint not null,
+    party_size integer not null,
+    status varchar(255) not null,
+    session_id varchar(255),
+    offered_until datetime(6),
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table trip_seat_changes (
+    id bigint not null auto_increment,
+    trip_id bigint not null,
+    node_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table buses add constraint uk_buses_bus_number unique (bus_number);
+alter table cities add constraint uk_cities_name_key unique (name_key);
+alter table city_aliases add constraint uk_city_aliases_alias_key unique (alias_key);
+alter table route_stops add constraint uk_route_stops_order unique (route_id, stop_order);
+alter table users add constraint uk_users_email unique (email);
+alter table users add constraint uk_users_phone unique (phone);
+alter table payments add constraint uk_payments_booking unique (booking_id);
+
+create index idx_routes_cities on routes (source_city_id, destination_city_id);
+create index idx_trips_route_departure on trips (route_id, departure_time);
+create index idx_trips_departure on trips (departure_time);
+create index idx_seats_trip_booked on seats (trip_id, is_booked);
+create index idx_seat_holds_session on seat_holds (session_id);
+create index idx_seat_holds_hold_until on seat_holds (hold_until);
+create index idx_bookings_status_date on bookings (status, booking_date);
+create index idx_bookings_user_status on bookings (user_id, status);
+create index idx_payments_status_date on payments (status, payment_date);
+create index idx_payments_method on payments (payment_method);
+create index idx_waitlist_trip_status on waitlist_entries (trip_id, status);
+create index idx_trip_seat_changes_trip_node on trip_seat_changes (trip_id, node_id);
+
+alter table city_aliases add constraint fk_city_aliases_city foreign key (city_id) references cities (id);
+alter table routes add constraint fk_routes_source_city foreign key (source_city_id) references cities (id);
+alter table routes add constraint fk_routes_destination_city foreign key (destination_city_id) references cities (id);
+alter table route_stops add constraint fk_route_stops_route foreign key (route_id) references routes (id);
+alter table trips add constraint fk_trips_bus foreign key (bus_id) references buses (id);
+alter table trips add constraint fk_trips_route foreign key (route_id) references routes (id);
+alter table seats add constraint fk_seats_trip foreign key (trip_id) references trips (id);
+alter table seat_holds add constraint fk_seat_holds_seat foreign key (seat_id) references seats (id);
+alter table bookings add constraint fk_bookings_user foreign key (user_id) references users (id);
+alter table bookings add constraint fk_bookings_trip foreign key (trip_id) references trips (id);
+alter table booking_seats add constraint fk_booking_seats_booking foreign key (booking_id) references bookings (id);
+alter table booking_seats add constraint fk_booking_seats_seat foreign key (seat_id) references seats (id);
+alter table payments add constraint fk_payments_booking foreign key (booking_id) references bookings (id);
+alter table waitlist_entries add constraint fk_waitlist_entries_trip foreign key (trip_id) references trips (id);
+alter table waitlist_entries add constraint fk_waitlist_entries_user foreign key (user_id) references users (id);
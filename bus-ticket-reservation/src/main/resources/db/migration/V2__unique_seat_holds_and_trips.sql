@@ -0,0 +1,38 @@
+-- One hold row per seat, and one trip per bus, route and departure.
+-- Rows that would break either key are removed first.
+
+-- Copies of a trip with no bookings; each is folded into the copy that has bookings,
+-- or else the oldest one. Two copies that both have bookings are left alone and stop
+-- the migration at the unique key below, to be merged by hand.
+create table trip_duplicates as
+select t.id as id,
+       coalesce(
+           (select min(k.id) from trips k
+             where k.bus_id = t.bus_id and k.route_id = t.route_id and k.departure_time = t.departure_time
+               and exists (select 1 from bookings b where b.trip_id = k.id)),
+           (select min(k.id) from trips k
+             where k.bus_id = t.bus_id and k.route_id = t.route_id and k.departure_time = t.departure_time
+               and k.id < t.id)) as kept_id
+  from trips t
+ where not exists (select 1 from bookings b where b.trip_id = t.id);
+
+delete from trip_duplicates where kept_id is null;
+
+-- Waiting users move to the kept trip; holds, change records and seats of the copies go
+update waitlist_entries
+   set trip_id = (select d.kept_id from trip_duplicates d where d.id = waitlist_entries.trip_id)
+ where trip_id in (select id from trip_duplicates);
+
+delete from seat_holds where seat_id in (select s.id from seats s where s.trip_id in (select id from trip_duplicates));
+delete from trip_seat_changes where trip_id in (select id from trip_duplicates);
+delete from seats where trip_id in (select id from trip_duplicates);
+delete from trips where id in (select id from trip_duplicates);
+
+drop table trip_duplicates;
+
+-- The newest hold on a seat is the one its session was told about
+delete from seat_holds
+ where id not in (select id from (select max(h.id) as id from seat_holds h group by h.seat_id) kept);
+
+alter table seat_holds add constraint uk_seat_holds_seat unique (seat_id);
+alter table trips add constraint uk_trips_bus_route_departure unique (bus_id, route_id, departure_time);
@@ -0,0 +1,93 @@
+package com.bus.reservation.controller;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@Import(StatementCounter.class)
+class AvailabilityEndpointTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    @Test
+    void manyTripsAreCountedInOneQuery() throws Exception {
+        User user = userRepository.save(User.builder()
+                .name("Cards").email("cards-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build());
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("AVL-" + UUID.randomUUID()).busType("Seater").totalSeats(6).build());
+        Route route = routeRepository.save(Route.builder().source("Vellore").destination("Pondicherry").build());
+        LocalDateTime departure = LocalDateTime.now().plusDays(4);
+        Trip busy = tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(3), 250.0);
+        Trip quiet = tripService.scheduleTrip(bus.getId(), route.getId(), departure.plusHours(6), departure.plusHours(9), 250.0);
+
+        List<Long> seatIds = seatRepository.findByTripId(busy.getId()).stream().map(Seat::getId).sorted().toList();
+        String sessionId = bookingService.holdSeats(busy.getId(), seatIds.subList(0, 2), user.getId());
+        bookingService.confirmBooking(sessionId, user.getId(), "UPI");
+        bookingService.holdSeats(busy.getId(), seatIds.subList(2, 3), user.getId());
+        String body = "[" + quiet.getId() + "," + busy.getId() + ",987654321," + quiet.getId() + "]";
+
+        // Counted from the cached inventory, then from the database
+        for (boolean cached : new boolean[]{true, false}) {
+            if (!cached) {
+                seatInventoryService.evict(busy.getId());
+                seatInventoryService.evict(quiet.getId());
+            }
+            StatementCounter.reset();
+            mockMvc.perform(post("/api/v1/trips/availability").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].tripId").value(quiet.getId()))
+                    .andExpect(jsonPath("$[0].availableSeats").value(6))
+                    .andExpect(jsonPath("$[1].tripId").value(busy.getId()))
+                    .andExpect(jsonPath("$[1].availableSeats").value(3))
+                    .andExpect(jsonPath("$[1].heldSeats").value(1))
+                    .andExpect(jsonPath("$[1].bookedSeats").value(2))
+                    .andExpect(jsonPath("$[1].totalSeats").value(6));
+            assertEquals(1, StatementCounter.count());
+        }
+    }
+
+    @Test
+    void nullOrTooManyIdsAreBadRequests() throws Exception {
+        String tooMany = LongStream.rangeClosed(1, 501).mapToObj(Long::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        for (String body : new String[]{"[1,null]", tooMany}) {
+            mockMvc.perform(post("/api/v1/trips/availability").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
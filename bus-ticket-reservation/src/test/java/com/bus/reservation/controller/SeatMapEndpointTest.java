@@ -0,0 +1,67 @@
+package com.bus.reservation.controller;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+class SeatMapEndpointTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    @Test
+    void unchangedSeatMapIsNotSentAgain() throws Exception {
+        User user = userRepository.save(User.builder()
+                .name("Map").email("map-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build());
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("MAP-" + UUID.randomUUID()).busType("Seater").totalSeats(10).build());
+        Route route = routeRepository.save(Route.builder().source("Salem").destination("Chennai").build());
+        Trip trip = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(5), 300.0);
+        Long seatId = seatRepository.findByTripId(trip.getId()).stream().map(Seat::getId).sorted().toList().get(2);
+        String url = "/api/v1/trips/" + trip.getId() + "/seat-map?encoding=rle";
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.seatCount").value(10))
+                .andExpect(jsonPath("$.booked").value("10"))
+                .andExpect(jsonPath("$.etag").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        bookingService.holdSeats(trip.getId(), List.of(seatId), user.getId());
+
+        String changed = mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.held").value("2,1,7"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, changed);
+    }
+}
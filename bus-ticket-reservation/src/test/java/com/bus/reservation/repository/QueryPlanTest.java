@@ -0,0 +1,142 @@
+package com.bus.reservation.repository;
+
+import com.bus.reservation.support.SqlRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every query method of every repository once, asks the database for
+ * the plan of each statement it sent and fails on a full table scan, so a
+ * new query or a dropped index cannot quietly fall back to scanning a table
+ * that grows with traffic. The schema comes from the migration scripts, not
+ * from Hibernate, so the plans are those of the indexes production has, and
+ * the entities are validated against it.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bus.reservation.support.SqlRecorder",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/migration/V1__create_schema.sql,"
+                + "classpath:db/migration/V2__unique_seat_holds_and_trips.sql"})
+class QueryPlanTest {
+
+    // A table read row by row, or an index walked end to end with no condition on it
+    private static final Pattern FULL_SCAN = Pattern.compile("\\.tableScan \\*/|/\\* PUBLIC\\.\\w+ \\*/");
+
+    // Queries that read a whole table on purpose, with the reason
+    private static final Map<String, String> FULL_SCANS_ALLOWED = Map.of(
+            "CityAliasRepository.findAllWithCity", "every alias, read once into the city dictionary",
+            "RouteRepository.findAllCities", "every city, for the suggestion trie",
+            "RouteRepository.findUnlinked", "routes saved before the city dictionary, linked once when it loads",
+            "RouteStopRepository.findAllCities", "every city, for the suggestion trie",
+            "UserRepository.findByRole", "admin lookup; few admins, low-cardinality column");
+
+    @Autowired private ApplicationContext applicationContext;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void noRepositoryQueryScansAWholeTable() {
+        Repositories repositories = new Repositories(applicationContext);
+        List<String> scans = new ArrayList<>();
+        int checked = 0;
+
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+            for (Method method : information.getQueryMethods()) {
+                String name = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                for (String sql : statementsOf(repository, method)) {
+                    String plan = explain(sql);
+                    checked++;
+                    if (FULL_SCAN.matcher(plan).find() && !FULL_SCANS_ALLOWED.containsKey(name)) {
+                        scans.add(name + ":\n    " + plan.replace("\n", "\n    "));
+                    }
+                }
+            }
+        }
+
+        assertTrue(checked > 30, "Only " + checked + " statements were checked");
+        assertTrue(scans.isEmpty(), "Full table scans:\n" + String.join("\n", scans));
+    }
+
+    // The statements a query method sends, run with placeholder arguments and rolled back
+    private List<String> statementsOf(Object repository, Method method) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            SqlRecorder.reset();
+            try {
+                method.invoke(repository, arguments(method));
+            } catch (ReflectiveOperationException e) {
+                fail(method + " failed", e);
+            }
+            return SqlRecorder.statements();
+        });
+    }
+
+    private String explain(String sql) {
+        String statement = sql.trim();
+        String verb = statement.substring(0, statement.indexOf(' ')).toLowerCase(Locale.ROOT);
+        assertTrue(List.of("select", "update", "delete").contains(verb), "Unexpected statement: " + sql);
+        return String.join("\n", jdbcTemplate.query("EXPLAIN " + statement, ps -> {
+            for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) {
+                ps.setObject(i, null);
+            }
+        }, (rs, row) -> rs.getString(1)));
+    }
+
+    private static Object[] arguments(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = sample(types[i]);
+        }
+        return arguments;
+    }
+
+    private static Object sample(Type type) {
+        if (type instanceof ParameterizedType parameterized
+                && Collection.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+            return List.of(sample(parameterized.getActualTypeArguments()[0]));
+        }
+        Class<?> raw = (Class<?>) type;
+        if (raw == Long.class || raw == long.class) {
+            return 1L;
+        }
+        if (raw == Integer.class || raw == int.class) {
+            return 1;
+        }
+        if (raw == Boolean.class || raw == boolean.class) {
+            return false;
+        }
+        if (raw == String.class) {
+            return "X";
+        }
+        if (raw == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (raw.isEnum()) {
+            return raw.getEnumConstants()[0];
+        }
+        throw new IllegalArgumentException("No sample value for " + type);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bus.reservation.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs V2 over a V1 database that already holds the duplicates the old
+ * schema let through, as a database created by Hibernate before the unique
+ * keys would.
+ */
+class SchemaMigrationTest {
+
+    private final DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:migration_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+    @Test
+    void duplicatesAreRemovedBeforeTheUniqueKeys() {
+        migrate("V1__create_schema.sql");
+        jdbc.update("INSERT INTO buses (id, bus_number, bus_type, total_seats) VALUES (1, 'B-1', 'Seater', 2)");
+        jdbc.update("INSERT INTO routes (id, source, destination) VALUES (1, 'Salem', 'Namakkal')");
+        jdbc.update("INSERT INTO users (id, name, email, phone, password, role) "
+                + "VALUES (1, 'U', 'u@test.local', '1', 'x', 'CUSTOMER')");
+        // Trip 2 is the copy with a booking, so it is kept over the older, empty trip 1
+        for (long trip = 1; trip <= 3; trip++) {
+            jdbc.update("INSERT INTO trips (id, bus_id, route_id, departure_time, arrival_time, fare, version) "
+                    + "VALUES (?, 1, 1, '2030-01-01 08:00:00', '2030-01-01 10:00:00', 100, 0)", trip);
+            jdbc.update("INSERT INTO seats (id, trip_id, seat_number, is_booked, booked_legs, version) "
+                    + "VALUES (?, ?, '1A', false, 0, 0)", trip, trip);
+        }
+        jdbc.update("INSERT INTO bookings (id, user_id, trip_id, total_amount, leg_mask, status) "
+                + "VALUES (1, 1, 2, 100, 0, 'CONFIRMED')");
+        jdbc.update("INSERT INTO waitlist_entries (id, trip_id, user_id, party_size, status) "
+                + "VALUES (1, 3, 1, 1, 'WAITING')");
+        // Two holds on seat 2; the newer one stays
+        jdbc.update("INSERT INTO seat_holds (id, seat_id, session_id, hold_until, leg_mask) "
+                + "VALUES (1, 2, 'old', '2030-01-01 07:00:00', 0)");
+        jdbc.update("INSERT INTO seat_holds (id, seat_id, session_id, hold_until, leg_mask) "
+                + "VALUES (2, 2, 'new', '2030-01-01 07:00:00', 0)");
+        jdbc.update("INSERT INTO seat_holds (id, seat_id, session_id, hold_until, leg_mask) "
+                + "VALUES (3, 1, 'dropped', '2030-01-01 07:00:00', 0)");
+
+        migrate("V2__unique_seat_holds_and_trips.sql");
+
+        assertEquals(List.of(2L), jdbc.queryForList("SELECT id FROM trips", Long.class));
+        assertEquals(List.of(2L), jdbc.queryForList("SELECT id FROM seats", Long.class));
+        assertEquals(List.of("new"), jdbc.queryForList("SELECT session_id FROM seat_holds", String.class));
+        assertEquals(2L, jdbc.queryForObject("SELECT trip_id FROM waitlist_entries WHERE id = 1", Long.class));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbc.update(
+                "INSERT INTO seat_holds (seat_id, session_id, hold_until, leg_mask) "
+                        + "VALUES (2, 'second', '2030-01-01 07:00:00', 0)"));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbc.update(
+                "INSERT INTO trips (bus_id, route_id, departure_time, arrival_time, fare, version) "
+                        + "VALUES (1, 1, '2030-01-01 08:00:00', '2030-01-01 10:00:00', 100, 0)"));
+    }
+
+    private void migrate(String script) {
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/" + script)).execute(dataSource);
+    }
+}
@@ -0,0 +1,115 @@
+package com.bus.reservation.service;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts database round trips for a 6-seat group booking (hold + confirm),
+ * comparing the old per-seat repository calls with the set-based path.
+ */
+@SpringBootTest
+@Import(StatementCounter.class)
+class BookingRoundTripBenchmarkTest {
+
+    private static final int GROUP_SIZE = 6;
+
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private SeatHoldRepository seatHoldRepository;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void groupBookingUsesFewerRoundTrips() {
+        User user = userRepository.save(User.builder()
+                .name("Bench").email("bench-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build());
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("BENCH-" + UUID.randomUUID()).busType("AC Sleeper").totalSeats(40).build());
+        Route route = routeRepository.save(Route.builder().source("Chennai").destination("Bangalore").build());
+        Trip trip = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(3).plusHours(6), 750.0);
+
+        List<Long> seatIds = seatRepository.findByTripId(trip.getId()).stream().map(Seat::getId).sorted().toList();
+        List<Long> legacySeats = seatIds.subList(0, GROUP_SIZE);
+        List<Long> batchSeats = seatIds.subList(GROUP_SIZE, GROUP_SIZE * 2);
+
+        StatementCounter.reset();
+        String legacySession = legacyHold(trip.getId(), legacySeats, user.getId());
+        int legacyHold = StatementCounter.count();
+        StatementCounter.reset();
+        legacyConfirm(legacySession, user.getId());
+        int legacyConfirm = StatementCounter.count();
+
+        // Warm the seat inventory so the steady-state path is measured
+        bookingService.getAvailableSeats(trip.getId());
+
+        StatementCounter.reset();
+        String session = bookingService.holdSeats(trip.getId(), batchSeats, user.getId());
+        int batchHold = StatementCounter.count();
+        StatementCounter.reset();
+        bookingService.confirmBooking(session, user.getId(), "UPI");
+        int batchConfirm = StatementCounter.count();
+
+        System.out.printf("%d-seat booking round trips: before hold=%d confirm=%d total=%d, after hold=%d confirm=%d total=%d%n",
+                GROUP_SIZE, legacyHold, legacyConfirm, legacyHold + legacyConfirm,
+                batchHold, batchConfirm, batchHold + batchConfirm);
+
+        assertTrue(batchHold < legacyHold);
+        assertTrue(batchConfirm < legacyConfirm);
+    }
+
+    // The hold path as it was: one lookup, one active-hold query and one insert per seat
+    private String legacyHold(Long tripId, List<Long> seatIds, Long userId) {
+        return transactionTemplate.execute(status -> {
+            tripRepository.findById(tripId).orElseThrow();
+            userRepository.findById(userId).orElseThrow();
+            String sessionId = UUID.randomUUID().toString();
+            LocalDateTime holdUntil = LocalDateTime.now().plusMinutes(10);
+            for (Long seatId : seatIds) {
+                Seat seat = seatRepository.findById(seatId).orElseThrow();
+                seatHoldRepository.findActiveHoldsForSeat(seatId, LocalDateTime.now());
+                seatHoldRepository.save(SeatHold.builder().seat(seat).sessionId(sessionId).holdUntil(holdUntil).build());
+            }
+            return sessionId;
+        });
+    }
+
+    // The confirm path as it was: per-seat saves and a select-then-delete of the holds
+    private void legacyConfirm(String sessionId, Long userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<SeatHold> holds = seatHoldRepository.findBySessionId(sessionId);
+            Trip trip = holds.get(0).getSeat().getTrip();
+            User user = userRepository.findById(userId).orElseThrow();
+            for (SeatHold hold : holds) {
+                hold.getSeat().setBooked(true);
+                seatRepository.save(hold.getSeat());
+            }
+            Booking booking = bookingRepository.save(Booking.builder()
+                    .user(user).trip(trip).seats(holds.stream().map(SeatHold::getSeat).toList())
+                    .totalAmount(holds.size() * trip.getFare()).status("CONFIRMED").build());
+            paymentRepository.save(Payment.builder()
+                    .booking(booking).amount(booking.getTotalAmount()).paymentMethod("UPI").status("SUCCESS").build());
+            seatHoldRepository.deleteAll(seatHoldRepository.findBySessionId(sessionId));
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.bus.reservation.service;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.booking.BookingExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention benchmark for booking on a single trip.
+ * Each round every booker goes for two adjacent seats out of the same four,
+ * half of them listing the seats in reverse order, and holds and confirms at
+ * once. No seat may end up in two bookings. Runs in the default (pessimistic)
+ * mode; see {@link OptimisticConfirmContentionBenchmarkTest}.
+ */
+@SpringBootTest
+class ConfirmContentionBenchmarkTest {
+
+    private static final int[] BOOKERS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int ROUNDS = 3;
+    private static final int POOL = 4;
+
+    @Autowired private BookingService bookingService;
+    @Autowired private BookingExecutor bookingExecutor;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentConfirmationsNeverDoubleBook() throws Exception {
+        User user = userRepository.save(User.builder()
+                .name("Contention").email("contention-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build());
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("CONT-" + UUID.randomUUID()).busType("Seater").totalSeats(BOOKERS.length * ROUNDS * POOL).build());
+        Route route = routeRepository.save(Route.builder().source("Madurai").destination("Chennai").build());
+        Trip trip = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(8), 500.0);
+        List<Long> seatIds = seatRepository.findByTripId(trip.getId()).stream().map(Seat::getId).sorted().toList();
+
+        int next = 0;
+        int totalConfirmed = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            for (int bookers : BOOKERS) {
+                int confirmed = 0;
+                long started = System.nanoTime();
+
+                for (int round = 0; round < ROUNDS; round++) {
+                    List<Long> seats = seatIds.subList(next, next + POOL);
+                    next += POOL;
+                    confirmed += bookConcurrently(pool, bookers, trip.getId(), seats, user.getId());
+                }
+
+                double seconds = (System.nanoTime() - started) / 1e9;
+                System.out.printf("%s bookers=%2d confirmations=%d/%d throughput=%.1f attempts/s%n",
+                        bookingExecutor.getMode(), bookers, confirmed, bookers * ROUNDS, bookers * ROUNDS / seconds);
+                totalConfirmed += confirmed;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Long> bookedSeats = transactionTemplate.execute(status -> bookingRepository.findByUserId(user.getId()).stream()
+                .flatMap(booking -> booking.getSeats().stream()).map(Seat::getId).toList());
+        long doubleBookings = bookedSeats.size() - bookedSeats.stream().distinct().count();
+        System.out.printf("doubleBookings=%d%n", doubleBookings);
+
+        assertEquals(0, doubleBookings);
+        assertEquals(totalConfirmed, bookedSeats.size() / 2);
+        assertTrue(totalConfirmed >= ROUNDS);
+    }
+
+    private int bookConcurrently(ExecutorService pool, int bookers, Long tripId, List<Long> seats, Long userId) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < bookers; i++) {
+            Long first = seats.get(i % POOL);
+            Long second = seats.get((i + 1) % POOL);
+            List<Long> pair = i % 2 == 0 ? List.of(first, second) : List.of(second, first);
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    String sessionId = bookingService.holdSeats(tripId, pair, userId);
+                    bookingExecutor.execute(() -> bookingService.confirmBooking(sessionId, userId, "CARD"));
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int wins = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+}
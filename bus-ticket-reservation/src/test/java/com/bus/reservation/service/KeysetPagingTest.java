@@ -0,0 +1,107 @@
+package com.bus.reservation.service;
+
+import com.bus.reservation.dto.CursorPage;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class KeysetPagingTest {
+
+    @Autowired private TripService tripService;
+    @Autowired private BookingService bookingService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    private Bus bus;
+    private Route route;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        bus = busRepository.save(Bus.builder()
+                .busNumber("PAGE-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        route = routeRepository.save(Route.builder().source("Dindigul-" + UUID.randomUUID()).destination("Theni").build());
+        day = LocalDate.now().plusDays(8);
+    }
+
+    @Test
+    void tripsArePagedInDepartureOrderWithOneStatementPerPage() {
+        List<Long> scheduled = new ArrayList<>();
+        for (int hour : new int[]{18, 6, 12, 9, 15}) {
+            scheduled.add(schedule(day.atTime(hour, 0)).getId());
+        }
+        List<Long> expected = List.of(scheduled.get(1), scheduled.get(3), scheduled.get(2), scheduled.get(4), scheduled.get(0));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            StatementCounter.reset();
+            CursorPage<Trip> page = tripService.listTrips(null, null, null, route.getId(), null, null, cursor, 2);
+            assertEquals(1, StatementCounter.count());
+            page.getItems().forEach(trip -> seen.add(trip.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void filtersNarrowThePage() {
+        schedule(day.atTime(6, 0));
+        Trip late = schedule(day.atTime(20, 0));
+
+        CursorPage<Trip> page = tripService.listTrips(route.getSource().toUpperCase(), " theni ", bus.getId(), null,
+                day.atTime(12, 0), null, null, null);
+
+        assertEquals(List.of(late.getId()), page.getItems().stream().map(Trip::getId).toList());
+        assertNull(page.getNextCursor());
+        assertThrows(RuntimeException.class, () -> tripService.listTrips(null, null, null, null, null, null, null, 101));
+        assertThrows(RuntimeException.class, () -> tripService.listTrips(null, null, null, null, null, null, "bm90LWEtY3Vyc29y", 10));
+    }
+
+    @Test
+    void myBookingsComeNewestFirst() {
+        Long userId = userRepository.save(User.builder()
+                .name("Pager").email("pager-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        Trip trip = schedule(day.atTime(7, 0));
+        List<Long> bookings = new ArrayList<>();
+        for (Seat seat : seatRepository.findByTripId(trip.getId()).subList(0, 3)) {
+            String sessionId = bookingService.holdSeats(trip.getId(), List.of(seat.getId()), userId);
+            bookings.add(bookingService.confirmBooking(sessionId, userId, "UPI").getId());
+        }
+
+        CursorPage<Booking> first = bookingService.getUserBookings(userId, "confirmed", null, 2);
+        CursorPage<Booking> second = bookingService.getUserBookings(userId, "confirmed", first.getNextCursor(), 2);
+
+        assertEquals(List.of(bookings.get(2), bookings.get(1)), first.getItems().stream().map(Booking::getId).toList());
+        assertEquals(List.of(bookings.get(0)), second.getItems().stream().map(Booking::getId).toList());
+        assertNull(second.getNextCursor());
+        assertTrue(bookingService.getUserBookings(userId, "CANCELLED", null, null).getItems().isEmpty());
+    }
+
+    private Trip schedule(LocalDateTime departure) {
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(3), 200.0);
+    }
+}
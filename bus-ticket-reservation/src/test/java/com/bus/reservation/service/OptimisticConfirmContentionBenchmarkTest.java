@@ -0,0 +1,10 @@
+package com.bus.reservation.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The contention benchmark with @Version checks and bounded retries instead of row locks.
+ */
+@SpringBootTest(properties = "app.booking.concurrency-mode=optimistic")
+class OptimisticConfirmContentionBenchmarkTest extends ConfirmContentionBenchmarkTest {
+}
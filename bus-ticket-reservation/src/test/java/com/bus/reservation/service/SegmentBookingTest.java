@@ -0,0 +1,119 @@
+package com.bus.reservation.service;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seats on a multi-stop route are sold per leg: Madurai - Trichy - Chennai.
+ */
+@SpringBootTest
+class SegmentBookingTest {
+
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private RouteService routeService;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    private Long userId;
+    private Long tripId;
+    private Long seatId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(User.builder()
+                .name("Segment").email("segment-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("SEG-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        Route route = routeRepository.save(Route.builder().source("Madurai").destination("Chennai").build());
+        routeService.setStops(route.getId(), List.of("Trichy"));
+        tripId = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(8), 600.0).getId();
+        seatId = seatRepository.findByTripId(tripId).stream().map(Seat::getId).sorted().findFirst().orElseThrow();
+    }
+
+    @Test
+    void seatSoldForOneLegIsResoldForTheOther() {
+        Booking first = book("Madurai", "Trichy");
+        Booking second = book("trichy", "Chennai");
+
+        assertEquals(300.0, first.getTotalAmount());
+        assertEquals(300.0, second.getTotalAmount());
+        assertEquals(0b11, seatRepository.findById(seatId).orElseThrow().getBookedLegs());
+        assertThrows(RuntimeException.class, () -> bookingService.holdSeats(tripId, List.of(seatId), userId));
+        assertFalse(bookingService.getAvailableSeats(tripId).stream().anyMatch(seat -> seat.getId().equals(seatId)));
+    }
+
+    @Test
+    void overlappingJourneyIsRejected() {
+        book("Trichy", "Chennai");
+
+        assertThrows(RuntimeException.class,
+                () -> bookingService.holdSeats(tripId, List.of(seatId), "Madurai", "Chennai", userId));
+        assertTrue(bookingService.getAvailableSeats(tripId, "Madurai", "Trichy").stream()
+                .anyMatch(seat -> seat.getId().equals(seatId)));
+        assertTrue(seatInventoryService.verify(tripId).getConsistent());
+    }
+
+    @Test
+    void cancellingFreesOnlyTheBookedLegs() {
+        Booking first = book("Madurai", "Trichy");
+        book("Trichy", "Chennai");
+
+        bookingService.cancelBooking(first.getId(), userId);
+
+        assertEquals(0b10, seatRepository.findById(seatId).orElseThrow().getBookedLegs());
+        assertNotNull(book("Madurai", "Trichy"));
+        assertTrue(seatInventoryService.verify(tripId).getConsistent());
+    }
+
+    @Test
+    void unknownOrReversedStopsAreRejected() {
+        assertThrows(RuntimeException.class,
+                () -> bookingService.holdSeats(tripId, List.of(seatId), "Salem", "Chennai", userId));
+        assertThrows(RuntimeException.class,
+                () -> bookingService.holdSeats(tripId, List.of(seatId), "Chennai", "Trichy", userId));
+    }
+
+    @Test
+    void movingTheTripRefreshesItsStopsAndKeepsItsSeatCount() {
+        assertFalse(bookingService.getAvailableSeats(tripId, "Madurai", "Trichy").isEmpty());
+        Route viaSalem = routeRepository.save(Route.builder().source("Madurai").destination("Chennai").build());
+        routeService.setStops(viaSalem.getId(), List.of("Salem"));
+        Bus larger = busRepository.save(Bus.builder()
+                .busNumber("SEG-" + UUID.randomUUID()).busType("Seater").totalSeats(6).build());
+
+        Trip trip = tripService.getTripById(tripId);
+        Trip.TripBuilder details = Trip.builder().departureTime(trip.getDepartureTime())
+                .arrivalTime(trip.getArrivalTime()).fare(trip.getFare());
+
+        tripService.updateTrip(tripId, details.route(Route.builder().id(viaSalem.getId()).build()).build());
+
+        assertFalse(bookingService.getAvailableSeats(tripId, "Madurai", "Salem").isEmpty());
+        assertThrows(RuntimeException.class,
+                () -> bookingService.holdSeats(tripId, List.of(seatId), "Madurai", "Trichy", userId));
+        assertThrows(RuntimeException.class, () -> tripService.updateTrip(tripId,
+                details.bus(Bus.builder().id(larger.getId()).build()).build()));
+    }
+
+    private Booking book(String from, String to) {
+        String sessionId = bookingService.holdSeats(tripId, List.of(seatId), from, to, userId);
+        return bookingService.confirmBooking(sessionId, userId, "UPI");
+    }
+}
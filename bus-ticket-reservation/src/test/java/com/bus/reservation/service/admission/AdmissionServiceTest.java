@@ -0,0 +1,130 @@
+package com.bus.reservation.service.admission;
+
+import com.bus.reservation.dto.AdmissionTicket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionServiceTest {
+
+    private final AdmissionService admissionService = new AdmissionService(2, 120, 30);
+
+    @Test
+    void quietTripLetsUsersStraightIn() {
+        assertTrue(admissionService.enter(1L, "a").isAdmitted());
+        assertTrue(admissionService.enter(1L, "b").isAdmitted());
+        assertEquals(0, admissionService.getWaiting(1L));
+    }
+
+    @Test
+    void rushIsAdmittedInTicketOrderAtTheConfiguredRate() {
+        for (int i = 0; i < 6; i++) {
+            admissionService.enter(2L, "u" + i);
+        }
+
+        AdmissionTicket last = admissionService.enter(2L, "u5");
+        assertFalse(last.isAdmitted());
+        assertEquals(6, last.getTicket());
+        assertEquals(4, last.getPosition());
+        assertEquals(2, last.getEstimatedWaitSeconds());
+
+        admissionService.admitNext();
+        assertTrue(admissionService.enter(2L, "u3").isAdmitted());
+        assertFalse(admissionService.enter(2L, "u4").isAdmitted());
+
+        admissionService.admitNext();
+        assertTrue(admissionService.enter(2L, "u5").isAdmitted());
+        assertEquals(0, admissionService.getWaiting(2L));
+    }
+
+    @Test
+    void pollingKeepsTheSameTicket() {
+        long first = admissionService.enter(3L, "a").getTicket();
+        admissionService.enter(3L, "b");
+
+        assertEquals(first, admissionService.enter(3L, "a").getTicket());
+    }
+
+    @Test
+    void leavingGivesUpTheAdmission() {
+        admissionService.enter(4L, "a");
+        admissionService.enter(4L, "b");
+        admissionService.enter(4L, "c");
+
+        admissionService.leave(4L, "a");
+
+        AdmissionTicket again = admissionService.enter(4L, "a");
+        assertEquals(4, again.getTicket());
+        assertFalse(again.isAdmitted());
+    }
+
+    @Test
+    void statusDoesNotIssueATicket() {
+        assertTrue(admissionService.status(5L, "a").isEmpty());
+        assertTrue(admissionService.status(5L, "a").isEmpty());
+
+        admissionService.enter(5L, "b");
+        AdmissionTicket status = admissionService.status(5L, "b").orElseThrow();
+        assertEquals(1, status.getTicket());
+        assertTrue(status.isAdmitted());
+        assertTrue(admissionService.status(5L, "a").isEmpty());
+        assertEquals(2, admissionService.enter(5L, "a").getTicket());
+    }
+
+    @Test
+    void quotaSkipsTicketsNobodyIsWaitingOn() {
+        // Tickets 1 and 2 go straight in; 3 to 6 wait
+        for (int i = 0; i < 6; i++) {
+            admissionService.enter(6L, "u" + i);
+        }
+        admissionService.leave(6L, "u2");
+        admissionService.leave(6L, "u3");
+
+        admissionService.admitNext();
+
+        assertTrue(admissionService.status(6L, "u4").orElseThrow().isAdmitted());
+        assertTrue(admissionService.status(6L, "u5").orElseThrow().isAdmitted());
+        assertEquals(0, admissionService.getWaiting(6L));
+    }
+
+    @Test
+    void quotaSkipsAbandonedTickets() {
+        TripWaitingRoom room = new TripWaitingRoom(2);
+        for (int i = 0; i < 6; i++) {
+            room.enter("u" + i, 0, 120_000, 30_000);
+        }
+        // u2 and u3 stop polling; u4 and u5 keep their place
+        room.find("u4", 20_000, 120_000, 30_000);
+        room.find("u5", 20_000, 120_000, 30_000);
+
+        room.purge(40_000, 120_000, 30_000);
+        room.admit(2);
+
+        assertNotEquals(0, room.find("u4", 40_000, 120_000, 30_000).admittedAt);
+        assertNotEquals(0, room.find("u5", 40_000, 120_000, 30_000).admittedAt);
+        assertNull(room.find("u2", 40_000, 120_000, 30_000));
+        assertEquals(0, room.getWaiting());
+    }
+
+    @Test
+    void roomsAreNotDroppedUnderNewArrivals() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread ticker = new Thread(() -> {
+            while (running.get()) {
+                admissionService.admitNext();
+            }
+        });
+        ticker.start();
+        try {
+            for (long tripId = 100; tripId < 5100; tripId++) {
+                admissionService.enter(tripId, "a");
+                assertEquals(2, admissionService.enter(tripId, "b").getTicket());
+            }
+        } finally {
+            running.set(false);
+            ticker.join();
+        }
+    }
+}
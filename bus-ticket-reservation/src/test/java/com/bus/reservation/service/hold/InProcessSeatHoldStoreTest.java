@@ -0,0 +1,7 @@
+package com.bus.reservation.service.hold;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class InProcessSeatHoldStoreTest extends SeatHoldStoreContractTest {
+}
@@ -0,0 +1,7 @@
+package com.bus.reservation.service.hold;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "app.booking.hold-store=jdbc")
+class JdbcSeatHoldStoreTest extends SeatHoldStoreContractTest {
+}
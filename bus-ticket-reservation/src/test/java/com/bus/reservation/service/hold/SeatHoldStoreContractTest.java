@@ -0,0 +1,169 @@
+package com.bus.reservation.service.hold;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link SeatHoldStore} must have. Subclasses pick the
+ * implementation with {@code app.booking.hold-store}.
+ */
+abstract class SeatHoldStoreContractTest {
+
+    @Autowired private SeatHoldStore seatHoldStore;
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private SeatHoldRepository seatHoldRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Long tripId;
+    private Long userId;
+    private List<Long> seatIds;
+
+    @BeforeEach
+    void createTrip() {
+        userId = userRepository.save(User.builder()
+                .name("Holder").email("holder-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("HOLD-" + UUID.randomUUID()).busType("Seater").totalSeats(8).build());
+        Route route = routeRepository.save(Route.builder().source("Trichy").destination("Coimbatore").build());
+        tripId = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(5), 400.0).getId();
+        seatIds = seatRepository.findByTripId(tripId).stream().map(Seat::getId).sorted().toList();
+    }
+
+    @Test
+    void heldSeatsAreReportedAsHeld() {
+        hold(List.of(seatIds.get(0), seatIds.get(1)), "a", 10_000);
+
+        assertTrue(seatHoldStore.isHeld(tripId, seatIds.get(0)));
+        assertTrue(seatHoldStore.isHeld(tripId, seatIds.get(1)));
+        assertFalse(seatHoldStore.isHeld(tripId, seatIds.get(2)));
+    }
+
+    @Test
+    void overlappingHoldIsRejectedWithoutPartialClaims() {
+        hold(List.of(seatIds.get(0)), "a", 10_000);
+
+        assertThrows(RuntimeException.class, () -> hold(List.of(seatIds.get(1), seatIds.get(0)), "b", 10_000));
+
+        assertFalse(seatHoldStore.isHeld(tripId, seatIds.get(1)));
+        hold(List.of(seatIds.get(1)), "c", 10_000);
+        assertTrue(seatHoldStore.isHeld(tripId, seatIds.get(1)));
+    }
+
+    @Test
+    void releasedSeatsCanBeHeldAgain() {
+        hold(List.of(seatIds.get(0), seatIds.get(1)), "a", 10_000);
+
+        transactionTemplate.executeWithoutResult(status -> seatHoldStore.release(session("a")));
+
+        assertFalse(seatHoldStore.isHeld(tripId, seatIds.get(0)));
+        hold(List.of(seatIds.get(0), seatIds.get(1)), "b", 10_000);
+        assertTrue(seatHoldStore.isHeld(tripId, seatIds.get(0)));
+    }
+
+    @Test
+    void expiredHoldsLapseAndAreRemoved() throws Exception {
+        hold(List.of(seatIds.get(0)), "a", 200);
+        Thread.sleep(400);
+
+        assertFalse(seatHoldStore.isHeld(tripId, seatIds.get(0)));
+        hold(List.of(seatIds.get(0)), "b", 10_000);
+        hold(List.of(seatIds.get(1)), "c", 200);
+        Thread.sleep(400);
+
+        // The inventory's expiry sweep may already have deleted the row, so only the outcome is checked
+        transactionTemplate.executeWithoutResult(status -> seatHoldStore.expire(LocalDateTime.now()));
+        assertTrue(seatHoldRepository.findBySessionId(session("c")).isEmpty());
+        assertTrue(seatHoldStore.isHeld(tripId, seatIds.get(0)));
+    }
+
+    @Test
+    void holdsBelongToTheirUser() {
+        String sessionId = bookingService.holdSeats(tripId, List.of(seatIds.get(0)), userId);
+
+        assertEquals(userId, seatHoldRepository.findBySessionId(sessionId).get(0).getUserId());
+        RuntimeException other = assertThrows(RuntimeException.class,
+                () -> bookingService.confirmBooking(sessionId, userId + 1, "CARD"));
+        assertTrue(other.getMessage().contains("another user"));
+        assertThrows(RuntimeException.class, () -> bookingService.holdSeats(-1L, List.of(seatIds.get(1)), userId));
+    }
+
+    @Test
+    void bookedSeatCannotBeHeld() {
+        String sessionId = bookingService.holdSeats(tripId, List.of(seatIds.get(0)), userId);
+        bookingService.confirmBooking(sessionId, userId, "CARD");
+
+        assertThrows(RuntimeException.class, () -> hold(List.of(seatIds.get(0)), "a", 10_000));
+    }
+
+    @Test
+    void concurrentHoldersOfOneSeatHaveOneWinner() throws Exception {
+        int holders = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(holders);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < holders; i++) {
+                String name = "h" + i;
+                List<Long> seats = i % 2 == 0
+                        ? List.of(seatIds.get(0), seatIds.get(1))
+                        : List.of(seatIds.get(1), seatIds.get(0));
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        hold(seats, name, 10_000);
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int wins = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    wins++;
+                }
+            }
+            assertEquals(1, wins);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Holds run in a transaction of their own, as they do from BookingService
+    private void hold(List<Long> seats, String name, long millis) {
+        transactionTemplate.executeWithoutResult(status -> seatHoldStore.hold(tripId, seats, session(name), userId,
+                LocalDateTime.now().plusNanos(millis * 1_000_000), 0));
+    }
+
+    private String session(String name) {
+        return tripId + "-" + name;
+    }
+}
@@ -0,0 +1,100 @@
+package com.bus.reservation.service.hold;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatMapEncoding;
+import com.bus.reservation.service.stream.SeatStreamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes sharing one database: the application's inventory and a second
+ * one built by hand, each with its own cached seat maps.
+ */
+@SpringBootTest(properties = "app.booking.hold-store=jdbc")
+class SharedSeatInventoryTest {
+
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private RouteStopRepository routeStopRepository;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private SeatHoldRepository seatHoldRepository;
+    @Autowired private TripSeatChangeRepository tripSeatChangeRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private SeatInventoryService otherNode;
+    private Long tripId;
+    private Long userId;
+    private Long seatId;
+
+    @BeforeEach
+    void setUp() {
+        otherNode = new SeatInventoryService(seatRepository, seatHoldRepository, tripRepository, routeStopRepository,
+                new SeatStreamService(new ObjectMapper(), 60000, 5000, 1), eventPublisher,
+                tripSeatChangeRepository, transactionTemplate, "jdbc");
+        userId = userRepository.save(User.builder()
+                .name("Nodes").email("nodes-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("NODE-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        Route route = routeRepository.save(Route.builder().source("Hosur").destination("Dharmapuri").build());
+        tripId = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(2), 180.0).getId();
+        seatId = seatRepository.findByTripId(tripId).stream().map(Seat::getId).sorted().findFirst().orElseThrow();
+    }
+
+    @Test
+    void saleOnOneNodeReachesTheOther() {
+        String tag = otherNode.getSeatMapTag(tripId, 0, SeatMapEncoding.BITSET);
+        assertEquals(4, otherNode.getAvailableSeats(tripId).size());
+
+        String sessionId = bookingService.holdSeats(tripId, List.of(seatId), userId);
+        bookingService.confirmBooking(sessionId, userId, "UPI");
+        otherNode.syncSharedChanges();
+
+        assertEquals(3, otherNode.getAvailableSeats(tripId).size());
+        assertEquals(3, otherNode.countSeats(List.of(tripId)).get(tripId).available());
+        assertNotEquals(tag, otherNode.getSeatMapTag(tripId, 0, SeatMapEncoding.BITSET));
+        assertTrue(otherNode.verify(tripId).getConsistent());
+    }
+
+    @Test
+    void seatCancelledOnOneNodeCanBeHeldOnTheOther() {
+        String sessionId = bookingService.holdSeats(tripId, List.of(seatId), userId);
+        Booking booking = bookingService.confirmBooking(sessionId, userId, "UPI");
+        assertTrue(otherNode.getInventory(tripId).isBooked(seatId));
+
+        bookingService.cancelBooking(booking.getId(), userId);
+
+        // No sync in between: the other node's copy still has the seat sold
+        JdbcSeatHoldStore otherStore = new JdbcSeatHoldStore(otherNode, seatHoldRepository);
+        transactionTemplate.executeWithoutResult(status -> otherStore.hold(tripId, List.of(seatId), "other-" + tripId,
+                userId, LocalDateTime.now().plusMinutes(5), 0));
+
+        assertTrue(otherNode.getInventory(tripId).isHeld(seatId));
+        seatInventoryService.syncSharedChanges();
+        assertTrue(seatInventoryService.getInventory(tripId).isHeld(seatId));
+        assertTrue(seatInventoryService.verify(tripId).getConsistent());
+    }
+}
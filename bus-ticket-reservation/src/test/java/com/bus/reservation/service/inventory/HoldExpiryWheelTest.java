@@ -0,0 +1,47 @@
+package com.bus.reservation.service.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoldExpiryWheelTest {
+
+    private final HoldExpiryWheel wheel = new HoldExpiryWheel(1000, 8, 0);
+
+    @Test
+    void holdsExpireOnceTheirDeadlinePasses() {
+        wheel.schedule(expiry("a", 2500));
+        wheel.schedule(expiry("b", 20_000));
+
+        assertTrue(wheel.advance(2000).isEmpty());
+        assertEquals(List.of("a"), sessions(wheel.advance(3000)));
+        assertEquals(1, wheel.getPending());
+        assertEquals(List.of("b"), sessions(wheel.advance(20_000)));
+        assertEquals(0, wheel.getPending());
+    }
+
+    @Test
+    void confirmedOrReleasedHoldsLeaveTheWheel() {
+        wheel.schedule(expiry("a", 5000));
+        wheel.schedule(expiry("b", 5000));
+        wheel.schedule(expiry("b", 6000));
+        assertEquals(2, wheel.getPending());
+
+        wheel.cancel("a");
+
+        assertEquals(1, wheel.getPending());
+        assertTrue(wheel.advance(5500).isEmpty());
+        assertEquals(List.of("b"), sessions(wheel.advance(6000)));
+    }
+
+    private static HoldExpiryWheel.Expiry expiry(String sessionId, long expiresAt) {
+        return new HoldExpiryWheel.Expiry(1L, sessionId, List.of(1L), expiresAt);
+    }
+
+    private static List<String> sessions(List<HoldExpiryWheel.Expiry> expiries) {
+        return expiries.stream().map(HoldExpiryWheel.Expiry::sessionId).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package com.bus.reservation.service.inventory;
+
+import com.bus.reservation.model.Seat;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatAllocatorTest {
+
+    @Test
+    void pairSitsSideBySideAtTheFront() {
+        TripSeatInventory inventory = inventory(40, Set.of());
+
+        assertEquals(List.of(1L, 2L), SeatAllocator.allocate(inventory, 2, true, false));
+    }
+
+    @Test
+    void partyOfFourTakesAWholeRowOverSplittingRows() {
+        TripSeatInventory inventory = inventory(40, Set.of(2));
+
+        assertEquals(List.of(5L, 6L, 7L, 8L), SeatAllocator.allocate(inventory, 4, true, false));
+    }
+
+    @Test
+    void pairAvoidsTheAisleWhenItCan() {
+        // S1 and S4 taken: S2-S3 would straddle the aisle, S5-S6 does not
+        TripSeatInventory inventory = inventory(40, Set.of(1, 4));
+
+        assertEquals(List.of(5L, 6L), SeatAllocator.allocate(inventory, 2, true, false));
+    }
+
+    @Test
+    void closestSeatsWhenNoBlockIsFree() {
+        // Every other seat taken except S9 and S11
+        Set<Integer> booked = new HashSet<>();
+        for (int i = 1; i <= 12; i++) {
+            if (i != 9 && i != 11) {
+                booked.add(i);
+            }
+        }
+
+        assertEquals(List.of(9L, 11L), SeatAllocator.allocate(inventory(12, booked), 2, true, false));
+    }
+
+    @Test
+    void windowSeatsFirstWhenNotTogether() {
+        assertEquals(List.of(1L, 4L, 5L), SeatAllocator.allocate(inventory(40, Set.of()), 3, false, true));
+    }
+
+    @Test
+    void fullTripAllocatesNothing() {
+        Set<Integer> booked = new HashSet<>();
+        for (int i = 1; i <= 8; i++) {
+            booked.add(i);
+        }
+
+        assertTrue(SeatAllocator.allocate(inventory(8, booked), 1, true, false).isEmpty());
+    }
+
+    @Test
+    void allocationTakesMicroseconds() {
+        Random random = new Random(42);
+        Set<Integer> booked = new HashSet<>();
+        for (int i = 1; i <= 60; i++) {
+            if (random.nextInt(3) == 0) {
+                booked.add(i);
+            }
+        }
+        TripSeatInventory inventory = inventory(60, booked);
+
+        int rounds = 100_000;
+        for (int i = 0; i < rounds; i++) {
+            SeatAllocator.allocate(inventory, 4, true, true);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            SeatAllocator.allocate(inventory, 4, true, true);
+        }
+        double micros = (System.nanoTime() - started) / 1e3 / rounds;
+        System.out.printf("60-seat layout, party of 4: %.2f us per allocation%n", micros);
+
+        assertTrue(micros < 100);
+    }
+
+    // Seat i has id i and number "Si"
+    private TripSeatInventory inventory(int seats, Set<Integer> booked) {
+        List<Seat> list = new ArrayList<>();
+        for (int i = 1; i <= seats; i++) {
+            list.add(Seat.builder()
+                    .id((long) i)
+                    .seatNumber("S" + i)
+                    .seatType((i % 4 == 1 || i % 4 == 0) ? "Window" : "Aisle")
+                    .isBooked(booked.contains(i))
+                    .build());
+        }
+        return new TripSeatInventory(1L, LocalDateTime.now().plusDays(1), list, List.of());
+    }
+}
@@ -0,0 +1,61 @@
+package com.bus.reservation.service.inventory;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.TripService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SeatInventoryLoadTest {
+
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void loadSeesCommitsMadeAfterTheCallersSnapshot() {
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("LOAD-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        Route route = routeRepository.save(Route.builder().source("Erode").destination("Karur").build());
+        LocalDateTime departure = LocalDateTime.now().plusDays(3);
+        Long tripId = tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(2), 150.0)
+                .getId();
+        Long seatId = seatRepository.findByTripId(tripId).stream().map(Seat::getId).sorted().findFirst().orElseThrow();
+
+        TransactionTemplate repeatableRead = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        TripSeatInventory inventory = repeatableRead.execute(status -> {
+            // Takes the caller's snapshot before the sale commits
+            seatRepository.findByTripId(tripId);
+            CompletableFuture.runAsync(() -> sell(tripId, seatId)).join();
+            return seatInventoryService.getInventory(tripId);
+        });
+
+        assertTrue(inventory.isBooked(seatId));
+        assertTrue(seatInventoryService.verify(tripId).getConsistent());
+    }
+
+    // A sale committed by another transaction, reported the way the booking paths report it
+    private void sell(Long tripId, Long seatId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Seat seat = seatRepository.findById(seatId).orElseThrow();
+            seat.setBooked(true);
+            seatRepository.save(seat);
+            seatInventoryService.markBooked(tripId, List.of(seatId), 0, null);
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.bus.reservation.service.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeatMapEncodingTest {
+
+    @Test
+    void runLengthsStartWithFreeSeats() {
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(3, 5);
+
+        assertEquals("0,1,2,2,3", SeatMapEncoding.RLE.encode(bits, 8));
+        assertEquals("8", SeatMapEncoding.RLE.encode(new BitSet(), 8));
+    }
+
+    @Test
+    void encodingsRoundTrip() {
+        BitSet bits = new BitSet();
+        bits.set(1);
+        bits.set(40, 45);
+        bits.set(63);
+        bits.set(64);
+
+        for (SeatMapEncoding encoding : SeatMapEncoding.values()) {
+            assertEquals(bits, encoding.decode(encoding.encode(bits, 70), 70), encoding.name());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.bus.reservation.service.schedule;
+
+import com.bus.reservation.dto.BulkScheduleStatus;
+import com.bus.reservation.dto.TripScheduleRule;
+import com.bus.reservation.model.Bus;
+import com.bus.reservation.model.Route;
+import com.bus.reservation.model.Trip;
+import com.bus.reservation.repository.BusRepository;
+import com.bus.reservation.repository.RouteRepository;
+import com.bus.reservation.repository.SeatRepository;
+import com.bus.reservation.repository.TripRepository;
+import com.bus.reservation.service.RouteService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.schedule.chunk-size=5")
+@Import(StatementCounter.class)
+class TripScheduleServiceTest {
+
+    @Autowired private TripScheduleService tripScheduleService;
+    @Autowired private TripService tripService;
+    @Autowired private RouteService routeService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    @Test
+    void rerunOverTheSameRangeOnlyAddsMissingDepartures() throws Exception {
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("BULK-" + UUID.randomUUID()).busType("AC Sleeper").totalSeats(30).build());
+        Route route = routeRepository.save(Route.builder().source("Chennai").destination("Madurai").build());
+        LocalDate monday = LocalDate.now().plusWeeks(2).with(DayOfWeek.MONDAY);
+
+        // Two weeks, Monday/Wednesday/Friday, twice a day: 12 departures
+        TripScheduleRule rule = TripScheduleRule.builder()
+                .busId(bus.getId()).routeId(route.getId())
+                .startDate(monday).endDate(monday.plusDays(13))
+                .daysOfWeek(Set.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY))
+                .departureTimes(List.of(LocalTime.of(21, 30), LocalTime.of(7, 0)))
+                .durationMinutes(480).fare(650.0)
+                .build();
+
+        // One departure already exists and must be left alone
+        tripService.scheduleTrip(bus.getId(), route.getId(),
+                monday.atTime(7, 0), monday.atTime(15, 0), 650.0);
+
+        BulkScheduleStatus first = await(tripScheduleService.start(List.of(rule)).getJobId());
+        assertEquals("COMPLETED", first.getState());
+        assertEquals(12, first.getTotalTrips());
+        assertEquals(11, first.getCreatedTrips());
+        assertEquals(1, first.getSkippedTrips());
+        assertEquals(11 * 30, first.getCreatedSeats());
+
+        BulkScheduleStatus second = await(tripScheduleService.start(List.of(rule)).getJobId());
+        assertEquals(0, second.getCreatedTrips());
+        assertEquals(12, second.getSkippedTrips());
+
+        List<Trip> trips = tripRepository.findByBusId(bus.getId());
+        assertEquals(12, trips.size());
+        Trip overnight = trips.stream()
+                .filter(trip -> trip.getDepartureTime().equals(monday.plusDays(2).atTime(21, 30)))
+                .findFirst().orElseThrow();
+        assertEquals(monday.plusDays(3).atTime(5, 30), overnight.getArrivalTime());
+        assertEquals(30, seatRepository.findByTripId(overnight.getId()).size());
+        assertEquals("Window", seatRepository.findByTripId(overnight.getId()).stream()
+                .filter(seat -> seat.getSeatNumber().equals("S4")).findFirst().orElseThrow().getSeatType());
+    }
+
+    @Test
+    void singleTripSeatsGoInWithOneStatement() {
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("ONE-" + UUID.randomUUID()).busType("Seater").totalSeats(40).build());
+        // Added as the API adds routes, so it is linked to its cities already
+        Route route = routeService.addRoute(Route.builder().source("Madurai").destination("Trichy").build());
+
+        StatementCounter.reset();
+        tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(5).plusHours(3), 250.0);
+        int statements = StatementCounter.count();
+        System.out.printf("scheduleTrip with 40 seats: %d statements (was 43)%n", statements);
+
+        assertTrue(statements <= 4);
+    }
+
+    @Test
+    void invalidRuleIsRejectedUpFront() {
+        TripScheduleRule rule = TripScheduleRule.builder()
+                .busId(1L).routeId(1L)
+                .startDate(LocalDate.now().plusDays(3)).endDate(LocalDate.now())
+                .departureTimes(List.of(LocalTime.NOON)).durationMinutes(60).fare(100.0)
+                .build();
+
+        assertThrows(RuntimeException.class, () -> tripScheduleService.start(List.of(rule)));
+    }
+
+    private BulkScheduleStatus await(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            BulkScheduleStatus status = tripScheduleService.getStatus(jobId);
+            if (!"RUNNING".equals(status.getState())) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        fail("Schedule job did not finish");
+        return null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.TripSearchResult;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.RouteService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class CityDictionaryTest {
+
+    @Autowired private CityDictionary cityDictionary;
+    @Autowired private TripService tripService;
+    @Autowired private RouteService routeService;
+    @Autowired private BusRepository busRepository;
+
+    private Bus bus;
+    private Route route;
+    private String source;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        bus = busRepository.save(Bus.builder()
+                .busNumber("CITY-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        source = "Chengalpattu " + UUID.randomUUID();
+        route = routeService.addRoute(Route.builder().source(source).destination("Vellore").build());
+        day = LocalDate.now().plusDays(4);
+    }
+
+    @Test
+    void spellingsOfOneCityShareAnId() {
+        Long id = cityDictionary.resolve(source);
+
+        assertNotNull(id);
+        assertEquals(id, route.getSourceCity().getId());
+        assertEquals(id, cityDictionary.resolve("  " + source.toUpperCase() + " "));
+        assertEquals(id, cityDictionary.resolve(source.replace(" ", "-")));
+        assertEquals(cityDictionary.intern("Vellore"), cityDictionary.resolve("vellore"));
+        assertEquals(cityDictionary.intern("Pondicherry"), cityDictionary.resolve("Pondichérry"));
+    }
+
+    @Test
+    void aliasesFindTheCitysTrips() {
+        Trip trip = schedule(day.atTime(7, 0));
+        String alias = "Chingleput " + UUID.randomUUID();
+
+        routeService.addCityAlias(cityDictionary.resolve(source), alias);
+
+        List<TripSearchResult> found = tripService.searchTrips(alias.toLowerCase(), "VELLORE", day.atStartOfDay());
+        assertEquals(List.of(trip.getId()), found.stream().map(TripSearchResult::getTripId).toList());
+        assertEquals(source, found.get(0).getSource());
+        assertThrows(RuntimeException.class, () -> routeService.addCityAlias(cityDictionary.resolve(source), "Vellore"));
+    }
+
+    @Test
+    void unknownCitiesFindNothingWithoutTheDatabase() {
+        schedule(day.atTime(7, 0));
+        cityDictionary.resolve(source);
+
+        StatementCounter.reset();
+        assertTrue(tripService.searchTrips("Nowhere " + UUID.randomUUID(), "Vellore", day.atStartOfDay()).isEmpty());
+        assertTrue(tripService.listTrips("Nowhere " + UUID.randomUUID(), null, null, null, null, null, null, null)
+                .getItems().isEmpty());
+        assertEquals(0, StatementCounter.count());
+    }
+
+    @Test
+    void listFiltersMatchAnySpelling() {
+        Trip trip = schedule(day.atTime(9, 0));
+
+        List<Trip> listed = tripService.listTrips(source.toLowerCase(), " vellore", null, null, null, null, null, null)
+                .getItems();
+
+        assertEquals(List.of(trip.getId()), listed.stream().map(Trip::getId).toList());
+        assertEquals(List.of(route.getId()), routeService.listRoutes(source.toUpperCase(), null, null, null)
+                .getItems().stream().map(Route::getId).toList());
+    }
+
+    private Trip schedule(LocalDateTime departure) {
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(3), 300.0);
+    }
+}
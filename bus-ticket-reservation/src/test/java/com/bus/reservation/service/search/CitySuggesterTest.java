@@ -0,0 +1,84 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.RouteService;
+import com.bus.reservation.service.TripService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CitySuggesterTest {
+
+    @Autowired private CitySuggester citySuggester;
+    @Autowired private RouteService routeService;
+    @Autowired private TripService tripService;
+    @Autowired private BookingService bookingService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    // Made-up first word of every city name, so other tests' cities stay out
+    private String tag;
+
+    @BeforeEach
+    void setUp() {
+        tag = "Qx" + UUID.randomUUID().toString().replaceAll("[^a-f]", "");
+    }
+
+    @Test
+    void matchesIgnoringCaseAccentsAndSpellingVariants() {
+        routeService.addRoute(Route.builder().source(tag + " Tiruchchirappalli").destination(tag + " Coímbatore").build());
+
+        assertEquals(List.of(tag + " Tiruchchirappalli"), routeService.suggestCities(tag.toUpperCase() + " thiruchirapal", 10));
+        assertEquals(List.of(tag + " Coímbatore"), routeService.suggestCities(tag + "-coimb", 10));
+        assertEquals(2, routeService.suggestCities(tag, 10).size());
+        assertTrue(routeService.suggestCities("  ", 10).isEmpty());
+        assertTrue(routeService.suggestCities(tag + " Madurai", 10).isEmpty());
+    }
+
+    @Test
+    void moreBookedCitiesComeFirst() {
+        routeService.addRoute(Route.builder().source(tag + "ambur").destination("Chennai").build());
+        Route arcot = routeService.addRoute(Route.builder().source(tag + "arcot").destination("Chennai").build());
+        assertEquals(List.of(tag + "ambur", tag + "arcot"), routeService.suggestCities(tag + "a", 10));
+
+        book(arcot);
+        citySuggester.refreshPopularity();
+
+        assertEquals(List.of(tag + "arcot", tag + "ambur"), routeService.suggestCities(tag + "a", 10));
+        assertEquals(List.of(tag + "arcot"), routeService.suggestCities(tag, 1));
+    }
+
+    @Test
+    void newRoutesAndStopsAreSuggestedAtOnce() {
+        routeService.suggestCities(tag, 10);
+        Route route = routeService.addRoute(Route.builder().source(tag + "vellore").destination(tag + "salem").build());
+        routeService.setStops(route.getId(), List.of(tag + "krishnagiri"));
+
+        assertEquals(List.of(tag + "krishnagiri", tag + "salem", tag + "vellore"), routeService.suggestCities(tag, 10));
+        assertEquals(List.of(tag + "vellore"), routeService.suggestCities(tag + "wel", 10));
+    }
+
+    private void book(Route route) {
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("SUG-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        Trip trip = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(3), 300.0);
+        Long userId = userRepository.save(User.builder()
+                .name("Suggest").email("suggest-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        Long seatId = seatRepository.findByTripId(trip.getId()).get(0).getId();
+        bookingService.confirmBooking(bookingService.holdSeats(trip.getId(), List.of(seatId), userId), userId, "UPI");
+    }
+}
@@ -0,0 +1,120 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.JourneyPlan;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.TripService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Coimbatore to Hyderabad: overnight direct, or faster with a change at Bangalore.
+ */
+@SpringBootTest
+class ConnectionPlannerTest {
+
+    @Autowired private ConnectionPlanner connectionPlanner;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+
+    private String coimbatore;
+    private String bangalore;
+    private String hyderabad;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        // City names of their own keep other tests' trips out of the journeys
+        String suffix = "-" + UUID.randomUUID();
+        coimbatore = "Coimbatore" + suffix;
+        bangalore = "Bangalore" + suffix;
+        hyderabad = "Hyderabad" + suffix;
+        day = LocalDate.now().plusDays(3);
+    }
+
+    @Test
+    void earliestArrivalChangesBusWhileCheapestGoesDirect() {
+        Trip toBangalore = schedule(coimbatore, bangalore, day.atTime(6, 0), day.atTime(12, 0), 500.0);
+        schedule(bangalore, hyderabad, day.atTime(12, 20), day.atTime(20, 0), 900.0);   // Too tight a change
+        Trip onward = schedule(bangalore, hyderabad, day.atTime(13, 0), day.atTime(21, 0), 900.0);
+        schedule(bangalore, hyderabad, day.atTime(16, 0), day.atTime(23, 30), 1000.0);  // Later and dearer
+        Trip direct = schedule(coimbatore, hyderabad, day.atTime(8, 0), day.plusDays(1).atTime(6, 0), 1200.0);
+
+        JourneyPlan plan = connectionPlanner.plan(coimbatore.toUpperCase(), hyderabad, day.atStartOfDay());
+
+        assertEquals(List.of(toBangalore.getId(), onward.getId()), tripIds(plan.getEarliestArrival().getLegs()));
+        assertEquals(1, plan.getEarliestArrival().getTransfers());
+        assertEquals(1400.0, plan.getEarliestArrival().getTotalFare());
+        assertEquals(900, plan.getEarliestArrival().getDurationMinutes());
+        assertEquals(List.of(direct.getId()), tripIds(plan.getCheapest().getLegs()));
+        assertEquals(2, plan.getOptions().size());
+    }
+
+    @Test
+    void timetableFollowsTripChanges() {
+        schedule(coimbatore, bangalore, day.atTime(6, 0), day.atTime(12, 0), 500.0);
+        Trip onward = schedule(bangalore, hyderabad, day.atTime(13, 0), day.atTime(21, 0), 900.0);
+        assertNotNull(connectionPlanner.plan(coimbatore, hyderabad, day.atStartOfDay()).getEarliestArrival());
+
+        Trip details = Trip.builder()
+                .bus(onward.getBus()).route(onward.getRoute())
+                .departureTime(day.atTime(11, 30)).arrivalTime(day.atTime(19, 30))
+                .fare(900.0).build();
+        tripService.updateTrip(onward.getId(), details);
+        assertNull(connectionPlanner.plan(coimbatore, hyderabad, day.atStartOfDay()).getEarliestArrival());
+
+        Trip later = schedule(bangalore, hyderabad, day.atTime(18, 0), day.plusDays(1).atTime(2, 0), 800.0);
+        JourneyPlan plan = connectionPlanner.plan(coimbatore, hyderabad, day.atStartOfDay());
+        assertEquals(later.getId(), plan.getEarliestArrival().getLegs().get(1).getId());
+
+        tripService.deleteTrip(later.getId());
+        assertTrue(connectionPlanner.plan(coimbatore, hyderabad, day.atStartOfDay()).getOptions().isEmpty());
+    }
+
+    @Test
+    void dearerArrivalOnFewerBusesIsKeptForLongerJourneys() {
+        String salem = "Salem-" + UUID.randomUUID();
+        String chennai = "Chennai-" + UUID.randomUUID();
+        // Cheapest to Bangalore is two buses via Salem, which leaves no leg for the last two
+        schedule(coimbatore, salem, day.atTime(5, 0), day.atTime(7, 0), 100.0);
+        schedule(salem, bangalore, day.atTime(8, 0), day.atTime(11, 0), 100.0);
+        Trip direct = schedule(coimbatore, bangalore, day.atTime(6, 0), day.atTime(11, 0), 500.0);
+        Trip toChennai = schedule(bangalore, chennai, day.atTime(12, 0), day.atTime(18, 0), 400.0);
+        Trip toHyderabad = schedule(chennai, hyderabad, day.atTime(19, 0), day.plusDays(1).atTime(7, 0), 800.0);
+
+        JourneyPlan plan = connectionPlanner.plan(coimbatore, hyderabad, day.atStartOfDay());
+
+        assertNotNull(plan.getCheapest());
+        assertEquals(List.of(direct.getId(), toChennai.getId(), toHyderabad.getId()), tripIds(plan.getCheapest().getLegs()));
+    }
+
+    @Test
+    void leavingTooLateOrGoingNowhereFindsNothing() {
+        schedule(coimbatore, bangalore, day.atTime(6, 0), day.atTime(12, 0), 500.0);
+        schedule(bangalore, hyderabad, day.atTime(13, 0), day.atTime(21, 0), 900.0);
+
+        assertNull(connectionPlanner.plan(coimbatore, hyderabad, day.atTime(7, 0)).getCheapest());
+        assertThrows(RuntimeException.class, () -> connectionPlanner.plan(coimbatore, " " + coimbatore, day.atStartOfDay()));
+    }
+
+    private Trip schedule(String source, String destination, LocalDateTime departure, LocalDateTime arrival, double fare) {
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("CON-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        Route route = routeRepository.save(Route.builder().source(source).destination(destination).build());
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, arrival, fare);
+    }
+
+    private static List<Long> tripIds(List<Trip> trips) {
+        return trips.stream().map(Trip::getId).toList();
+    }
+}
@@ -0,0 +1,136 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.FareCalendar;
+import com.bus.reservation.dto.FareCalendarDay;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatsChangedEvent;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class FareCalendarIndexTest {
+
+    @Autowired private FareCalendarIndex fareCalendarIndex;
+    @Autowired private TripSearchIndex tripSearchIndex;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private TripService tripService;
+    @Autowired private BookingService bookingService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    private Bus bus;
+    private Route route;
+    private String source;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        bus = busRepository.save(Bus.builder()
+                .busNumber("CAL-" + UUID.randomUUID()).busType("Seater").totalSeats(2).build());
+        source = "Karur-" + UUID.randomUUID();
+        route = routeRepository.save(Route.builder().source(source).destination("Nagercoil").build());
+        day = LocalDate.now().plusDays(10);
+    }
+
+    @Test
+    void monthIsAnsweredFromMemoryOnceRead() {
+        schedule(day.atTime(8, 0), 700.0);
+        schedule(day.atTime(21, 0), 450.0);
+        schedule(day.plusDays(2).atTime(9, 0), 400.0);
+
+        FareCalendar first = fareCalendarIndex.calendar(source, "Nagercoil", day, 30);
+        StatementCounter.reset();
+        FareCalendar again = fareCalendarIndex.calendar(source.toUpperCase(), "nagercoil", day, 30);
+
+        assertEquals(0, StatementCounter.count());
+        assertEquals(first.getDays(), again.getDays());
+        assertEquals(30, again.getDays().size());
+        assertDay(again.getDays().get(0), 450.0, 2, 4);
+        assertDay(again.getDays().get(1), null, 0, 0);
+        assertDay(again.getDays().get(2), 400.0, 1, 2);
+        assertEquals(day.plusDays(2), again.getCheapestDay());
+        assertThrows(RuntimeException.class, () -> fareCalendarIndex.calendar(source, "Nagercoil", day, 91));
+    }
+
+    @Test
+    void soldSeatsAndTripChangesAreReflected() {
+        Trip cheap = schedule(day.atTime(6, 0), 300.0);
+        Trip dear = schedule(day.atTime(18, 0), 600.0);
+        fareCalendarIndex.calendar(source, "Nagercoil", day, 3);
+
+        Long userId = userRepository.save(User.builder()
+                .name("Calendar").email("calendar-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        bookingService.holdSeats(cheap.getId(),
+                seatRepository.findByTripId(cheap.getId()).stream().map(Seat::getId).toList(), userId);
+
+        StatementCounter.reset();
+        FareCalendarDay sold = fareCalendarIndex.calendar(source, "Nagercoil", day, 3).getDays().get(0);
+        assertEquals(0, StatementCounter.count());
+        assertDay(sold, 600.0, 2, 2);
+
+        Trip moved = Trip.builder()
+                .bus(bus).route(route)
+                .departureTime(day.plusDays(1).atTime(18, 0)).arrivalTime(day.plusDays(1).atTime(23, 0))
+                .fare(550.0).build();
+        tripService.updateTrip(dear.getId(), moved);
+
+        FareCalendar after = fareCalendarIndex.calendar(source, "Nagercoil", day, 3);
+        assertDay(after.getDays().get(0), null, 1, 0);
+        assertDay(after.getDays().get(1), 550.0, 1, 2);
+    }
+
+    @Test
+    void daysAreKeptWhileOtherTripsSeatsChange() throws InterruptedException {
+        FareCalendarIndex calendar = new FareCalendarIndex(tripSearchIndex, seatInventoryService, 1000);
+        schedule(day.atTime(8, 0), 500.0);
+
+        AtomicBoolean reading = new AtomicBoolean(true);
+        Thread churn = new Thread(() -> {
+            while (reading.get()) {
+                calendar.onSeatsChanged(new SeatsChangedEvent(-1L, null, List.of()));
+            }
+        });
+        churn.start();
+        try {
+            calendar.calendar(source, "Nagercoil", day, 30);
+        } finally {
+            reading.set(false);
+            churn.join();
+        }
+
+        StatementCounter.reset();
+        assertDay(calendar.calendar(source, "Nagercoil", day, 30).getDays().get(0), 500.0, 1, 2);
+        assertEquals(0, StatementCounter.count());
+    }
+
+    private Trip schedule(LocalDateTime departure, double fare) {
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(5), fare);
+    }
+
+    private static void assertDay(FareCalendarDay day, Double minFare, int trips, int availableSeats) {
+        assertEquals(minFare, day.getMinFare());
+        assertEquals(trips, day.getTrips());
+        assertEquals(availableSeats, day.getAvailableSeats());
+    }
+}
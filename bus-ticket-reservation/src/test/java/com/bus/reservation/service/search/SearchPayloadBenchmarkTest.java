@@ -0,0 +1,137 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.TripSearchResult;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.support.StatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payload size, database statements and p99 latency of a 20-trip day search:
+ * full Trip entities with their seats and per-trip counts, as the endpoints
+ * used to answer, against the lean search result.
+ */
+@SpringBootTest
+@Import(StatementCounter.class)
+class SearchPayloadBenchmarkTest {
+
+    private static final int TRIPS = 20;
+    private static final int SEATS = 40;
+    private static final int WARMUP = 20;
+    private static final int RUNS = 200;
+
+    @Autowired private CityDictionary cityDictionary;
+    @Autowired private TripSearchIndex tripSearchIndex;
+    @Autowired private SearchResultCache searchResultCache;
+    @Autowired private TripService tripService;
+    @Autowired private BookingService bookingService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void leanResultsAreSmallerAndCountedInOneQuery() throws Exception {
+        String source = "Hosur-" + UUID.randomUUID();
+        Route route = routeRepository.save(Route.builder().source(source).destination("Mysore").build());
+        LocalDate day = LocalDate.now().plusDays(6);
+        List<Trip> trips = new ArrayList<>();
+        for (int i = 0; i < TRIPS; i++) {
+            Bus bus = busRepository.save(Bus.builder()
+                    .busNumber("LEAN-" + UUID.randomUUID()).busType("AC Sleeper").totalSeats(SEATS).build());
+            trips.add(tripService.scheduleTrip(bus.getId(), route.getId(),
+                    day.atTime(6, 0).plusMinutes(30L * i), day.atTime(12, 0).plusMinutes(30L * i), 650.0));
+        }
+
+        // One trip with a hold (its inventory is cached), one sold seat on a trip counted in the database
+        Long userId = userRepository.save(User.builder()
+                .name("Lean").email("lean-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        bookingService.holdSeats(trips.get(0).getId(), List.of(firstSeat(trips.get(0))), userId);
+        Long sold = firstSeat(trips.get(1));
+        transactionTemplate.executeWithoutResult(tx -> seatRepository.markBookedIfFree(List.of(sold), 1L));
+
+        Callable<byte[]> legacy = () -> objectMapper.writeValueAsBytes(legacySearch(source, day));
+        Callable<byte[]> lean = () -> objectMapper.writeValueAsBytes(searchResultCache.toResults(
+                tripSearchIndex.search(source, "Mysore", day.atStartOfDay(), day.atTime(23, 59, 59))));
+
+        List<TripSearchResult> results = searchResultCache.toResults(
+                tripSearchIndex.search(source, "Mysore", day.atStartOfDay(), day.atTime(23, 59, 59)));
+        assertEquals(TRIPS, results.size());
+        assertEquals(SEATS - 1, results.get(0).getAvailableSeats());
+        assertEquals(SEATS - 1, results.get(1).getAvailableSeats());
+        assertEquals(SEATS, results.get(2).getAvailableSeats());
+        assertEquals(SEATS, results.get(2).getTotalSeats());
+
+        StatementCounter.reset();
+        int legacyBytes = legacy.call().length;
+        int legacyStatements = StatementCounter.count();
+        StatementCounter.reset();
+        int leanBytes = lean.call().length;
+        int leanStatements = StatementCounter.count();
+
+        long legacyP99 = p99(legacy);
+        long leanP99 = p99(lean);
+        System.out.printf("%d-trip search: before %d bytes, %d statements, p99 %d us; after %d bytes, %d statements, p99 %d us%n",
+                TRIPS, legacyBytes, legacyStatements, legacyP99 / 1000, leanBytes, leanStatements, leanP99 / 1000);
+
+        assertTrue(leanBytes * 10 < legacyBytes);
+        assertEquals(1, leanStatements);
+        assertTrue(legacyStatements > TRIPS);
+    }
+
+    // The search as it was: trip entities with their seats, and a count query per trip
+    private List<Map<String, Object>> legacySearch(String source, LocalDate day) {
+        List<Map<String, Object>> found = new ArrayList<>();
+        for (Trip trip : tripRepository.findByCitiesAndDepartureTimeBetween(cityDictionary.resolve(source),
+                cityDictionary.resolve("Mysore"), day.atStartOfDay(), day.atTime(23, 59, 59))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("trip", trip);
+            entry.put("seats", seatRepository.findByTripId(trip.getId()));
+            entry.put("availableSeats", seatRepository.countByTripIdAndIsBooked(trip.getId(), false));
+            found.add(entry);
+        }
+        return found;
+    }
+
+    private Long firstSeat(Trip trip) {
+        return seatRepository.findByTripId(trip.getId()).stream().map(Seat::getId).sorted().findFirst().orElseThrow();
+    }
+
+    private static long p99(Callable<byte[]> search) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            search.call();
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long started = System.nanoTime();
+            search.call();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        return nanos[(int) Math.ceil(RUNS * 0.99) - 1];
+    }
+}
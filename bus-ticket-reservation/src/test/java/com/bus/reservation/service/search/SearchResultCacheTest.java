@@ -0,0 +1,154 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.SearchCacheStats;
+import com.bus.reservation.dto.TripSearchResult;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.service.inventory.SeatInventoryService;
+import com.bus.reservation.service.inventory.SeatsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SearchResultCacheTest {
+
+    @Autowired private SearchResultCache searchResultCache;
+    @Autowired private TripSearchIndex tripSearchIndex;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private TripService tripService;
+    @Autowired private BookingService bookingService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+
+    private Bus bus;
+    private Route route;
+    private String source;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        bus = busRepository.save(Bus.builder()
+                .busNumber("CACHE-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        // A city name of its own keeps other tests' trips out of the results
+        source = "Karur-" + UUID.randomUUID();
+        route = routeRepository.save(Route.builder().source(source).destination("Namakkal").build());
+        day = LocalDate.now().plusDays(4);
+    }
+
+    @Test
+    void repeatedSearchIsAHitUntilASeatChanges() {
+        Trip trip = schedule(day.atTime(7, 0));
+        SearchCacheStats before = searchResultCache.getStats();
+
+        assertEquals(4, search().get(0).getAvailableSeats());
+        assertSame(search(), search());
+        SearchCacheStats warm = searchResultCache.getStats();
+        assertEquals(1, warm.getMisses() - before.getMisses());
+        assertEquals(2, warm.getHits() - before.getHits());
+
+        Long userId = userRepository.save(User.builder()
+                .name("Cache").email("cache-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+        Long seatId = seatRepository.findByTripId(trip.getId()).get(0).getId();
+        String sessionId = bookingService.holdSeats(trip.getId(), List.of(seatId), userId);
+
+        assertEquals(3, search().get(0).getAvailableSeats());
+        bookingService.releaseSeatHold(sessionId);
+        assertEquals(4, search().get(0).getAvailableSeats());
+        assertTrue(searchResultCache.getStats().getInvalidations() - warm.getInvalidations() >= 2);
+    }
+
+    @Test
+    void scheduledMovedAndDeletedTripsInvalidateTheirDays() {
+        Trip moved = schedule(day.atTime(7, 0));
+        assertEquals(1, search().size());
+        List<TripSearchResult> nextDay = tripService.searchTrips(source, "Namakkal", day.plusDays(1).atStartOfDay());
+        assertTrue(nextDay.isEmpty());
+
+        Trip added = schedule(day.atTime(9, 0));
+        assertEquals(List.of(moved.getId(), added.getId()), search().stream().map(result -> result.getTripId()).toList());
+
+        Trip details = Trip.builder()
+                .departureTime(day.plusDays(1).atTime(7, 0)).arrivalTime(day.plusDays(1).atTime(12, 0))
+                .fare(450.0).build();
+        tripService.updateTrip(moved.getId(), details);
+        tripService.deleteTrip(added.getId());
+
+        assertTrue(search().isEmpty());
+        assertEquals(1, tripService.searchTrips(source, "Namakkal", day.plusDays(1).atStartOfDay()).size());
+    }
+
+    @Test
+    void leastRecentlyUsedSearchesAreEvictedBeyondTheTripBudget() {
+        SearchResultCache small = new SearchResultCache(tripSearchIndex, seatInventoryService, 4);
+        schedule(day.atTime(7, 0));
+        schedule(day.plusDays(1).atTime(7, 0));
+
+        small.search(source, "Namakkal", day);
+        small.search(source, "Namakkal", day.plusDays(1));
+        small.search(source, "Namakkal", day);
+        small.search(source, "Namakkal", day.plusDays(2));
+
+        SearchCacheStats stats = small.getStats();
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getEntries());
+        assertEquals(3, stats.getWeight());
+        small.search(source, "Namakkal", day);
+        assertEquals(2, small.getStats().getHits());
+    }
+
+    @Test
+    void searchesAreCachedWhileOtherTripsSeatsChange() throws InterruptedException {
+        SearchResultCache cache = new SearchResultCache(tripSearchIndex, seatInventoryService, 1000);
+        int days = 20;
+        for (int i = 0; i < days; i++) {
+            schedule(day.plusDays(i).atTime(7, 0));
+        }
+
+        // Seats of a trip in none of the searches keep changing throughout
+        AtomicBoolean searching = new AtomicBoolean(true);
+        Thread churn = new Thread(() -> {
+            while (searching.get()) {
+                cache.onSeatsChanged(new SeatsChangedEvent(-1L, null, List.of()));
+            }
+        });
+        churn.start();
+        try {
+            for (int i = 0; i < days; i++) {
+                cache.search(source, "Namakkal", day.plusDays(i));
+            }
+        } finally {
+            searching.set(false);
+            churn.join();
+        }
+
+        assertEquals(days, cache.getStats().getEntries());
+        for (int i = 0; i < days; i++) {
+            cache.search(source, "Namakkal", day.plusDays(i));
+        }
+        assertEquals(days, cache.getStats().getHits());
+    }
+
+    private List<TripSearchResult> search() {
+        return tripService.searchTrips(source, "Namakkal", day.atTime(12, 0));
+    }
+
+    private Trip schedule(LocalDateTime departure) {
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(5), 400.0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.TripFacets;
+import com.bus.reservation.dto.TripFilter;
+import com.bus.reservation.dto.TripSearchResult;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class TripFacetSearchTest {
+
+    @Autowired private TripFacetSearch tripFacetSearch;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+
+    private Route route;
+    private String source;
+    private LocalDate day;
+    private Trip sleeperNight;
+    private Trip sleeperEvening;
+    private Trip seaterMorning;
+
+    @BeforeEach
+    void setUp() {
+        source = "Hosur-" + UUID.randomUUID();
+        route = routeRepository.save(Route.builder().source(source).destination("Kumbakonam").build());
+        day = LocalDate.now().plusDays(6);
+        Bus sleeper = bus("AC Sleeper", "KPN");
+        Bus otherSleeper = bus("AC Sleeper", "SRS");
+        Bus seater = bus("Seater", "KPN");
+
+        seaterMorning = schedule(seater, day.atTime(7, 0), 5, 350.0);
+        sleeperEvening = schedule(otherSleeper, day.atTime(19, 0), 8, 900.0);
+        sleeperNight = schedule(sleeper, day.atTime(22, 0), 7, 800.0);
+    }
+
+    @Test
+    void facetsCountEveryOtherFilter() {
+        TripFacets facets = tripFacetSearch.search(filter().busTypes(List.of("ac sleeper")).operators(List.of("KPN")).build());
+
+        assertEquals(List.of(sleeperNight.getId()), tripIds(facets.getResults()));
+        assertEquals(3, facets.getTotalTrips());
+        // Bus types among KPN's trips, operators among the sleepers
+        assertEquals(Map.of("Seater", 1, "AC Sleeper", 1), facets.getBusTypes());
+        assertEquals(Map.of("KPN", 1, "SRS", 1), facets.getOperators());
+        assertEquals(800.0, facets.getMinFare());
+        assertEquals(800.0, facets.getMaxFare());
+    }
+
+    @Test
+    void filtersAndSortsFromTheCachedDay() {
+        tripFacetSearch.search(filter().build());
+
+        StatementCounter.reset();
+        TripFacets byFare = tripFacetSearch.search(filter().sort("fare").build());
+        TripFacets byDuration = tripFacetSearch.search(filter().sort("duration").departAfter(LocalTime.of(12, 0)).build());
+        TripFacets band = tripFacetSearch.search(filter().minFare(400.0).maxFare(850.0).build());
+        assertEquals(0, StatementCounter.count());
+
+        assertEquals(List.of(seaterMorning.getId(), sleeperNight.getId(), sleeperEvening.getId()), tripIds(byFare.getResults()));
+        assertEquals(List.of(sleeperNight.getId(), sleeperEvening.getId()), tripIds(byDuration.getResults()));
+        assertEquals(List.of(sleeperNight.getId()), tripIds(band.getResults()));
+        assertEquals(350.0, band.getMinFare());
+        assertEquals(900.0, band.getMaxFare());
+        assertTrue(tripFacetSearch.search(filter().minSeats(5).build()).getResults().isEmpty());
+        assertThrows(RuntimeException.class, () -> tripFacetSearch.search(filter().sort("rating").build()));
+    }
+
+    private TripFilter.TripFilterBuilder filter() {
+        return TripFilter.builder().source(source).destination("Kumbakonam").date(day);
+    }
+
+    private Bus bus(String type, String operator) {
+        return busRepository.save(Bus.builder()
+                .busNumber("FCT-" + UUID.randomUUID()).busType(type).operatorName(operator).totalSeats(4).build());
+    }
+
+    private Trip schedule(Bus bus, LocalDateTime departure, int hours, double fare) {
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(hours), fare);
+    }
+
+    private static List<Long> tripIds(List<TripSearchResult> results) {
+        return results.stream().map(TripSearchResult::getTripId).toList();
+    }
+}
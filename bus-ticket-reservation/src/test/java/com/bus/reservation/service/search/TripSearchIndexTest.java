@@ -0,0 +1,100 @@
+package com.bus.reservation.service.search;
+
+import com.bus.reservation.dto.TripSearchResult;
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+class TripSearchIndexTest {
+
+    @Autowired private TripSearchIndex tripSearchIndex;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+
+    private Bus bus;
+    private Route route;
+    private String source;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        bus = busRepository.save(Bus.builder()
+                .busNumber("IDX-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        // A city name of its own keeps other tests' trips out of the results
+        source = "Erode-" + UUID.randomUUID();
+        route = routeRepository.save(Route.builder().source(source).destination("Tirunelveli").build());
+        day = LocalDate.now().plusDays(5);
+    }
+
+    @Test
+    void searchesAreAnsweredFromMemoryInDepartureOrder() {
+        Trip late = schedule(day.atTime(22, 0));
+        Trip early = schedule(day.atTime(6, 30));
+        schedule(day.plusDays(1).atTime(6, 30));
+        tripService.searchTrips(source, "Tirunelveli", day.atStartOfDay());
+
+        StatementCounter.reset();
+        List<TripSearchResult> found = tripService.searchTrips(source.toUpperCase(), " tirunelveli ", day.atTime(12, 0));
+        assertEquals(0, StatementCounter.count());
+
+        assertEquals(List.of(early.getId(), late.getId()), tripIds(found));
+        assertEquals(4, found.get(0).getAvailableSeats());
+        assertEquals(1, tripSearchIndex.search(source, "Tirunelveli", day.atTime(7, 0), day.atTime(23, 0)).size());
+        assertEquals(3, tripSearchIndex.search(source, "Tirunelveli", day.atStartOfDay(), day.plusDays(2).atStartOfDay()).size());
+    }
+
+    @Test
+    void updatesAndDeletesAreIndexed() {
+        tripSearchIndex.search(source, "Tirunelveli", day.atStartOfDay(), day.atTime(23, 59, 59));
+        Trip moved = schedule(day.atTime(9, 0));
+        Trip deleted = schedule(day.atTime(10, 0));
+
+        Trip details = Trip.builder()
+                .bus(bus).route(route)
+                .departureTime(day.plusDays(1).atTime(9, 0)).arrivalTime(day.plusDays(1).atTime(15, 0))
+                .fare(550.0).build();
+        tripService.updateTrip(moved.getId(), details);
+        tripService.deleteTrip(deleted.getId());
+
+        assertTrue(tripService.searchTrips(source, "Tirunelveli", day.atStartOfDay()).isEmpty());
+        List<TripSearchResult> nextDay = tripService.searchTrips(source, "Tirunelveli", day.plusDays(1).atStartOfDay());
+        assertEquals(List.of(moved.getId()), tripIds(nextDay));
+        assertEquals(550.0, nextDay.get(0).getFare());
+        assertTrue(tripSearchIndex.verify().getConsistent());
+    }
+
+    @Test
+    void pastDeparturesFallBackToTheDatabase() {
+        tripSearchIndex.search(source, "Tirunelveli", day.atStartOfDay(), day.atTime(23, 59, 59));
+        Trip past = schedule(LocalDate.now().minusDays(3).atTime(8, 0));
+
+        List<TripSearchResult> found = tripService.searchTrips(source, "Tirunelveli", LocalDate.now().minusDays(3).atStartOfDay());
+
+        assertEquals(List.of(past.getId()), tripIds(found));
+        assertTrue(tripSearchIndex.verify().getConsistent());
+    }
+
+    private Trip schedule(LocalDateTime departure) {
+        return tripService.scheduleTrip(bus.getId(), route.getId(), departure, departure.plusHours(6), 500.0);
+    }
+
+    private static List<Long> tripIds(List<TripSearchResult> results) {
+        return results.stream().map(result -> result.getTripId()).toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.bus.reservation.service.stream;
+
+import com.bus.reservation.dto.SeatDelta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatStreamServiceTest {
+
+    private final SeatStreamService seatStreamService = new SeatStreamService(new ObjectMapper(), 60000, 5000, 1);
+
+    @Test
+    void burstOnOneTripBecomesOneDelta() {
+        seatStreamService.subscribe(1L, () -> "map");
+
+        seatStreamService.publish(1L, SeatChange.HELD, List.of(1L, 2L, 3L, 4L, 5L, 6L), 1);
+        seatStreamService.publish(1L, SeatChange.BOOKED, List.of(1L, 2L, 3L, 4L, 5L, 6L), 2);
+        seatStreamService.publish(1L, SeatChange.HELD, List.of(9L), 3);
+
+        Map<Long, SeatDelta> deltas = seatStreamService.drain();
+        assertEquals(1, deltas.size());
+        SeatDelta delta = deltas.get(1L);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), delta.getBooked());
+        assertEquals(List.of(9L), delta.getHeld());
+        assertEquals(3, delta.getVersion());
+
+        assertTrue(seatStreamService.drain().isEmpty());
+    }
+
+    @Test
+    void changesOfTripsWithoutSubscribersAreDropped() {
+        seatStreamService.publish(2L, SeatChange.CANCELLED, List.of(1L), 1);
+
+        assertTrue(seatStreamService.drain().isEmpty());
+        assertEquals(0, seatStreamService.getSubscriberCount());
+    }
+}
@@ -0,0 +1,132 @@
+package com.bus.reservation.service.waitlist;
+
+import com.bus.reservation.model.*;
+import com.bus.reservation.repository.*;
+import com.bus.reservation.service.BookingService;
+import com.bus.reservation.service.TripService;
+import com.bus.reservation.util.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class WaitlistServiceTest {
+
+    @Autowired private WaitlistService waitlistService;
+    @Autowired private BookingService bookingService;
+    @Autowired private TripService tripService;
+    @Autowired private BusRepository busRepository;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private WaitlistEntryRepository waitlistEntryRepository;
+    @MockBean private EmailService emailService;
+
+    private Long tripId;
+    private List<Long> seatIds;
+
+    @BeforeEach
+    void setUp() {
+        Bus bus = busRepository.save(Bus.builder()
+                .busNumber("WAIT-" + UUID.randomUUID()).busType("Seater").totalSeats(4).build());
+        Route route = routeRepository.save(Route.builder().source("Salem").destination("Coimbatore").build());
+        tripId = tripService.scheduleTrip(bus.getId(), route.getId(),
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(4), 400.0).getId();
+        seatIds = seatRepository.findByTripId(tripId).stream().map(Seat::getId).sorted().toList();
+    }
+
+    @Test
+    void cancellationIsOfferedToTheHeadOfTheQueue() throws Exception {
+        Long buyer = newUser();
+        Booking pair = book(seatIds.subList(0, 2), buyer);
+        book(seatIds.subList(2, 4), buyer);
+
+        WaitlistEntry first = waitlistService.join(tripId, 2, newUser());
+        WaitlistEntry second = waitlistService.join(tripId, 1, newUser());
+        assertEquals(1, waitlistService.getPosition(second));
+
+        bookingService.cancelBooking(pair.getId(), buyer);
+
+        WaitlistEntry offered = awaitStatus(first.getId(), WaitlistService.OFFERED);
+        assertNotNull(offered.getSessionId());
+        assertTrue(offered.getOfferedUntil().isAfter(LocalDateTime.now()));
+        assertEquals(WaitlistService.WAITING, waitlistEntryRepository.findById(second.getId()).orElseThrow().getStatus());
+        verify(emailService, timeout(5000)).sendSimpleEmail(eq(offered.getUser().getEmail()),
+                startsWith("Seats available"), contains(offered.getSessionId()));
+
+        Booking booking = bookingService.confirmBooking(offered.getSessionId(), offered.getUser().getId(), "UPI");
+        assertEquals(2, booking.getSeats().size());
+    }
+
+    @Test
+    void releasedHoldGoesToTheNextWaitingEntry() throws Exception {
+        Long buyer = newUser();
+        book(seatIds.subList(0, 3), buyer);
+        String session = bookingService.holdSeats(tripId, seatIds.subList(3, 4), buyer);
+
+        WaitlistEntry leaving = waitlistService.join(tripId, 1, newUser());
+        WaitlistEntry waiting = waitlistService.join(tripId, 1, newUser());
+        waitlistService.leave(leaving.getId(), leaving.getUser().getId());
+
+        bookingService.releaseSeatHold(session);
+
+        assertEquals(WaitlistService.OFFERED, awaitStatus(waiting.getId(), WaitlistService.OFFERED).getStatus());
+        assertEquals(WaitlistService.CANCELLED, waitlistEntryRepository.findById(leaving.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void joiningWithSeatsFreeIsOfferedAtOnce() throws Exception {
+        WaitlistEntry entry = waitlistService.join(tripId, 3, newUser());
+
+        assertEquals(WaitlistService.OFFERED, awaitStatus(entry.getId(), WaitlistService.OFFERED).getStatus());
+        assertThrows(RuntimeException.class, () -> waitlistService.join(tripId, 11, newUser()));
+    }
+
+    @Test
+    void releasedOfferExpiresAndPassesOn() throws Exception {
+        book(seatIds.subList(0, 3), newUser());
+        WaitlistEntry first = waitlistService.join(tripId, 1, newUser());
+        WaitlistEntry second = waitlistService.join(tripId, 1, newUser());
+        WaitlistEntry offered = awaitStatus(first.getId(), WaitlistService.OFFERED);
+
+        bookingService.releaseSeatHold(offered.getSessionId());
+
+        assertEquals(WaitlistService.EXPIRED, awaitStatus(first.getId(), WaitlistService.EXPIRED).getStatus());
+        assertEquals(WaitlistService.OFFERED, awaitStatus(second.getId(), WaitlistService.OFFERED).getStatus());
+    }
+
+    private Booking book(List<Long> seats, Long userId) {
+        String sessionId = bookingService.holdSeats(tripId, seats, userId);
+        return bookingService.confirmBooking(sessionId, userId, "UPI");
+    }
+
+    private WaitlistEntry awaitStatus(Long entryId, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId).orElseThrow();
+        while (!status.equals(entry.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            entry = waitlistEntryRepository.findById(entryId).orElseThrow();
+        }
+        return entry;
+    }
+
+    private Long newUser() {
+        return userRepository.save(User.builder()
+                .name("Waiting").email("waiting-" + UUID.randomUUID() + "@test.local")
+                .phone(UUID.randomUUID().toString().substring(0, 12))
+                .password("x").role(User.Role.CUSTOMER).build()).getId();
+    }
+}
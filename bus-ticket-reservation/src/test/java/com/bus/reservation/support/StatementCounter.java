@@ -0,0 +1,92 @@
+package com.bus.reservation.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.function.UnaryOperator;
+
+/**
+ * Wraps the application DataSource and counts statement executions (database
+ * round trips) made by the current thread, so scheduled jobs running in the
+ * background do not skew a measurement.
+ */
+@TestConfiguration
+public class StatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource
+                        ? wrap(DataSource.class, dataSource, StatementCounter::wrapConnection)
+                        : bean;
+            }
+        };
+    }
+
+    private static Object wrapConnection(Object result) {
+        return result instanceof Connection connection
+                ? wrap(Connection.class, connection, StatementCounter::wrapStatement)
+                : result;
+    }
+
+    private static Object wrapStatement(Object result) {
+        if (result instanceof CallableStatement statement) {
+            return counting(CallableStatement.class, statement);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return counting(PreparedStatement.class, statement);
+        }
+        if (result instanceof Statement statement) {
+            return counting(Statement.class, statement);
+        }
+        return result;
+    }
+
+    private static <T> T counting(Class<T> type, T target) {
+        return proxy(type, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                COUNT.get()[0]++;
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static <T> T wrap(Class<T> type, T target, UnaryOperator<Object> resultWrapper) {
+        return proxy(type, (proxy, method, args) -> resultWrapper.apply(invoke(target, method, args)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}